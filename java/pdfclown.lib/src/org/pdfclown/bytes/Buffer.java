@@ -236,8 +236,16 @@ public final class Buffer
     Filter filter,
     PdfDictionary parameters
     )
+  {decode(filter, parameters, 0);}
+
+  @Override
+  public void decode(
+    Filter filter,
+    PdfDictionary parameters,
+    int decodedLength
+    )
   {
-    data = filter.decode(data, 0, length, parameters);
+    data = filter.decode(data, 0, length, parameters, decodedLength);
     length = data.length;
   }
 
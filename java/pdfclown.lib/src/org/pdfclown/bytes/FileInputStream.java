@@ -29,6 +29,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 
 import org.pdfclown.tokens.Encoding;
 import org.pdfclown.util.ConvertUtils;
@@ -294,6 +295,15 @@ public final class FileInputStream
     {super.finalize();}
   }
   // </protected>
+
+  // <internal>
+  /**
+    Gets the channel of the file.
+  */
+  FileChannel getChannel(
+    )
+  {return file.getChannel();}
+  // </internal>
   // </interface>
   // </dynamic>
   // </class>
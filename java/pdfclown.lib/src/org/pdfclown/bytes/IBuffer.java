@@ -135,6 +135,19 @@ public interface IBuffer
     PdfDictionary parameters
     );
 
+  /**
+    Applies the specified filter to decode the buffer.
+
+    @param filter Filter to use for decoding the buffer.
+    @param parameters Decoding parameters.
+    @param decodedLength Expected length of the decoded buffer ({@code 0}, if unknown).
+  */
+  void decode(
+    Filter filter,
+    PdfDictionary parameters,
+    int decodedLength
+    );
+
   /**
     Deletes a byte chunk from the buffer.
 
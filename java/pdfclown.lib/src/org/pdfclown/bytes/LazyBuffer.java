@@ -0,0 +1,592 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.bytes;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pdfclown.bytes.filters.Filter;
+import org.pdfclown.objects.PdfDictionary;
+
+/**
+  Byte buffer lazily loaded from a range of a source stream.
+  <p>Until any of its data is accessed, this buffer holds just the location of its range within the
+  source stream; on first access, the range is copied into an inner {@link Buffer} which backs all
+  the subsequent operations.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public final class LazyBuffer
+  implements IBuffer
+{
+  // <class>
+  // <static>
+  // <fields>
+  private static final int CopyChunkSize = 1 << 16;
+  // </fields>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private IInputStream source;
+  /**
+    Lock guarding the source stream (shared with its parser, see
+    FileParser.parsePdfObject(XRefEntry)).
+  */
+  private final Object sourceLock;
+  private final long offset;
+  private final int length;
+
+  /**
+    Inner buffer where data are stored once loaded.
+  */
+  private volatile Buffer buffer;
+  private boolean dirty;
+  private List<IListener> listeners;
+  // </fields>
+
+  // <constructors>
+  /**
+    @param source Stream containing the buffer data.
+    @param offset Position of the buffer data within the source stream.
+    @param length Number of bytes of the buffer data.
+  */
+  public LazyBuffer(
+    IInputStream source,
+    long offset,
+    int length
+    )
+  {
+    this.source = source;
+    this.sourceLock = source;
+    this.offset = offset;
+    this.length = length;
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets whether the buffer data have been loaded from the source stream.
+  */
+  public boolean isLoaded(
+    )
+  {return buffer != null;}
+
+  /**
+    Loads the buffer data from the source stream, if not loaded yet.
+  */
+  public void load(
+    )
+  {getBuffer();}
+
+  // <IBuffer>
+  @Override
+  public void addListener(
+    IListener listener
+    )
+  {
+    if(listeners == null)
+    {listeners = new ArrayList<IBuffer.IListener>();}
+
+    listeners.add(listener);
+  }
+
+  @Override
+  public IBuffer append(
+    byte data
+    )
+  {getBuffer().append(data); return this;}
+
+  @Override
+  public IBuffer append(
+    byte[] data
+    )
+  {getBuffer().append(data); return this;}
+
+  @Override
+  public IBuffer append(
+    byte[] data,
+    int offset,
+    int length
+    )
+  {getBuffer().append(data, offset, length); return this;}
+
+  @Override
+  public IBuffer append(
+    String data
+    )
+  {getBuffer().append(data); return this;}
+
+  @Override
+  public IBuffer append(
+    IInputStream data
+    )
+  {getBuffer().append(data); return this;}
+
+  @Override
+  public void clear(
+    )
+  {getBuffer().clear();}
+
+  @Override
+  public Buffer clone(
+    )
+  {return getBuffer().clone();}
+
+  @Override
+  public void decode(
+    Filter filter,
+    PdfDictionary parameters
+    )
+  {getBuffer().decode(filter, parameters);}
+
+  @Override
+  public void decode(
+    Filter filter,
+    PdfDictionary parameters,
+    int decodedLength
+    )
+  {getBuffer().decode(filter, parameters, decodedLength);}
+
+  @Override
+  public void delete(
+    int index,
+    int length
+    )
+  {getBuffer().delete(index, length);}
+
+  @Override
+  public byte[] encode(
+    Filter filter,
+    PdfDictionary parameters
+    )
+  {
+    Buffer buffer = this.buffer;
+    if(buffer == null)
+    {
+      /*
+        NOTE: Data not loaded yet are encoded from a transient copy, so that they aren't retained
+        (see PdfStream.encodeAhead(..)).
+      */
+      byte[] data = null;
+      synchronized(sourceLock)
+      {
+        buffer = this.buffer;
+        if(buffer == null)
+        {data = readSource();}
+      }
+      if(data != null)
+        return filter.encode(data, 0, data.length, parameters);
+    }
+    return buffer.encode(filter, parameters);
+  }
+
+  @Override
+  public int getByte(
+    int index
+    )
+  {return getBuffer().getByte(index);}
+
+  @Override
+  public byte[] getByteArray(
+    int index,
+    int length
+    )
+  {return getBuffer().getByteArray(index, length);}
+
+  @Override
+  public String getString(
+    int index,
+    int length
+    )
+  {return getBuffer().getString(index, length);}
+
+  @Override
+  public int getCapacity(
+    )
+  {return buffer != null ? buffer.getCapacity() : length;}
+
+  @Override
+  public void insert(
+    int index,
+    byte[] data
+    )
+  {getBuffer().insert(index, data);}
+
+  @Override
+  public void insert(
+    int index,
+    byte[] data,
+    int offset,
+    int length
+    )
+  {getBuffer().insert(index, data, offset, length);}
+
+  @Override
+  public void insert(
+    int index,
+    String data
+    )
+  {getBuffer().insert(index, data);}
+
+  @Override
+  public void insert(
+    int index,
+    IInputStream data
+    )
+  {getBuffer().insert(index, data);}
+
+  @Override
+  public boolean isDirty(
+    )
+  {return buffer != null ? buffer.isDirty() : dirty;}
+
+  @Override
+  public boolean removeListener(
+    IListener listener
+    )
+  {
+    if(listeners == null)
+      return false;
+
+    return listeners.remove(listener);
+  }
+
+  @Override
+  public void replace(
+    int index,
+    byte[] data
+    )
+  {getBuffer().replace(index, data);}
+
+  @Override
+  public void replace(
+    int index,
+    byte[] data,
+    int offset,
+    int length
+    )
+  {getBuffer().replace(index, data, offset, length);}
+
+  @Override
+  public void replace(
+    int index,
+    String data
+    )
+  {getBuffer().replace(index, data);}
+
+  @Override
+  public void replace(
+    int index,
+    IInputStream data
+    )
+  {getBuffer().replace(index, data);}
+
+  @Override
+  public void setDirty(
+    boolean value
+    )
+  {
+    if(buffer != null)
+    {buffer.setDirty(value);}
+    else
+    {dirty = value;}
+  }
+
+  @Override
+  public void setLength(
+    int value
+    )
+  {getBuffer().setLength(value);}
+
+  @Override
+  public void writeTo(
+    IOutputStream stream
+    )
+  {
+    Buffer buffer = this.buffer;
+    if(buffer == null)
+    {
+      synchronized(sourceLock)
+      {
+        buffer = this.buffer;
+        if(buffer == null)
+        {
+          // Copy the data straight from the source, without retaining them!
+          long oldPosition = source.getPosition();
+          try
+          {
+            source.seek(offset);
+            byte[] chunk = new byte[Math.min(length, CopyChunkSize)];
+            for(int remaining = length; remaining > 0;)
+            {
+              int chunkLength = Math.min(remaining, chunk.length);
+              source.read(chunk, 0, chunkLength);
+              stream.write(chunk, 0, chunkLength);
+              remaining -= chunkLength;
+            }
+          }
+          catch(EOFException e)
+          {throw new RuntimeException(e);}
+          finally
+          {restorePosition(oldPosition);}
+          return;
+        }
+      }
+    }
+    buffer.writeTo(stream);
+  }
+
+  // <IInputStream>
+  @Override
+  public ByteOrder getByteOrder(
+    )
+  {return getBuffer().getByteOrder();}
+
+  @Override
+  public long getPosition(
+    )
+  {return buffer != null ? buffer.getPosition() : 0;}
+
+  /* int hashCode() uses inherited implementation. */
+
+  @Override
+  public void read(
+    byte[] data
+    )
+  {getBuffer().read(data);}
+
+  @Override
+  public void read(
+    byte[] data,
+    int offset,
+    int length
+    )
+  {getBuffer().read(data, offset, length);}
+
+  @Override
+  public byte readByte(
+    ) throws EOFException
+  {return getBuffer().readByte();}
+
+  @Override
+  public int readInt(
+    ) throws EOFException
+  {return getBuffer().readInt();}
+
+  @Override
+  public int readInt(
+    int length
+    ) throws EOFException
+  {return getBuffer().readInt(length);}
+
+  @Override
+  public String readLine(
+    ) throws EOFException
+  {return getBuffer().readLine();}
+
+  @Override
+  public short readShort(
+    ) throws EOFException
+  {return getBuffer().readShort();}
+
+  @Override
+  public String readString(
+    int length
+    ) throws EOFException
+  {return getBuffer().readString(length);}
+
+  @Override
+  public int readUnsignedByte(
+    ) throws EOFException
+  {return getBuffer().readUnsignedByte();}
+
+  @Override
+  public int readUnsignedShort(
+    ) throws EOFException
+  {return getBuffer().readUnsignedShort();}
+
+  @Override
+  public void seek(
+    long position
+    ) throws EOFException
+  {getBuffer().seek(position);}
+
+  @Override
+  public void setByteOrder(
+    ByteOrder value
+    )
+  {getBuffer().setByteOrder(value);}
+
+  @Override
+  public void skip(
+    long offset
+    ) throws EOFException
+  {getBuffer().skip(offset);}
+
+  // <IDataWrapper>
+  @Override
+  public byte[] toByteArray(
+    )
+  {return getBuffer().toByteArray();}
+  // </IDataWrapper>
+
+  // <IStream>
+  @Override
+  public long getLength(
+    )
+  {return buffer != null ? buffer.getLength() : length;}
+
+  // <Closeable>
+  @Override
+  public void close(
+    ) throws IOException
+  {}
+  // </Closeable>
+  // </IStream>
+  // </IInputStream>
+  // </IBuffer>
+
+  // <IOutputStream>
+  @Override
+  public void write(
+    byte[] data
+    )
+  {append(data);}
+
+  @Override
+  public void write(
+    byte[] data,
+    int offset,
+    int length
+    )
+  {append(data, offset, length);}
+
+  @Override
+  public void write(
+    String data
+    )
+  {append(data);}
+
+  @Override
+  public void write(
+    IInputStream data
+    )
+  {append(data);}
+  // </IOutputStream>
+  // </public>
+
+  // <private>
+  /**
+    Gets the inner buffer, loading its data from the source stream on first access.
+  */
+  private Buffer getBuffer(
+    )
+  {
+    Buffer buffer = this.buffer;
+    if(buffer == null)
+    {
+      /*
+        NOTE: The source stream is shared with its parser, so its pointer position has to be
+        recovered after reading; check and load are done under the same lock as the parser's.
+      */
+      synchronized(sourceLock)
+      {
+        buffer = this.buffer;
+        if(buffer == null)
+        {
+          buffer = new Buffer(readSource());
+          buffer.setDirty(dirty);
+          buffer.addListener(new IListener()
+          {
+            @Override
+            public void onChange(
+              IBuffer buffer
+              )
+            {notifyChange();}
+          });
+          this.buffer = buffer;
+          source = null;
+        }
+      }
+    }
+    return buffer;
+  }
+
+  private void notifyChange(
+    )
+  {
+    if(listeners == null)
+      return;
+
+    for(IListener listener : listeners)
+    {listener.onChange(this);}
+  }
+
+  /**
+    Reads the buffer data from the source stream.
+    <p>The caller MUST hold the source lock.</p>
+  */
+  private byte[] readSource(
+    )
+  {
+    byte[] data = new byte[length];
+    long oldPosition = source.getPosition();
+    try
+    {
+      source.seek(offset);
+      source.read(data);
+    }
+    catch(EOFException e)
+    {throw new RuntimeException(e);}
+    finally
+    {restorePosition(oldPosition);}
+    return data;
+  }
+
+  /**
+    Moves the source stream pointer back to the specified position.
+  */
+  private void restorePosition(
+    long position
+    )
+  {
+    try
+    {source.seek(position);}
+    catch(EOFException e)
+    {throw new RuntimeException(e);}
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -0,0 +1,394 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.bytes;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.pdfclown.tokens.Encoding;
+import org.pdfclown.util.ConvertUtils;
+
+/**
+  Memory-mapped file stream.
+  <p>The file is mapped into memory through consecutive segments, so that files larger than 2 GB
+  are supported too; byte reads are served straight from the mapped memory without any system
+  call, unlike {@link FileInputStream}.</p>
+  <p>Segments are explicitly unmapped on {@link #close() closing}, so that the file can be
+  deleted or replaced right after (on some platforms, such as Windows, mapped files are locked);
+  as the runtime may not support explicit unmapping, check {@link #isUnmappingSupported()} before
+  use.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public final class MappedFileInputStream
+  implements IInputStream
+{
+  // <class>
+  // <static>
+  // <fields>
+  /**
+    Segment size exponent (1 GB segments).
+  */
+  private static final int SegmentSizeBits = 30;
+  private static final long SegmentSize = 1L << SegmentSizeBits;
+  private static final long SegmentMask = SegmentSize - 1;
+
+  /*
+    NOTE: Explicit unmapping is available through internal APIs only: either Unsafe.invokeCleaner()
+    (Java 9+) or the cleaner of the direct buffer (Java 8 and earlier).
+  */
+  private static final Object Unsafe;
+  private static final Method InvokeCleanerMethod;
+  private static final Method CleanerMethod;
+  private static final Method CleanMethod;
+  // </fields>
+
+  // <constructors>
+  static
+  {
+    Object unsafe = null;
+    Method invokeCleanerMethod = null;
+    Method cleanerMethod = null;
+    Method cleanMethod = null;
+    try
+    {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      invokeCleanerMethod = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+      unsafeField.setAccessible(true);
+      unsafe = unsafeField.get(null);
+    }
+    catch(Exception e1)
+    {
+      invokeCleanerMethod = null;
+      try
+      {
+        cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+      }
+      catch(Exception e2)
+      {cleanerMethod = cleanMethod = null;}
+    }
+    Unsafe = unsafe;
+    InvokeCleanerMethod = invokeCleanerMethod;
+    CleanerMethod = cleanerMethod;
+    CleanMethod = cleanMethod;
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets whether the runtime supports the explicit unmapping of the file on {@link #close()
+    closing}.
+  */
+  public static boolean isUnmappingSupported(
+    )
+  {return InvokeCleanerMethod != null || CleanMethod != null;}
+  // </public>
+
+  // <private>
+  private static void unmap(
+    MappedByteBuffer buffer
+    )
+  {
+    try
+    {
+      if(InvokeCleanerMethod != null)
+      {InvokeCleanerMethod.invoke(Unsafe, buffer);}
+      else if(CleanMethod != null)
+      {
+        Object cleaner = CleanerMethod.invoke(buffer);
+        if(cleaner != null)
+        {CleanMethod.invoke(cleaner);}
+      }
+    }
+    catch(Exception e)
+    {/* NOOP: The segment is released by the garbage collector. */}
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private RandomAccessFile file;
+  private final long length;
+  private MappedByteBuffer[] segments;
+
+  private ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+  /**
+    Pointer position within the file.
+  */
+  private long position = 0;
+  // </fields>
+
+  // <constructors>
+  public MappedFileInputStream(
+    RandomAccessFile file
+    )
+  {
+    this.file = file;
+    try
+    {
+      FileChannel channel = file.getChannel();
+      length = channel.size();
+      segments = new MappedByteBuffer[(int)((length + SegmentMask) >>> SegmentSizeBits)];
+      for(int index = 0; index < segments.length; index++)
+      {
+        long segmentOffset = index * SegmentSize;
+        segments[index] = channel.map(
+          FileChannel.MapMode.READ_ONLY,
+          segmentOffset,
+          Math.min(SegmentSize, length - segmentOffset)
+          );
+      }
+    }
+    catch(IOException e)
+    {throw new RuntimeException(e);}
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  // <IInputStream>
+  @Override
+  public ByteOrder getByteOrder(
+    )
+  {return byteOrder;}
+
+  @Override
+  public long getPosition(
+    )
+  {return position;}
+
+  /* int hashCode() uses inherited implementation. */
+
+  @Override
+  public void read(
+    byte[] data
+    ) throws EOFException
+  {read(data, 0, data.length);}
+
+  @Override
+  public void read(
+    byte[] data,
+    int offset,
+    int length
+    ) throws EOFException
+  {
+    if(position + length > this.length)
+      throw new EOFException();
+
+    while(length > 0)
+    {
+      ByteBuffer segment = segments[(int)(position >>> SegmentSizeBits)].duplicate();
+      segment.position((int)(position & SegmentMask));
+      int chunkLength = Math.min(length, segment.remaining());
+      segment.get(data, offset, chunkLength);
+      position += chunkLength;
+      offset += chunkLength;
+      length -= chunkLength;
+    }
+  }
+
+  @Override
+  public byte readByte(
+    ) throws EOFException
+  {
+    if(position >= length)
+      throw new EOFException();
+
+    return get(position++);
+  }
+
+  @Override
+  public int readInt(
+    ) throws EOFException
+  {return readInt(4);}
+
+  @Override
+  public int readInt(
+    int length
+    ) throws EOFException
+  {
+    byte[] data = new byte[length];
+    read(data);
+    return ConvertUtils.byteArrayToNumber(data, 0, length, byteOrder);
+  }
+
+  @Override
+  public String readLine(
+    ) throws EOFException
+  {
+    if(position >= length)
+      throw new EOFException();
+
+    StringBuilder buffer = new StringBuilder();
+    while(position < length)
+    {
+      int c = get(position++) & 0xFF;
+      if(c == '\n')
+        break;
+      else if(c == '\r')
+      {
+        if(position < length && get(position) == '\n')
+        {position++;}
+        break;
+      }
+
+      buffer.append((char)c);
+    }
+    return buffer.toString();
+  }
+
+  @Override
+  public short readShort(
+    ) throws EOFException
+  {return (short)readInt(2);}
+
+  @Override
+  public String readString(
+    int length
+    ) throws EOFException
+  {
+    byte[] data = new byte[length];
+    read(data);
+    return Encoding.Pdf.decode(data, 0, length);
+  }
+
+  @Override
+  public int readUnsignedByte(
+    ) throws EOFException
+  {
+    if(position >= length)
+      throw new EOFException();
+
+    return get(position++) & 0xFF;
+  }
+
+  @Override
+  public int readUnsignedShort(
+    ) throws EOFException
+  {return readInt(2) & 0xFFFF;}
+
+  @Override
+  public void seek(
+    long position
+    )
+  {
+    if(position < 0)
+      throw new IllegalArgumentException("Negative position: " + position);
+
+    this.position = position;
+  }
+
+  @Override
+  public void setByteOrder(
+    ByteOrder value
+    )
+  {byteOrder = value;}
+
+  @Override
+  public void skip(
+    long offset
+    )
+  {seek(position + offset);}
+
+  // <IDataWrapper>
+  @Override
+  public byte[] toByteArray(
+    )
+  {
+    byte[] data = new byte[(int)length];
+    long oldPosition = position;
+    try
+    {
+      position = 0;
+      read(data);
+    }
+    catch(EOFException e)
+    {throw new RuntimeException(e);}
+    finally
+    {position = oldPosition;}
+    return data;
+  }
+  // </IDataWrapper>
+
+  // <IStream>
+  @Override
+  public long getLength(
+    )
+  {return length;}
+
+  // <Closeable>
+  @Override
+  public void close(
+    ) throws IOException
+  {
+    if(file != null)
+    {
+      MappedByteBuffer[] segments = this.segments;
+      this.segments = null;
+      for(MappedByteBuffer segment : segments)
+      {unmap(segment);}
+      file.close();
+      file = null;
+    }
+  }
+  // </Closeable>
+  // </IStream>
+  // </IInputStream>
+  // </public>
+
+  // <internal>
+  /**
+    Gets the channel of the mapped file.
+  */
+  FileChannel getChannel(
+    )
+  {return file.getChannel();}
+  // </internal>
+
+  // <private>
+  private byte get(
+    long position
+    )
+  {return segments[(int)(position >>> SegmentSizeBits)].get((int)(position & SegmentMask));}
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
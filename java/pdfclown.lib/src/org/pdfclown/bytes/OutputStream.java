@@ -28,6 +28,8 @@ package org.pdfclown.bytes;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.pdfclown.tokens.Encoding;
 
@@ -41,11 +43,18 @@ public final class OutputStream
   implements IOutputStream
 {
   // <class>
+  // <static>
+  // <fields>
+  private static final int CopyChunkSize = 1 << 16;
+  // </fields>
+  // </static>
+
   // <dynamic>
   // <fields>
   private java.io.OutputStream stream;
+  private FileChannel channel;
 
-  private int length;
+  private long length;
   // </fields>
 
   // <constructors>
@@ -53,10 +62,63 @@ public final class OutputStream
     java.io.OutputStream stream
     )
   {this.stream = stream;}
+
+  /**
+    @param stream Target stream.
+    @param channel Channel of the file the target stream writes to. It enables the direct transfer
+      of file-based sources (see {@link #write(IInputStream)}); its current position is taken as
+      the initial length of this stream, so that appending to an existing file is supported.
+  */
+  public OutputStream(
+    java.io.OutputStream stream,
+    FileChannel channel
+    ) throws IOException
+  {
+    this(stream);
+    this.channel = channel;
+    length = channel.position();
+  }
   // </constructors>
 
   // <interface>
   // <public>
+  /**
+    Gets whether the data already written can be overwritten (see {@link #write(long, byte[])}).
+  */
+  public boolean isOverwritable(
+    )
+  {return channel != null;}
+
+  /**
+    Overwrites the data at the specified position, leaving the stream length unchanged.
+    <p>The stream MUST be file-based (see {@link #isOverwritable()}), and its file MUST NOT be open
+    in append mode.</p>
+
+    @param position Position of the data from the beginning of the file.
+    @param data Data to write.
+  */
+  public void write(
+    long position,
+    byte[] data
+    )
+  {
+    if(channel == null)
+      throw new UnsupportedOperationException("Overwriting requires a file channel.");
+    if(position < 0 || position + data.length > length)
+      throw new IndexOutOfBoundsException("Position " + position + " out of the written data (length " + length + ").");
+
+    try
+    {
+      // Flush the pending data before writing through the channel!
+      stream.flush();
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      while(buffer.hasRemaining())
+      {channel.write(buffer, position + buffer.position());}
+    }
+    catch(IOException e)
+    {throw new RuntimeException(e);}
+  }
+
   // <IOutputStream>
   @Override
   public void clear(
@@ -109,24 +171,54 @@ public final class OutputStream
     length += data.length();
   }
 
+  /**
+    {@inheritDoc}
+    <p>The source data are copied either through a direct channel transfer (in case both the source
+    and the target are files) or chunk by chunk, so that they are never entirely loaded into memory.
+    The source pointer position is preserved.</p>
+  */
   @Override
   public void write(
     IInputStream data
     )
   {
+    long dataLength = data.getLength();
     try
     {
-      // TODO:IMPL bufferize!!!
-      byte[] baseData = new byte[(int)data.getLength()];
-      // Force the source pointer to the BOF (as we must copy the entire content)!
-      data.seek(0);
-      // Read source content!
-      data.read(baseData);
-      // Write target content!
-      write(baseData);
+      FileChannel dataChannel = (channel != null ? getChannel(data) : null);
+      if(dataChannel != null) // Direct transfer.
+      {
+        // Flush the pending data before writing through the channel!
+        stream.flush();
+        for(long position = 0; position < dataLength;)
+        {
+          long count = dataChannel.transferTo(position, dataLength - position, channel);
+          if(count <= 0)
+            throw new EOFException();
+
+          position += count;
+        }
+      }
+      else // Chunked copy.
+      {
+        long oldPosition = data.getPosition();
+        // Force the source pointer to the BOF (as we must copy the entire content)!
+        data.seek(0);
+        byte[] chunk = new byte[(int)Math.min(dataLength, CopyChunkSize)];
+        for(long remaining = dataLength; remaining > 0;)
+        {
+          int chunkLength = (int)Math.min(remaining, chunk.length);
+          data.read(chunk, 0, chunkLength);
+          stream.write(chunk, 0, chunkLength);
+          remaining -= chunkLength;
+        }
+        data.seek(oldPosition);
+      }
     }
-    catch(EOFException e)
+    catch(IOException e)
     {throw new RuntimeException(e);}
+
+    length += dataLength;
   }
 
   // <IStream>
@@ -144,6 +236,7 @@ public final class OutputStream
     {
       stream.close();
       stream = null;
+      channel = null;
     }
   }
   // </Closeable>
@@ -162,6 +255,25 @@ public final class OutputStream
     {super.finalize();}
   }
   // </protected>
+
+  // <private>
+  /**
+    Gets the channel of the file backing the specified stream.
+
+    @return <code>null</code>, if the stream isn't file-based.
+  */
+  private static FileChannel getChannel(
+    IInputStream stream
+    )
+  {
+    if(stream instanceof MappedFileInputStream)
+      return ((MappedFileInputStream)stream).getChannel();
+    else if(stream instanceof FileInputStream)
+      return ((FileInputStream)stream).getChannel();
+    else
+      return null;
+  }
+  // </private>
   // </interface>
   // </dynamic>
   // </class>
@@ -116,6 +116,21 @@ public abstract class Filter
     PdfDictionary parameters
     );
 
+  /**
+    Decodes the specified data, knowing in advance the expected decoded length.
+
+    @param decodedLength Expected length of the decoded data, used to size the destination buffer
+      ({@code 0}, if unknown).
+  */
+  public byte[] decode(
+    byte[] data,
+    int offset,
+    int length,
+    PdfDictionary parameters,
+    int decodedLength
+    )
+  {return decode(data, offset, length, parameters);}
+
   public abstract byte[] encode(
     byte[] data,
     int offset,
@@ -29,14 +29,13 @@
 
 package org.pdfclown.bytes.filters;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.EOFException;
 import java.util.Arrays;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
@@ -46,22 +45,92 @@ import org.pdfclown.objects.PdfName;
 
 /**
   zlib/deflate [RFC:1950,1951] filter [PDF:1.6:3.3.3].
+  <p>Data are inflated and deflated straight between byte arrays, through pooled zlib engines
+  (native engines are expensive to set up); idle engines exceeding the number of processors are
+  ended, so that their native memory is released.</p>
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @author Joshua Tauberer (http://razor.occams.info)
   @since 0.0.2
-  @version 0.1.3, 03/04/13
+  @version 0.2.0
 */
 @PDF(VersionEnum.PDF12)
 public final class FlateFilter
   extends Filter
 {
   // <class>
+  // <static>
+  // <fields>
+  private static final int MinBufferSize = 64;
+  /**
+    Maximum ratio between the initial decoding buffer size and the encoded data length.
+    <p>The declared decoded length (DL entry) is just a hint which may be bogus, so it isn't trusted
+    beyond this bound (the buffer grows anyway whenever needed).</p>
+  */
+  private static final int MaxInitialBufferRatio = 16;
+  /**
+    Maximum number of idle zlib engines retained for reuse.
+  */
+  private static final int MaxIdleEngineCount = Runtime.getRuntime().availableProcessors();
+
+  /**
+    Filter instances by compression level (index: level + 1).
+  */
+  private static final FlateFilter[] instances = new FlateFilter[Deflater.BEST_COMPRESSION + 2];
+
+  /**
+    Idle inflaters.
+  */
+  private static final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<Inflater>();
+  // </fields>
+
+  // <constructors>
+  static
+  {
+    for(int index = 0; index < instances.length; index++)
+    {instances[index] = new FlateFilter(index - 1);}
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets the filter applying the specified compression level on encoding.
+
+    @param level Compression level, from {@link Deflater#BEST_SPEED} to {@link
+      Deflater#BEST_COMPRESSION} ({@link Deflater#DEFAULT_COMPRESSION} for the zlib default).
+  */
+  public static FlateFilter get(
+    int level
+    )
+  {
+    if(level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+
+    return instances[level + 1];
+  }
+  // </public>
+  // </interface>
+  // </static>
+
   // <dynamic>
+  // <fields>
+  /**
+    Idle deflaters.
+  */
+  private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+  private final int level;
+  // </fields>
+
   // <constructors>
   FlateFilter(
     )
-  {}
+  {this(Deflater.DEFAULT_COMPRESSION);}
+
+  private FlateFilter(
+    int level
+    )
+  {this.level = level;}
   // </constructors>
 
   // <interface>
@@ -73,18 +142,56 @@ public final class FlateFilter
     int length,
     PdfDictionary parameters
     )
+  {return decode(data, offset, length, parameters, 0);}
+
+  @Override
+  public byte[] decode(
+    byte[] data,
+    int offset,
+    int length,
+    PdfDictionary parameters,
+    int decodedLength
+    )
   {
+    Inflater inflater = inflaters.poll();
+    if(inflater == null)
+    {inflater = new Inflater();}
     try
     {
-      InflaterInputStream inputFilter = new InflaterInputStream(
-        new ByteArrayInputStream(data, offset, length)
-        );
-      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-      transform(inputFilter, outputStream);
-      return decodePredictor(outputStream.toByteArray(), parameters);
+      inflater.setInput(data, offset, length);
+      byte[] buffer = new byte[
+        decodedLength > 0
+          ? (int)Math.min(decodedLength, (long)Math.max(length, MinBufferSize) * MaxInitialBufferRatio)
+          : Math.max(length * 2, MinBufferSize)
+        ];
+      int bufferLength = 0;
+      while(!inflater.finished())
+      {
+        if(bufferLength == buffer.length)
+        {buffer = Arrays.copyOf(buffer, buffer.length * 2);}
+
+        int inflatedLength = inflater.inflate(buffer, bufferLength, buffer.length - bufferLength);
+        if(inflatedLength == 0
+          && !inflater.finished()
+          && (inflater.needsInput() || inflater.needsDictionary()))
+          throw new EOFException("Unexpected end of ZLIB input stream");
+
+        bufferLength += inflatedLength;
+      }
+      return decodePredictor(buffer, bufferLength, parameters);
     }
-    catch(IOException e)
+    catch(DataFormatException e)
     {throw new RuntimeException(e);}
+    catch(EOFException e)
+    {throw new RuntimeException(e);}
+    finally
+    {
+      inflater.reset();
+      if(inflaters.size() < MaxIdleEngineCount)
+      {inflaters.offer(inflater);}
+      else
+      {inflater.end();}
+    }
   }
 
   @Override
@@ -95,49 +202,74 @@ public final class FlateFilter
     PdfDictionary parameters
     )
   {
+    Deflater deflater = deflaters.poll();
+    if(deflater == null)
+    {deflater = new Deflater(level);}
     try
     {
-      ByteArrayInputStream inputStream = new ByteArrayInputStream(data, offset, length);
-      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-      DeflaterOutputStream outputFilter = new DeflaterOutputStream(outputStream);
-      transform(inputStream, outputFilter);
-      return outputStream.toByteArray();
+      deflater.setInput(data, offset, length);
+      deflater.finish();
+      byte[] buffer = new byte[Math.max(length / 4, MinBufferSize)];
+      int bufferLength = 0;
+      while(!deflater.finished())
+      {
+        if(bufferLength == buffer.length)
+        {buffer = Arrays.copyOf(buffer, buffer.length * 2);}
+
+        bufferLength += deflater.deflate(buffer, bufferLength, buffer.length - bufferLength);
+      }
+      return bufferLength == buffer.length ? buffer : Arrays.copyOf(buffer, bufferLength);
+    }
+    finally
+    {
+      deflater.reset();
+      if(deflaters.size() < MaxIdleEngineCount)
+      {deflaters.offer(deflater);}
+      else
+      {deflater.end();}
     }
-    catch(IOException e)
-    {throw new RuntimeException(e);}
   }
+
+  /**
+    Gets the compression level applied on encoding.
+  */
+  public int getLevel(
+    )
+  {return level;}
   // </public>
 
   // <private>
+  /**
+    @param data Inflated data.
+    @param length Inflated data length.
+    @param parameters Decoding parameters.
+  */
   private byte[] decodePredictor(
     byte[] data,
+    int length,
     PdfDictionary parameters
-    ) throws IOException
+    )
   {
-    if(parameters == null)
-      return data;
-
-    int predictor = (parameters.containsKey(PdfName.Predictor) ? ((PdfInteger)parameters.get(PdfName.Predictor)).getRawValue() : 1);
+    int predictor = (parameters != null && parameters.containsKey(PdfName.Predictor) ? ((PdfInteger)parameters.get(PdfName.Predictor)).getRawValue() : 1);
     if(predictor == 1) // No predictor was applied during data encoding.
-      return data;
+      return length == data.length ? data : Arrays.copyOf(data, length);
 
     int sampleComponentBitsCount = (parameters.containsKey(PdfName.BitsPerComponent) ? ((PdfInteger)parameters.get(PdfName.BitsPerComponent)).getRawValue() : 8);
     int sampleComponentsCount = (parameters.containsKey(PdfName.Colors) ? ((PdfInteger)parameters.get(PdfName.Colors)).getRawValue() : 1);
     int rowSamplesCount = (parameters.containsKey(PdfName.Columns) ? ((PdfInteger)parameters.get(PdfName.Columns)).getRawValue() : 1);
 
-    InputStream input = new ByteArrayInputStream(data);
-    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] output;
     switch (predictor)
     {
       case 2: // TIFF Predictor 2 (component-based).
       {
+        output = new byte[length];
         int[] sampleComponentPredictions = new int[sampleComponentsCount];
-        int sampleComponentDelta = 0;
         int sampleComponentIndex = 0;
-        while((sampleComponentDelta = input.read()) != -1)
+        for(int index = 0; index < length; index++)
         {
-          int sampleComponent = sampleComponentDelta + sampleComponentPredictions[sampleComponentIndex];
-          output.write(sampleComponent);
+          int sampleComponent = (data[index] & 0xFF) + sampleComponentPredictions[sampleComponentIndex];
+          output[index] = (byte)sampleComponent;
 
           sampleComponentPredictions[sampleComponentIndex] = sampleComponent;
 
@@ -152,9 +284,12 @@ public final class FlateFilter
         int[] previousRowBytePredictions = new int[rowSampleBytesCount];
         int[] currentRowBytePredictions = new int[rowSampleBytesCount];
         int[] leftBytePredictions = new int[sampleBytesCount];
-        int predictionMethod;
-        while((predictionMethod = input.read()) != -1)
+        int rowLength = rowSampleBytesCount - sampleBytesCount; // Number of bytes per row, excluding its leading prediction method.
+        output = new byte[(length + rowLength) / (rowLength + 1) * rowLength];
+        int inputIndex = 0, outputIndex = 0;
+        while(inputIndex < length)
         {
+          int predictionMethod = data[inputIndex++] & 0xFF;
           System.arraycopy(currentRowBytePredictions, 0, previousRowBytePredictions, 0, currentRowBytePredictions.length);
           Arrays.fill(leftBytePredictions, 0, leftBytePredictions.length, 0);
           for(
@@ -163,7 +298,7 @@ public final class FlateFilter
             rowSampleByteIndex++
             )
           {
-            int byteDelta = input.read();
+            int byteDelta = (inputIndex < length ? data[inputIndex++] & 0xFF : -1);
 
             int sampleByteIndex = rowSampleByteIndex % sampleBytesCount;
 
@@ -207,7 +342,7 @@ public final class FlateFilter
               default:
                 throw new UnsupportedOperationException("Prediction method " + predictionMethod + " unknown.");
             }
-            output.write(sampleByte);
+            output[outputIndex++] = (byte)sampleByte;
 
             leftBytePredictions[sampleByteIndex] = currentRowBytePredictions[rowSampleByteIndex] = sampleByte & 0xFF;
           }
@@ -215,19 +350,7 @@ public final class FlateFilter
         break;
       }
     }
-    return output.toByteArray();
-  }
-
-  private void transform(
-    InputStream input,
-    OutputStream output
-    ) throws IOException
-  {
-    byte[] buffer = new byte[8192]; int bufferLength;
-    while((bufferLength = input.read(buffer, 0, buffer.length)) != -1)
-    {output.write(buffer, 0, bufferLength);}
-
-    input.close(); output.close();
+    return output;
   }
   // </private>
   // </interface>
@@ -38,6 +38,7 @@ import java.util.Date;
 import org.pdfclown.PDF;
 import org.pdfclown.Version;
 import org.pdfclown.VersionEnum;
+import org.pdfclown.documents.contents.ContentsCache;
 import org.pdfclown.documents.contents.Resources;
 import org.pdfclown.documents.contents.layers.LayerDefinition;
 import org.pdfclown.documents.interaction.forms.Form;
@@ -100,6 +101,8 @@ public final class Document
   public java.util.Hashtable<PdfReference,Object> cache = new java.util.Hashtable<PdfReference,Object>();
 
   private DocumentConfiguration configuration = new DocumentConfiguration(this);
+  private final ContentsCache contentsCache = new ContentsCache(this);
+  private final PageTreeIndex pageTreeIndex = new PageTreeIndex();
   // </fields>
 
   // <constructors>
@@ -202,6 +205,16 @@ public final class Document
     )
   {return configuration;}
 
+  /**
+    Gets the cache of the parsed content streams of this document.
+
+    @see DocumentConfiguration#getContentsCacheSize()
+    @since 0.2.0
+  */
+  public ContentsCache getContentsCache(
+    )
+  {return contentsCache;}
+
   /**
     Gets the interactive form (AcroForm).
 
@@ -473,7 +486,10 @@ public final class Document
   public void setPages(
     Pages value
     )
-  {getBaseDataObject().put(PdfName.Pages, PdfObjectWrapper.getBaseObject(value));}
+  {
+    getBaseDataObject().put(PdfName.Pages, PdfObjectWrapper.getBaseObject(value));
+    pageTreeIndex.clear();
+  }
 
   /**
     @see #getPageSize()
@@ -584,6 +600,15 @@ public final class Document
   // </Pageable>
   // </public>
 
+  // <internal>
+  /**
+    Gets the index of the page tree.
+  */
+  PageTreeIndex getPageTreeIndex(
+    )
+  {return pageTreeIndex;}
+  // </internal>
+
   // <private>
   /**
     Gets the default media box.
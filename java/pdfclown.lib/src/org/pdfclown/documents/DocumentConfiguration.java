@@ -30,6 +30,9 @@ import java.io.FileNotFoundException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.pdfclown.documents.contents.Contents;
+import org.pdfclown.documents.contents.ContentsCache;
+import org.pdfclown.documents.contents.fonts.CompositeFont;
 import org.pdfclown.documents.contents.xObjects.FormXObject;
 import org.pdfclown.documents.contents.xObjects.XObject;
 import org.pdfclown.documents.interaction.annotations.Stamp;
@@ -50,7 +53,9 @@ public final class DocumentConfiguration
   // <dynamic>
   // <fields>
   private CompatibilityModeEnum compatibilityMode = CompatibilityModeEnum.Loose;
+  private int contentsCacheSize = 0;
   private EncodingFallbackEnum encodingFallback = EncodingFallbackEnum.Substitution;
+  private boolean fontSubsettingEnabled;
   private java.io.File stampPath;
 
   private final Document document;
@@ -74,6 +79,21 @@ public final class DocumentConfiguration
     )
   {return compatibilityMode;}
 
+  /**
+    Gets the maximum number of parsed content streams kept in the {@link
+    Document#getContentsCache() contents cache}.
+    <p>Caching spares repeated parsing of content streams accessed several times, such as Form
+    XObjects shared by many pages, at the cost of keeping their {@link Contents content objects} in
+    memory. Default value is <code>0</code> (caching disabled: content streams are parsed anew on each
+    access).</p>
+
+    @since 0.2.0
+    @see ContentsCache
+  */
+  public int getContentsCacheSize(
+    )
+  {return contentsCacheSize;}
+
   /**
     Gets the document associated with this configuration.
   */
@@ -88,6 +108,20 @@ public final class DocumentConfiguration
     )
   {return encodingFallback;}
 
+  /**
+    Gets whether the fonts created from font files embed only the glyphs actually used.
+    <p>On serialization, the embedded font programs are {@link CompositeFont#subset() subset}
+    according to the characters encoded through them, considerably reducing the size of the file
+    (especially with CJK fonts). Default value is <code>false</code>.</p>
+    <p>Fonts in the default resources of the interactive form (AcroForm) are never subset, as viewers
+    use them to generate field appearances.</p>
+
+    @since 0.2.0
+  */
+  public boolean isFontSubsettingEnabled(
+    )
+  {return fontSubsettingEnabled;}
+
   /**
     Gets the stamp appearance corresponding to the specified stamp type.
     <p>The stamp appearance is retrieved from the {@link #getStampPath() standard stamps 
@@ -201,6 +235,19 @@ public final class DocumentConfiguration
     )
   {compatibilityMode = value;}
 
+  /**
+    @see #getContentsCacheSize()
+  */
+  public void setContentsCacheSize(
+    int value
+    )
+  {
+    if(value < 0)
+      throw new IllegalArgumentException("Invalid contents cache size: " + value);
+
+    contentsCacheSize = value;
+  }
+
   /**
     @see #getEncodingFallback()
   */
@@ -209,6 +256,20 @@ public final class DocumentConfiguration
     )
   {encodingFallback = value;}
 
+  /**
+    <p>NOTE: Only the glyphs whose characters went through {@link CompositeFont#encode(String) font
+    encoding} are tracked: glyphs shown through raw character codes (for example, content composed
+    with pre-encoded strings or copied from another document) are dropped from the subset. Enable
+    subsetting only if all the text shown through fonts created from font files is encoded by them.
+    </p>
+
+    @see #isFontSubsettingEnabled()
+  */
+  public void setFontSubsettingEnabled(
+    boolean value
+    )
+  {fontSubsettingEnabled = value;}
+
   /**
     @see #getStampPath()
   */
@@ -233,6 +294,28 @@ public final class DocumentConfiguration
     return this;
   }
 
+  /**
+    @see #setContentsCacheSize(int)
+  */
+  public DocumentConfiguration withContentsCacheSize(
+    int value
+    )
+  {
+    setContentsCacheSize(value);
+    return this;
+  }
+
+  /**
+    @see #setFontSubsettingEnabled(boolean)
+  */
+  public DocumentConfiguration withFontSubsettingEnabled(
+    boolean value
+    )
+  {
+    setFontSubsettingEnabled(value);
+    return this;
+  }
+
   /**
     @see #setStampPath(java.io.File)
   */
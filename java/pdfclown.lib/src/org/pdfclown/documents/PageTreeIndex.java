@@ -0,0 +1,267 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfIndirectObject;
+import org.pdfclown.objects.PdfInteger;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfReference;
+
+/**
+  Page tree index [PDF:1.6:3.6.2].
+  <p>Each visited page tree node is indexed with the cumulative page counts of its kids, so that
+  both {@link Pages#get(int) page lookup} and {@link Page#getIndex() page position} take logarithmic
+  time instead of scanning the kids arrays. Node entries are lazily built and validated against the
+  state of their node (kids array, kid count and page count) on each access; furthermore, the whole
+  index is invalidated on any change to the page tree made through {@link Pages}.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+final class PageTreeIndex
+{
+  // <class>
+  // <classes>
+  /**
+    Page tree node entry.
+  */
+  private static final class Node
+  {
+    // <class>
+    // <dynamic>
+    // <fields>
+    private final int count;
+    private final int kidCount;
+    /**
+      Page offset of each kid within the node (the last entry is the total page count of the kids).
+    */
+    private final int[] kidOffsets;
+    /**
+      Whether each kid is a page (leaf node).
+    */
+    private final boolean[] kidPages;
+    /**
+      Position of each kid within the kids array (lazily built).
+    */
+    private Map<PdfIndirectObject,Integer> kidPositions;
+    private final PdfArray kids;
+    // </fields>
+
+    // <constructors>
+    public Node(
+      PdfArray kids,
+      int count
+      )
+    {
+      this.kids = kids;
+      this.count = count;
+
+      kidCount = kids.size();
+      kidOffsets = new int[kidCount + 1];
+      kidPages = new boolean[kidCount];
+      for(int index = 0; index < kidCount; index++)
+      {
+        PdfDictionary kid = (PdfDictionary)kids.resolve(index);
+        int kidPageCount;
+        if(kid.get(PdfName.Type).equals(PdfName.Page)) // Page object.
+        {
+          kidPages[index] = true;
+          kidPageCount = 1;
+        }
+        else // Page tree node.
+        {kidPageCount = ((PdfInteger)kid.get(PdfName.Count)).getRawValue();}
+        kidOffsets[index + 1] = kidOffsets[index] + kidPageCount;
+      }
+    }
+    // </constructors>
+
+    // <interface>
+    // <public>
+    /**
+      Gets the position of the specified page offset among the kids.
+
+      @return Position of the kid containing the page at the specified offset.
+    */
+    public int getKidIndex(
+      int pageOffset
+      )
+    {
+      /*
+        NOTE: The last kid starting at (or before) the offset is the one containing it, as any empty
+        subtree starting at the same offset precedes it.
+      */
+      int low = 0, high = kidCount - 1;
+      while(low < high)
+      {
+        int middle = (low + high + 1) >>> 1;
+        if(kidOffsets[middle] <= pageOffset)
+        {low = middle;}
+        else
+        {high = middle - 1;}
+      }
+      return low;
+    }
+
+    /**
+      Gets the position of the specified kid within the kids array.
+
+      @return -1, if the kid doesn't belong to this node.
+    */
+    public int getKidPosition(
+      PdfIndirectObject kid
+      )
+    {
+      if(kidPositions == null)
+      {
+        kidPositions = new IdentityHashMap<PdfIndirectObject,Integer>(kidCount);
+        for(int index = 0; index < kidCount; index++)
+        {kidPositions.put(((PdfReference)kids.get(index)).getIndirectObject(), index);}
+      }
+      Integer position = kidPositions.get(kid);
+      return position != null ? position : -1;
+    }
+
+    /**
+      Gets whether this entry reflects the current state of the specified node.
+    */
+    public boolean isValid(
+      PdfArray kids,
+      int count
+      )
+    {return this.kids == kids && kidCount == kids.size() && this.count == count;}
+    // </public>
+    // </interface>
+    // </dynamic>
+    // </class>
+  }
+  // </classes>
+
+  // <dynamic>
+  // <fields>
+  private final Map<PdfIndirectObject,Node> nodes = new IdentityHashMap<PdfIndirectObject,Node>();
+  // </fields>
+
+  // <interface>
+  // <public>
+  /**
+    Invalidates the index.
+  */
+  public synchronized void clear(
+    )
+  {nodes.clear();}
+
+  /**
+    Gets the page at the specified position.
+
+    @param root Page tree root node.
+    @param index Page position.
+    @return {@code null}, if the position is out of range.
+  */
+  public synchronized PdfReference get(
+    PdfDirectObject root,
+    int index
+    )
+  {
+    PdfReference nodeReference = (PdfReference)root;
+    while(true)
+    {
+      Node node = getNode(nodeReference);
+      if(index < 0 || index >= node.kidOffsets[node.kidCount])
+        return null;
+
+      int kidIndex = node.getKidIndex(index);
+      PdfReference kidReference = (PdfReference)node.kids.get(kidIndex);
+      if(node.kidPages[kidIndex]) // Page object.
+        return kidReference;
+
+      // Go down one level!
+      index -= node.kidOffsets[kidIndex];
+      nodeReference = kidReference;
+    }
+  }
+
+  /**
+    Gets the position of the specified page.
+
+    @param page Page object.
+  */
+  public synchronized int getIndex(
+    PdfReference page
+    )
+  {
+    int index = 0;
+    PdfReference kidReference = page;
+    PdfDictionary kid = (PdfDictionary)page.getDataObject();
+    PdfReference parentReference;
+    // Cumulate the page offsets up to the page tree root node!
+    while((parentReference = (PdfReference)kid.get(PdfName.Parent)) != null)
+    {
+      Node parent = getNode(parentReference);
+      int kidPosition = parent.getKidPosition(kidReference.getIndirectObject());
+      if(kidPosition == -1)
+        throw new RuntimeException("Page tree node " + kidReference + " missing from its parent " + parentReference);
+
+      index += parent.kidOffsets[kidPosition];
+
+      // Move up one level!
+      kidReference = parentReference;
+      kid = (PdfDictionary)parentReference.getDataObject();
+    }
+    return index;
+  }
+  // </public>
+
+  // <private>
+  /**
+    Gets the (valid) entry of the specified node.
+  */
+  private Node getNode(
+    PdfReference nodeReference
+    )
+  {
+    PdfDictionary nodeData = (PdfDictionary)nodeReference.getDataObject();
+    PdfArray kids = (PdfArray)nodeData.resolve(PdfName.Kids);
+    PdfInteger countObject = (PdfInteger)nodeData.get(PdfName.Count);
+    int count = (countObject != null ? countObject.getRawValue() : -1);
+
+    PdfIndirectObject nodeObject = nodeReference.getIndirectObject();
+    Node node = nodes.get(nodeObject);
+    if(node == null || !node.isValid(kids, count))
+    {nodes.put(nodeObject, node = new Node(kids, count));}
+    return node;
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -28,6 +28,7 @@ package org.pdfclown.documents;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -36,6 +37,7 @@ import java.util.Stack;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
+import org.pdfclown.files.File;
 import org.pdfclown.objects.PdfArray;
 import org.pdfclown.objects.PdfDictionary;
 import org.pdfclown.objects.PdfDirectObject;
@@ -58,11 +60,180 @@ public final class Pages
   implements List<Page>
 {
   /*
-    TODO:IMPL A B-tree algorithm should be implemented to optimize the inner layout
-    of the page tree (better insertion/deletion performance). In this case, it would
-    be necessary to keep track of the modified tree nodes for incremental update.
+    NOTE: Insertions keep the page tree balanced as a B-tree whose nodes have at most MaxKidCount
+    kids (see balance(PdfDirectObject)).
+    TODO:IMPL Deletions should merge underpopulated nodes too.
   */
   // <class>
+  // <static>
+  // <fields>
+  /**
+    Maximum number of kids of a page tree node created or split by page insertions.
+    <p><span style="color:red">For internal use only.</span></p>
+  */
+  public static final int MaxKidCount = 32;
+  // </fields>
+
+  // <interface>
+  // <public>
+  /**
+    Splits the specified page tree node in case it exceeds the {@link #MaxKidCount maximum kid
+    count}, propagating the split upward.
+    <p>Exceeding kids are evenly distributed over new sibling nodes, which inherit the attributes of
+    the split node; in case of the root node, they are pushed down into new child nodes instead, as
+    the root node is referenced by the document catalog (this is the only case the tree gets deeper,
+    uniformly).</p>
+    <p><span style="color:red">For internal use only.</span></p>
+
+    @param node Page tree node.
+  */
+  public static void balance(
+    PdfDirectObject node
+    )
+  {
+    while(true)
+    {
+      PdfDictionary nodeData = (PdfDictionary)node.resolve();
+      PdfArray kidsData = (PdfArray)nodeData.resolve(PdfName.Kids);
+      int kidCount = kidsData.size();
+      if(kidCount <= MaxKidCount)
+        break;
+
+      int chunkCount = (kidCount + MaxKidCount - 1) / MaxKidCount;
+      PdfDirectObject parent = nodeData.get(PdfName.Parent);
+      // Detach the exceeding kids (the first chunk is kept, unless the node is the root)!
+      int keptKidCount = (parent != null ? kidCount / chunkCount : 0);
+      PdfDirectObject[] kids = new PdfDirectObject[kidCount];
+      for(int kidIndex = kidCount - 1; kidIndex >= keptKidCount; kidIndex--)
+      {kids[kidIndex] = kidsData.remove(kidIndex);}
+
+      // Distribute the detached kids into new nodes!
+      PdfArray newNodesData;
+      int newNodeIndex;
+      PdfDictionary attributesSource;
+      if(parent != null) // Intermediate node.
+      {
+        nodeData.put(PdfName.Count, PdfInteger.get(getPageCount(kidsData)));
+
+        // New sibling nodes.
+        newNodesData = (PdfArray)((PdfDictionary)parent.resolve()).resolve(PdfName.Kids);
+        newNodeIndex = newNodesData.indexOf(node) + 1;
+        /*
+          NOTE: As the detached kids are moved away from the split node, the inheritable attributes
+          they got from it have to be copied into their new nodes.
+        */
+        attributesSource = nodeData;
+      }
+      else // Root node.
+      {
+        // New child nodes.
+        parent = node;
+        newNodesData = kidsData;
+        newNodeIndex = 0;
+        attributesSource = null;
+      }
+      for(int chunkIndex = (keptKidCount > 0 ? 1 : 0); chunkIndex < chunkCount; chunkIndex++)
+      {
+        newNodesData.add(
+          newNodeIndex++,
+          createNode(
+            parent,
+            kids,
+            kidCount * chunkIndex / chunkCount,
+            kidCount * (chunkIndex + 1) / chunkCount,
+            attributesSource
+            )
+          );
+      }
+
+      // Iterate upward (the root node is checked again, as its new child nodes may exceed)!
+      node = parent;
+    }
+  }
+
+  /**
+    Creates a page tree node.
+    <p><span style="color:red">For internal use only.</span></p>
+
+    @param parent Parent node.
+    @param kids Kids source.
+    @param startIndex Position of the first kid of the node within the source.
+    @param endIndex Position after the last kid of the node within the source.
+    @param attributesSource Node whose inheritable attributes (see {@link
+      Page#InheritableAttributeKeys}) have to be copied into the new node; <code>null</code>, if
+      none.
+    @return Reference to the new node.
+  */
+  public static PdfReference createNode(
+    PdfDirectObject parent,
+    PdfDirectObject[] kids,
+    int startIndex,
+    int endIndex,
+    PdfDictionary attributesSource
+    )
+  {
+    File file = parent.getFile();
+    PdfArray kidsData = new PdfArray(endIndex - startIndex);
+    PdfReference node = file.register(
+      new PdfDictionary(
+        new PdfName[]
+        {
+          PdfName.Type,
+          PdfName.Parent,
+          PdfName.Kids
+        },
+        new PdfDirectObject[]
+        {
+          PdfName.Pages,
+          parent,
+          kidsData
+        }
+        )
+      );
+    PdfDictionary nodeData = (PdfDictionary)node.getDataObject();
+    if(attributesSource != null)
+    {
+      for(PdfName key : Page.InheritableAttributeKeys)
+      {
+        PdfDirectObject value = attributesSource.get(key);
+        if(value != null)
+        {nodeData.put(key, (PdfDirectObject)value.clone(file));}
+      }
+    }
+    for(int index = startIndex; index < endIndex; index++)
+    {
+      PdfDirectObject kid = kids[index];
+      kidsData.add(kid);
+      // Bind the kid to the node!
+      ((PdfDictionary)kid.resolve()).put(PdfName.Parent, node);
+    }
+    nodeData.put(PdfName.Count, PdfInteger.get(getPageCount(kidsData)));
+    return node;
+  }
+  // </public>
+
+  // <private>
+  /**
+    Gets the number of pages contained by the specified kids.
+  */
+  private static int getPageCount(
+    PdfArray kidsData
+    )
+  {
+    int count = 0;
+    for(int index = 0, length = kidsData.size(); index < length; index++)
+    {
+      PdfDictionary kid = (PdfDictionary)kidsData.resolve(index);
+      count += (kid.get(PdfName.Type).equals(PdfName.Page)
+        ? 1
+        : ((PdfInteger)kid.get(PdfName.Count)).getRawValue());
+    }
+    return count;
+  }
+  // </private>
+  // </interface>
+  // </static>
+
   // <dynamic>
   // <constructors>
   Pages(
@@ -125,53 +296,11 @@ public final class Pages
     /*
       NOTE: As stated in [PDF:1.6:3.6.2], to retrieve pages is a matter of diving
       inside a B-tree. To keep it as efficient as possible, this implementation
-      does NOT adopt recursion to deepen its search, opting for an iterative strategy
-      instead.
+      binary-searches the cumulative page counts of the kids at each level (see
+      PageTreeIndex).
     */
-    int pageOffset = 0;
-    PdfDictionary parent = getBaseDataObject();
-    PdfArray kids = (PdfArray)parent.resolve(PdfName.Kids);
-    for(
-      int i = 0;
-      i < kids.size();
-      i++
-      )
-    {
-      PdfReference kidReference = (PdfReference)kids.get(i);
-      PdfDictionary kid = (PdfDictionary)kidReference.getDataObject();
-      // Is current kid a page object?
-      if(kid.get(PdfName.Type).equals(PdfName.Page)) // Page object.
-      {
-        // Did we reach the searched position?
-        if(pageOffset == index) // Vertical scan (we finished).
-        {
-          // We got it!
-          return Page.wrap(kidReference);
-        }
-        else // Horizontal scan (go past).
-        {
-          // Cumulate current page object count!
-          pageOffset++;
-        }
-      }
-      else // Page tree node.
-      {
-        // Does the current subtree contain the searched page?
-        if(((PdfInteger)kid.get(PdfName.Count)).getRawValue() + pageOffset > index) // Vertical scan (deepen the search).
-        {
-          // Go down one level!
-          parent = kid;
-          kids = (PdfArray)parent.resolve(PdfName.Kids);
-          i = -1;
-        }
-        else // Horizontal scan (go past).
-        {
-          // Cumulate current subtree count!
-          pageOffset += ((PdfInteger)kid.get(PdfName.Count)).getRawValue();
-        }
-      }
-    }
-    return null;
+    PdfReference pageReference = getDocument().getPageTreeIndex().get(getBaseObject(), index);
+    return pageReference != null ? Page.wrap(pageReference) : null;
   }
 
   @Override
@@ -306,6 +435,7 @@ public final class Pages
 
     // Unbind the page from its parent!
     pageData.put(PdfName.Parent,null);
+    getDocument().getPageTreeIndex().clear();
 
     // Decrementing the pages counters...
     do
@@ -486,19 +616,33 @@ public final class Pages
   {
     PdfDirectObject parent;
     PdfDictionary parentData;
-    PdfDirectObject kids;
     PdfArray kidsData;
     int offset;
     // Append operation?
     if(index == -1) // Append operation.
     {
       // Get the parent tree node!
+      /*
+        NOTE: Pages are appended to the last node along the right edge of the page tree, so that
+        the tree grows evenly. As appended pages have to inherit the attributes of the root node
+        only, the descent stops at the first node defining any inheritable attribute.
+      */
       parent = getBaseObject();
       parentData = getBaseDataObject();
-      // Get the parent's page collection!
-      kids = parentData.get(PdfName.Kids);
-      kidsData = (PdfArray)PdfObject.resolve(kids);
-      offset = 0; // Not used.
+      kidsData = (PdfArray)parentData.resolve(PdfName.Kids);
+      while(!kidsData.isEmpty())
+      {
+        PdfDirectObject lastKid = kidsData.get(kidsData.size() - 1);
+        PdfDictionary lastKidData = (PdfDictionary)lastKid.resolve();
+        if(lastKidData.get(PdfName.Type).equals(PdfName.Page)
+          || !Collections.disjoint(lastKidData.keySet(), Page.InheritableAttributeKeys))
+          break;
+
+        parent = lastKid;
+        parentData = lastKidData;
+        kidsData = (PdfArray)parentData.resolve(PdfName.Kids);
+      }
+      offset = kidsData.size();
     }
     else // Insert operation.
     {
@@ -508,29 +652,20 @@ public final class Pages
       parent = pivotPage.getBaseDataObject().get(PdfName.Parent);
       parentData = (PdfDictionary)parent.resolve();
       // Get the parent's page collection!
-      kids = parentData.get(PdfName.Kids);
-      kidsData = (PdfArray)kids.resolve();
+      kidsData = (PdfArray)parentData.resolve(PdfName.Kids);
       // Get the insertion's relative position within the parent's page collection!
       offset = kidsData.indexOf(pivotPage.getBaseObject());
     }
+    PdfDirectObject node = parent;
 
     // Adding the pages...
     for(Page page : pages)
     {
-      // Append?
-      if(index == -1) // Append.
-      {
-        // Append the page to the collection!
-        kidsData.add(page.getBaseObject());
-      }
-      else // Insert.
-      {
-        // Insert the page into the collection!
-        kidsData.add(
-          offset++,
-          page.getBaseObject()
-          );
-      }
+      // Insert the page into the collection!
+      kidsData.add(
+        offset++,
+        page.getBaseObject()
+        );
       // Bind the page to the collection!
       page.getBaseDataObject().put(PdfName.Parent,parent);
     }
@@ -548,8 +683,12 @@ public final class Pages
       parentData = (PdfDictionary)PdfObject.resolve(parent);
     } while(parent != null);
 
+    balance(node);
+    getDocument().getPageTreeIndex().clear();
+
     return true;
   }
+
   // </private>
   // </interface>
   // </dynamic>
@@ -857,27 +857,25 @@ public final class ContentScanner
           state.getScale() * state.getTm().getScaleX(),
           state.getTm().getScaleY()
           );
-        getBaseDataObject().scan(
-          state,
-          new ShowText.IScanner()
-          {
-            @Override
-            public void scanChar(
-              char textChar,
-              Rectangle2D textCharBox
+        // NOTE: The glyph run buffer is shared by the whole scanner hierarchy.
+        ContentScanner rootLevel = scanner.getRootLevel();
+        ShowText.GlyphRun glyphRun = rootLevel.glyphRun = getBaseDataObject().scanGlyphs(state, rootLevel.glyphRun);
+        for(int index = 0, length = glyphRun.getLength(); index < length; index++)
+        {
+          textChars.add(
+            new TextChar(
+              glyphRun.getValue(index),
+              new Rectangle2D.Double(
+                glyphRun.getX(index),
+                glyphRun.getY(index),
+                glyphRun.getWidth(index),
+                glyphRun.getHeight(index)
+                ),
+              style,
+              false
               )
-            {
-              textChars.add(
-                new TextChar(
-                  textChar,
-                  textCharBox,
-                  style,
-                  false
-                  )
-                );
-            }
-          }
-          );
+            );
+        }
       }
     }
 
@@ -980,6 +978,10 @@ public final class ContentScanner
     Child level.
   */
   private ContentScanner childLevel;
+  /**
+    Content context.
+  */
+  private final IContentContext contentContext;
   /**
     Content objects collection.
   */
@@ -1021,6 +1023,11 @@ public final class ContentScanner
   */
   private Dimension2D contextSize;
 
+  /**
+    Glyph buffer reused across text string scans (root level only).
+  */
+  private ShowText.GlyphRun glyphRun;
+
   /**
     Scan listeners.
   */
@@ -1039,6 +1046,7 @@ public final class ContentScanner
   {
     this.parentLevel = null;
     this.objects = this.contents = contents;
+    this.contentContext = contents.getContentContext();
 
     canvasSize = contextSize = Dimension.get(contents.getContentContext().getBox());
     
@@ -1068,23 +1076,41 @@ public final class ContentScanner
   {
     this.parentLevel = parentLevel;
     this.objects = this.contents = formXObject.getContents();
+    this.contentContext = formXObject;
     
     canvasSize = contextSize = parentLevel.contextSize;
 
-    addListener(new IListener()
-      {
-        @Override
-        public void onStart(
-          ContentScanner scanner
-          )
-        {
-          // Adjust the initial graphics state to the external form context!
-          scanner.getState().getCtm().concatenate(formXObject.getMatrix());
-          /*
-            TODO: On rendering, clip according to the form dictionary's BBox entry!
-          */
-        }
-      });
+    addFormListener(formXObject);
+    moveStart();
+  }
+
+  /**
+    Instantiates a detached content scanner.
+    <p>A detached scanner has no content objects: it just hosts the graphics state of a streaming
+    scan (see {@link ContentStreamScanner}), whose operations are applied to it as they are parsed.
+    </p>
+
+    @param contentContext Content context whose content stream is scanned.
+    @param parentLevel Parent scan level (<code>null</code>, if top-level).
+  */
+  ContentScanner(
+    IContentContext contentContext,
+    ContentScanner parentLevel
+    )
+  {
+    this.parentLevel = parentLevel;
+    this.objects = Collections.emptyList();
+    this.contentContext = contentContext;
+
+    if(parentLevel == null)
+    {canvasSize = contextSize = Dimension.get(contentContext.getBox());}
+    else
+    {
+      canvasSize = contextSize = parentLevel.contextSize;
+
+      if(contentContext instanceof FormXObject)
+      {addFormListener((FormXObject)contentContext);}
+    }
     moveStart();
   }
 
@@ -1099,6 +1125,7 @@ public final class ContentScanner
   {
     this.parentLevel = parentLevel;
     this.contents = parentLevel.contents;
+    this.contentContext = parentLevel.contentContext;
     this.objects = ((CompositeObject)parentLevel.getCurrent()).getObjects();
 
     canvasSize = contextSize = parentLevel.contextSize;
@@ -1143,10 +1170,12 @@ public final class ContentScanner
   */
   public IContentContext getContentContext(
     )
-  {return contents.getContentContext();}
+  {return contentContext;}
 
   /**
     Gets the content objects collection this scanner is inspecting.
+
+    @return <code>null</code> in case of detached scanner (see {@link ContentStreamScanner}).
   */
   public Contents getContents(
     )
@@ -1509,6 +1538,29 @@ public final class ContentScanner
   // </protected>
 
   // <private>
+  /**
+    Adjusts the initial graphics state to the specified external form context.
+  */
+  private void addFormListener(
+    final FormXObject formXObject
+    )
+  {
+    addListener(new IListener()
+      {
+        @Override
+        public void onStart(
+          ContentScanner scanner
+          )
+        {
+          // Adjust the initial graphics state to the external form context!
+          scanner.getState().getCtm().concatenate(formXObject.getMatrix());
+          /*
+            TODO: On rendering, clip according to the form dictionary's BBox entry!
+          */
+        }
+      });
+  }
+
   /**
     Synchronizes the scanner state.
   */
@@ -0,0 +1,203 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents;
+
+import java.awt.geom.AffineTransform;
+import java.util.Stack;
+
+import org.pdfclown.documents.Page;
+import org.pdfclown.documents.contents.ContentScanner.GraphicsState;
+import org.pdfclown.documents.contents.objects.BeginInlineImage;
+import org.pdfclown.documents.contents.objects.BeginText;
+import org.pdfclown.documents.contents.objects.ContentObject;
+import org.pdfclown.documents.contents.objects.InlineImage;
+import org.pdfclown.documents.contents.objects.Operation;
+import org.pdfclown.documents.contents.objects.PaintXObject;
+import org.pdfclown.documents.contents.objects.RestoreGraphicsState;
+import org.pdfclown.documents.contents.objects.SaveGraphicsState;
+import org.pdfclown.documents.contents.tokens.ContentParser;
+import org.pdfclown.documents.contents.xObjects.FormXObject;
+import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfObject;
+
+/**
+  Content stream scanner.
+  <p>Unlike {@link ContentScanner}, which navigates the object tree of a {@link Contents content
+  objects collection}, this scanner parses the content stream on the fly, notifying each operation
+  to a {@link IHandler handler} along with the graphics state it's applied to. As no object tree is
+  built, its memory footprint doesn't depend on the size of the content stream: this makes it
+  suitable for read-only processing (text extraction, content detection, statistics, etc.) of huge
+  content streams, such as technical drawings made of millions of path operations.</p>
+  <p>Graphics state is tracked the same way as dry scanning does; its {@link
+  GraphicsState#getScanner() scanner} is a detached level which exposes the content context, but no
+  content objects.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public final class ContentStreamScanner
+{
+  // <class>
+  // <interfaces>
+  /**
+    Content stream handler.
+  */
+  public interface IHandler
+  {
+    /**
+      Notifies a content object.
+
+      @param object Content object, either an {@link Operation operation} or an {@link InlineImage
+        inline image}.
+      @param state Graphics state applied to the content object (that is, before the content object
+        itself is scanned). As it's reused across the scan, it has to be cloned to be retained.
+      @return Whether the scan has to continue.
+    */
+    boolean onObject(
+      ContentObject object,
+      GraphicsState state
+      );
+  }
+  // </interfaces>
+
+  // <dynamic>
+  // <fields>
+  private final IContentContext contentContext;
+  private final ContentScanner parentLevel;
+  // </fields>
+
+  // <constructors>
+  /**
+    Instantiates a top-level content stream scanner.
+
+    @param contentContext Content context whose content stream has to be scanned.
+  */
+  public ContentStreamScanner(
+    IContentContext contentContext
+    )
+  {this(contentContext, null);}
+
+  /**
+    Instantiates a child-level content stream scanner for {@link FormXObject external form}.
+    <p>Typically, it's used by {@link IHandler handlers} to scan the external forms painted by the
+    content stream (see {@link PaintXObject}).</p>
+
+    @param formXObject External form.
+    @param state Graphics state the external form is painted with.
+  */
+  public ContentStreamScanner(
+    FormXObject formXObject,
+    GraphicsState state
+    )
+  {this(formXObject, state.getScanner());}
+
+  private ContentStreamScanner(
+    IContentContext contentContext,
+    ContentScanner parentLevel
+    )
+  {
+    this.contentContext = contentContext;
+    this.parentLevel = parentLevel;
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets the content context whose content stream is scanned.
+  */
+  public IContentContext getContentContext(
+    )
+  {return contentContext;}
+
+  /**
+    Scans the content stream, notifying its content objects to the specified handler.
+
+    @param handler Content stream handler.
+    @return Whether the scan has been completed (that is, it hasn't been stopped by the handler).
+  */
+  public boolean scan(
+    IHandler handler
+    )
+  {
+    PdfDataObject contentsObject = getContentsObject();
+    if(contentsObject == null)
+      return true;
+
+    GraphicsState state = new ContentScanner(contentContext, parentLevel).getState();
+    Stack<GraphicsState> savedStates = new Stack<GraphicsState>();
+    @SuppressWarnings("resource")
+    ContentParser parser = new ContentParser(Contents.getStream(contentsObject));
+    while(parser.moveNext())
+    {
+      ContentObject object = parser.parseOperation();
+      if(object instanceof BeginInlineImage)
+      {object = parser.parseInlineImage();}
+
+      if(!handler.onObject(object, state))
+        return false;
+
+      if(object instanceof SaveGraphicsState)
+      {savedStates.push(state.clone());}
+      else if(object instanceof RestoreGraphicsState)
+      {
+        // NOTE: Unbalanced restore operations are ignored.
+        if(!savedStates.isEmpty())
+        {savedStates.pop().copyTo(state);}
+      }
+      else if(object instanceof BeginText)
+      {
+        state.setTlm(new AffineTransform());
+        state.setTm(new AffineTransform());
+      }
+      else
+      {object.scan(state);}
+    }
+    return true;
+  }
+  // </public>
+
+  // <private>
+  /**
+    Gets the content stream object, without loading its content objects.
+  */
+  private PdfDataObject getContentsObject(
+    )
+  {
+    if(contentContext instanceof Page)
+      return PdfObject.resolve(((Page)contentContext).getBaseDataObject().get(PdfName.Contents));
+    else if(contentContext instanceof FormXObject)
+      return ((FormXObject)contentContext).getBaseDataObject();
+    else
+      return contentContext.getContents().getBaseDataObject();
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
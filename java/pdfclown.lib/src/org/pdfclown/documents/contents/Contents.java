@@ -344,12 +344,44 @@ public final class Contents
   // <static>
   // <interface>
   // <public>
+  /**
+    Wraps the specified content stream.
+    <p>Content streams referenced indirectly are served through the {@link
+    Document#getContentsCache() document's contents cache}, if enabled.</p>
+
+    @param baseObject Content stream (either a single stream or an array of streams).
+    @param contentContext Content context the contents belong to.
+  */
   public static Contents wrap(
     PdfDirectObject baseObject,
     IContentContext contentContext
     )
-  {return baseObject != null ? new Contents(baseObject, contentContext) : null;}
+  {
+    if(baseObject == null)
+      return null;
+    else if(!(baseObject instanceof PdfReference))
+      return new Contents(baseObject, contentContext);
+
+    PdfReference reference = (PdfReference)baseObject;
+    ContentsCache cache = reference.getFile().getDocument().getContentsCache();
+    Contents contents = cache.get(reference, contentContext);
+    if(contents == null)
+    {cache.put(reference, contents = new Contents(baseObject, contentContext));}
+    return contents;
+  }
   // </public>
+
+  // <internal>
+  /**
+    Gets the raw data of the specified content stream, without parsing it.
+
+    @param baseDataObject Content stream (either a single stream or an array of streams).
+  */
+  static IInputStream getStream(
+    PdfDataObject baseDataObject
+    )
+  {return new ContentStream(baseDataObject);}
+  // </internal>
   // </interface>
   // </static>
 
@@ -593,9 +625,17 @@ public final class Contents
   private void load(
     )
   {
-    @SuppressWarnings("resource")
-    ContentParser parser = new ContentParser(new ContentStream(getBaseDataObject()));
-    items = parser.parseContentObjects();
+    /*
+      NOTE: Content streams are parsed through the pointer of their shared body, so concurrent
+      readers of the same content stream (e.g. a form shared by multiple pages) are serialized.
+    */
+    PdfDataObject baseDataObject = getBaseDataObject();
+    synchronized(baseDataObject)
+    {
+      @SuppressWarnings("resource")
+      ContentParser parser = new ContentParser(getStream(baseDataObject));
+      items = parser.parseContentObjects();
+    }
   }
   // </private>
   // </interface>
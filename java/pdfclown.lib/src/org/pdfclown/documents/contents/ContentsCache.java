@@ -0,0 +1,266 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pdfclown.documents.Document;
+import org.pdfclown.documents.DocumentConfiguration;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfObjectWrapper;
+import org.pdfclown.objects.PdfReference;
+
+/**
+  Parsed content cache.
+  <p>Keeps the most recently {@link Contents#wrap(PdfDirectObject, IContentContext) wrapped}
+  content streams of a document, so that repeated accesses to the same content stream (typically,
+  Form XObjects painted on many pages, or pages scanned several times) don't parse it again. Only
+  content streams referenced indirectly are cached, keyed by their reference.</p>
+  <p>A cached entry is served as long as its content stream (and, in case of a content stream array,
+  the array itself) hasn't been {@link PdfDataObject#isUpdated() updated} since it was parsed: as
+  soon as its body is modified, the entry is discarded and the content stream parsed anew. Since
+  the same {@link Contents} instance is shared among its requesters, its content objects should be
+  modified only through {@link Contents#flush() flushing}.</p>
+  <p>The cache is disabled by default (see {@link DocumentConfiguration#getContentsCacheSize()}).</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public final class ContentsCache
+{
+  // <dynamic>
+  // <fields>
+  private final Document document;
+
+  private long evictionCount;
+  private long hitCount;
+  private long missCount;
+
+  private final LinkedHashMap<PdfReference,Contents> entries = new LinkedHashMap<PdfReference,Contents>(16, .75f, true)
+  {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(
+      Map.Entry<PdfReference,Contents> eldest
+      )
+    {
+      if(size() <= document.getConfiguration().getContentsCacheSize())
+        return false;
+
+      evictionCount++;
+      return true;
+    }
+  };
+  // </fields>
+
+  // <constructors>
+  /**
+    <span style="color:red">For internal use only.</span>
+  */
+  public ContentsCache(
+    Document document
+    )
+  {this.document = document;}
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Removes all the entries.
+  */
+  public synchronized void clear(
+    )
+  {entries.clear();}
+
+  /**
+    Gets the document associated with this cache.
+  */
+  public Document getDocument(
+    )
+  {return document;}
+
+  /**
+    Gets the number of entries evicted to respect the cache size.
+  */
+  public synchronized long getEvictionCount(
+    )
+  {return evictionCount;}
+
+  /**
+    Gets the number of content streams served by the cache.
+  */
+  public synchronized long getHitCount(
+    )
+  {return hitCount;}
+
+  /**
+    Gets the ratio of the content stream requests served by the cache (<code>0</code> if no request
+    has been made yet).
+  */
+  public synchronized double getHitRate(
+    )
+  {
+    long requestCount = hitCount + missCount;
+    return requestCount > 0 ? (double)hitCount / requestCount : 0;
+  }
+
+  /**
+    Gets the number of content streams which had to be parsed.
+  */
+  public synchronized long getMissCount(
+    )
+  {return missCount;}
+
+  /**
+    Gets the number of entries.
+  */
+  public synchronized int size(
+    )
+  {return entries.size();}
+  // </public>
+
+  // <internal>
+  /**
+    Gets the cached contents corresponding to the specified content stream.
+
+    @param reference Content stream reference.
+    @param contentContext Content context the contents are requested for.
+    @return <code>null</code>, if no valid entry is available.
+  */
+  synchronized Contents get(
+    PdfReference reference,
+    IContentContext contentContext
+    )
+  {
+    int cacheSize = document.getConfiguration().getContentsCacheSize();
+    if(cacheSize == 0)
+    {
+      if(!entries.isEmpty())
+      {clear();}
+      return null;
+    }
+
+    Contents contents = entries.get(reference);
+    if(contents != null)
+    {
+      if(isPristine(reference)
+        && isSameContext(contents.getContentContext(), contentContext))
+      {
+        hitCount++;
+        return contents;
+      }
+
+      entries.remove(reference);
+    }
+    missCount++;
+    return null;
+  }
+
+  /**
+    Caches the specified contents.
+
+    @param reference Content stream reference.
+    @param contents Contents just parsed from the content stream.
+  */
+  synchronized void put(
+    PdfReference reference,
+    Contents contents
+    )
+  {
+    int cacheSize = document.getConfiguration().getContentsCacheSize();
+    if(cacheSize == 0
+      || !isPristine(reference))
+      return;
+
+    entries.put(reference, contents);
+    // Respect a cache size lowered in the meantime!
+    Iterator<PdfReference> entriesIterator = entries.keySet().iterator();
+    while(entries.size() > cacheSize)
+    {
+      entriesIterator.next();
+      entriesIterator.remove();
+      evictionCount++;
+    }
+  }
+  // </internal>
+
+  // <private>
+  /**
+    Gets whether the specified data object hasn't been modified since it was loaded.
+  */
+  private static boolean isPristine(
+    PdfDataObject dataObject
+    )
+  {return dataObject == null || (dataObject.isUpdateable() && !dataObject.isUpdated());}
+
+  /**
+    Gets whether the content stream (either a single stream or an array of streams) referenced by
+    the specified object hasn't been modified since it was loaded.
+  */
+  private static boolean isPristine(
+    PdfReference reference
+    )
+  {
+    PdfDataObject dataObject = reference.getDataObject();
+    if(!isPristine(dataObject))
+      return false;
+
+    if(dataObject instanceof PdfArray)
+    {
+      for(PdfDirectObject streamObject : (PdfArray)dataObject)
+      {
+        if(streamObject instanceof PdfReference
+          && !isPristine(((PdfReference)streamObject).getDataObject()))
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isSameContext(
+    IContentContext cachedContext,
+    IContentContext context
+    )
+  {
+    if(cachedContext == context)
+      return true;
+    else if(!(cachedContext instanceof PdfObjectWrapper<?>)
+      || !(context instanceof PdfObjectWrapper<?>))
+      return false;
+
+    // NOTE: Content contexts are usually wrapped anew on each access.
+    return ((PdfObjectWrapper<?>)cachedContext).getBaseObject().equals(((PdfObjectWrapper<?>)context).getBaseObject());
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+}
@@ -28,7 +28,11 @@ package org.pdfclown.documents.contents.fonts;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.pdfclown.bytes.Buffer;
 import org.pdfclown.bytes.IInputStream;
@@ -48,6 +52,15 @@ import org.pdfclown.util.io.IOUtils;
 final class CMap
 {
   // <static>
+  // <fields>
+  /**
+    Predefined character maps, keyed by name.
+    <p>As predefined character maps are read-only resources, they are parsed once and shared across
+    documents.</p>
+  */
+  private static final ConcurrentMap<String,Map<ByteArray,Integer>> predefinedCMaps = new ConcurrentHashMap<String,Map<ByteArray,Integer>>();
+  // </fields>
+
   // <interface>
   /**
     Gets the character map extracted from the given data.
@@ -106,6 +119,7 @@ final class CMap
 
   /**
     Gets the character map corresponding to the given name.
+    <p>Predefined character maps are shared, so the returned map is read-only.</p>
 
     @param name Predefined character map name.
     @return <code>null</code>, in case no name matching occurs.
@@ -113,6 +127,31 @@ final class CMap
   public static Map<ByteArray,Integer> get(
     String name
     )
+  {
+    Map<ByteArray,Integer> cmap = predefinedCMaps.get(name);
+    if(cmap == null)
+    {
+      cmap = load(name);
+      if(cmap == null)
+        return null;
+
+      // NOTE: Shared character maps are made read-only (and unsynchronized).
+      cmap = Collections.unmodifiableMap(new HashMap<ByteArray,Integer>(cmap));
+      Map<ByteArray,Integer> cachedCMap = predefinedCMaps.putIfAbsent(name, cmap);
+      if(cachedCMap != null)
+      {cmap = cachedCMap;}
+    }
+    return cmap;
+  }
+  // </interface>
+
+  // <private>
+  /**
+    Parses the predefined character map corresponding to the given name.
+  */
+  private static Map<ByteArray,Integer> load(
+    String name
+    )
   {
     Map<ByteArray,Integer> cmap;
     InputStream cmapResourceStream = null;
@@ -134,7 +173,7 @@ final class CMap
     }
     return cmap;
   }
-  // </interface>
+  // </private>
   // </static>
 
   // <constructors>
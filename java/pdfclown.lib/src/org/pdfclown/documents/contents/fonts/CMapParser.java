@@ -192,7 +192,12 @@ final class CMapParser
               }
             }
             else if(operator.equals(UseCMapOperator))
-            {codes = CMap.get((String)operands.get(0));}
+            {
+              // NOTE: Predefined character maps are shared, so they have to be copied to be extended.
+              Map<ByteArray,Integer> baseCodes = CMap.get((String)operands.get(0));
+              if(baseCodes != null)
+              {codes = new Hashtable<ByteArray,Integer>(baseCodes);}
+            }
             else if(operator.equals(DefOperator) && !operands.isEmpty())
             {
               if(CMapName.equals(operands.get(0)))
@@ -26,10 +26,13 @@
 package org.pdfclown.documents.contents.fonts;
 
 import java.awt.geom.Point2D;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
@@ -39,6 +42,7 @@ import org.pdfclown.bytes.Buffer;
 import org.pdfclown.bytes.IBuffer;
 import org.pdfclown.bytes.IInputStream;
 import org.pdfclown.documents.Document;
+import org.pdfclown.documents.DocumentConfiguration;
 import org.pdfclown.documents.contents.fonts.CMapBuilder.EntryTypeEnum;
 import org.pdfclown.objects.PdfArray;
 import org.pdfclown.objects.PdfDataObject;
@@ -90,11 +94,46 @@ public abstract class CompositeFont
     throw new UnsupportedOperationException("Unknown composite font format.");
   }
   // </public>
+
+  // <private>
+  /**
+    Gets the subset tag (six uppercase letters) corresponding to the specified glyphs.
+  */
+  private static String getSubsetTag(
+    Collection<Integer> glyphIndexes
+    )
+  {
+    long hash = 1;
+    for(Integer glyphIndex : glyphIndexes)
+    {hash = hash * 31 + glyphIndex;}
+    hash &= Long.MAX_VALUE;
+
+    char[] tag = new char[6];
+    for(int index = 0; index < tag.length; index++)
+    {
+      tag[index] = (char)('A' + hash % 26);
+      hash /= 26;
+    }
+    return new String(tag);
+  }
+  // </private>
   // </interface>
   // </static>
 
   // <dynamic>
   // <fields>
+  /**
+    Whole font program (available only for fonts created from font files).
+  */
+  private byte[] fontProgram;
+  /**
+    Font program name (without subset tag).
+  */
+  private String fontProgramName;
+  /**
+    Glyphs of the currently embedded font subset.
+  */
+  private SortedSet<Integer> subsetGlyphIndexes;
   // </fields>
 
   // <constructors>
@@ -116,6 +155,87 @@ public abstract class CompositeFont
 
   // <interface>
   // <public>
+  /**
+    Replaces the embedded font program with a subset containing only the glyphs used so far (that is,
+    those corresponding to {@link #encode(String) encoded} characters), trimming glyph widths and
+    Unicode mapping accordingly.
+    <p>Applies to fonts created from TrueType font files only. It's automatically invoked on file
+    serialization in case {@link DocumentConfiguration#isFontSubsettingEnabled() font subsetting is
+    enabled}. As the whole font program is retained, subsequent invocations reflect the glyphs used
+    in the meantime.</p>
+
+    @since 0.2.0
+  */
+  public void subset(
+    )
+  {
+    if(fontProgram == null)
+      return;
+
+    // Collect the used glyphs!
+    SortedSet<Integer> glyphIndexes = new TreeSet<Integer>();
+    Map<Integer,Integer> usedGlyphIndexes = new HashMap<Integer,Integer>();
+    for(Integer code : usedCodes)
+    {
+      Integer glyphIndex = this.glyphIndexes.get(code);
+      if(glyphIndex != null)
+      {
+        glyphIndexes.add(glyphIndex);
+        usedGlyphIndexes.put(code, glyphIndex);
+      }
+    }
+    {
+      // NOTE: Missing characters may be substituted by the default one.
+      Integer glyphIndex = this.glyphIndexes.get(getDefaultCode());
+      if(glyphIndex != null)
+      {
+        glyphIndexes.add(glyphIndex);
+        usedGlyphIndexes.put(getDefaultCode(), glyphIndex);
+      }
+    }
+    if(glyphIndexes.equals(subsetGlyphIndexes))
+      return;
+
+    OpenFontSubsetter subsetter = new OpenFontSubsetter(fontProgram);
+    if(!subsetter.isSubsettable())
+    {
+      fontProgram = null;
+      return;
+    }
+    byte[] subsetFontProgram = subsetter.subset(
+      glyphIndexes,
+      symbolic ? null : usedGlyphIndexes // NOTE: Symbolic fonts keep their original (custom) mapping.
+      );
+
+    PdfDictionary cidFontDictionary = getCIDFontDictionary();
+    PdfDictionary fontDescriptor = (PdfDictionary)cidFontDictionary.resolve(PdfName.FontDescriptor);
+    // FontFile.
+    ((PdfReference)fontDescriptor.get(PdfName.FontFile2)).setDataObject(
+      new PdfStream(new Buffer(subsetFontProgram))
+      );
+    // Font name [PDF:1.7:5.5.3].
+    {
+      PdfName fontName = new PdfName(getSubsetTag(glyphIndexes) + "+" + fontProgramName);
+      getBaseDataObject().put(PdfName.BaseFont, fontName);
+      cidFontDictionary.put(PdfName.BaseFont, fontName);
+      fontDescriptor.put(PdfName.FontName, fontName);
+    }
+    // Glyph widths.
+    cidFontDictionary.put(PdfName.W, createWidths(glyphIndexes));
+    // ToUnicode.
+    {
+      SortedMap<ByteArray,Integer> usedCharCodes = new TreeMap<ByteArray,Integer>();
+      for(Map.Entry<ByteArray,Integer> codeEntry : codes.entrySet())
+      {
+        if(usedGlyphIndexes.containsKey(codeEntry.getValue()))
+        {usedCharCodes.put(codeEntry.getKey(), codeEntry.getValue());}
+      }
+      ((PdfReference)getBaseDataObject().get(PdfName.ToUnicode)).setDataObject(
+        new PdfStream(createToUnicode(usedCharCodes))
+        );
+    }
+    subsetGlyphIndexes = glyphIndexes;
+  }
   // </public>
 
   // <protected>
@@ -243,6 +363,55 @@ public abstract class CompositeFont
   // </protected>
 
   // <private>
+  /**
+    Creates the Unicode mapping CMap.
+
+    @param codes Unicodes by character code.
+  */
+  private IBuffer createToUnicode(
+    SortedMap<ByteArray,Integer> codes
+    )
+  {
+    return CMapBuilder.build(
+      EntryTypeEnum.BaseFont,
+      null,
+      codes,
+      new IFunction<Map.Entry<ByteArray,Integer>,Integer>()
+      {
+        public Integer apply(Map.Entry<ByteArray,Integer> codeEntry)
+        {return codeEntry.getValue();}
+      }
+      );
+  }
+
+  /**
+    Creates the glyph widths array [PDF:1.7:5.6.3].
+
+    @param glyphIndexes Glyph indexes, in ascending order.
+  */
+  private PdfArray createWidths(
+    Collection<Integer> glyphIndexes
+    )
+  {
+    PdfArray widthsObject = new PdfArray();
+    int lastGlyphIndex = -10;
+    PdfArray lastGlyphWidthRangeObject = null;
+    for(Integer glyphIndex : glyphIndexes)
+    {
+      Integer width = glyphWidths.get(glyphIndex);
+      if(width == null)
+      {width = 0;}
+      if(glyphIndex - lastGlyphIndex != 1)
+      {
+        widthsObject.add(PdfInteger.get(glyphIndex));
+        widthsObject.add(lastGlyphWidthRangeObject = new PdfArray());
+      }
+      lastGlyphWidthRangeObject.add(PdfInteger.get(width));
+      lastGlyphIndex = glyphIndex;
+    }
+    return widthsObject;
+  }
+
   /**
     Loads the font data.
   */
@@ -438,42 +607,11 @@ public abstract class CompositeFont
     cidFont.put(PdfName.CIDToGIDMap, PdfName.Identity); // CID-to-glyph-index mapping.
 
     // ToUnicode [PDF:1.6:5.9.2].
-    PdfDirectObject toUnicodeObject = null;
-    {
-      IBuffer toUnicodeBuffer = CMapBuilder.build(
-        EntryTypeEnum.BaseFont,
-        null,
-        sortedCodes,
-        new IFunction<Map.Entry<ByteArray,Integer>,Integer>()
-        {
-          public Integer apply(Map.Entry<ByteArray,Integer> codeEntry)
-          {return codeEntry.getValue();}
-        }
-        );
-      toUnicodeObject = getFile().register(new PdfStream(toUnicodeBuffer));
-    }
+    PdfDirectObject toUnicodeObject = getFile().register(new PdfStream(createToUnicode(sortedCodes)));
     font.put(PdfName.ToUnicode, toUnicodeObject); // Character-code-to-Unicode mapping.
   
     // Glyph widths.
-    PdfArray widthsObject = new PdfArray();
-    {
-      int lastGlyphIndex = -10;
-      PdfArray lastGlyphWidthRangeObject = null;
-      for(Integer glyphIndex : new TreeSet<Integer>(glyphIndexes.values()))
-      {
-        Integer width = glyphWidths.get(glyphIndex);
-        if(width == null)
-        {width = 0;}
-        if(glyphIndex - lastGlyphIndex != 1)
-        {
-          widthsObject.add(PdfInteger.get(glyphIndex));
-          widthsObject.add(lastGlyphWidthRangeObject = new PdfArray());
-        }
-        lastGlyphWidthRangeObject.add(PdfInteger.get(width));
-        lastGlyphIndex = glyphIndex;
-      }
-    }
-    cidFont.put(PdfName.W, widthsObject); // Glyph widths.
+    cidFont.put(PdfName.W, createWidths(new TreeSet<Integer>(glyphIndexes.values()))); // Glyph widths.
   }
 
   /**
@@ -550,10 +688,12 @@ public abstract class CompositeFont
       fontDescriptor.put(PdfName.StemV, PdfInteger.get(100));
 
       // FontFile.
+      fontProgram = parser.fontData.toByteArray();
+      fontProgramName = parser.fontName;
       fontDescriptor.put(
         PdfName.FontFile2,
         getFile().register(
-          new PdfStream(new Buffer(parser.fontData.toByteArray()))
+          new PdfStream(new Buffer(fontProgram))
           )
         );
     }
@@ -29,9 +29,12 @@ package org.pdfclown.documents.contents.fonts;
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -157,6 +160,10 @@ public abstract class Font
   // <static>
   // <fields>
   private static final int UndefinedDefaultCode = Integer.MIN_VALUE;
+  /**
+    Decoding trie entry corresponding to no unicode.
+  */
+  private static final int UnmappedCodeEntry = -1;
   private static final int UndefinedWidth = Integer.MIN_VALUE;
   // </fields>
 
@@ -228,17 +235,34 @@ public abstract class Font
       return null;
 
     PdfReference reference = (PdfReference)baseObject;
+    Hashtable<PdfReference,Object> cache = reference.getIndirectObject().getFile().getDocument().cache;
+    /*
+      NOTE: Fonts are put into the cache as soon as instantiated (see initialize()), so their loading
+      is serialized on the cache in order not to expose incomplete fonts to concurrent readers.
+    */
+    synchronized(cache)
     {
       // Has the font been already instantiated?
       /*
         NOTE: Font structures are reified as complex objects, both IO- and CPU-intensive to load.
         So, it's convenient to retrieve them from a common cache whenever possible.
       */
-      Hashtable<PdfReference,Object> cache = reference.getIndirectObject().getFile().getDocument().cache;
       if(cache.containsKey(reference))
         return (Font)cache.get(reference);
+
+      return create(reference);
     }
+  }
+  // </public>
 
+  // <private>
+  /**
+    Instantiates the font object corresponding to the specified reference.
+  */
+  private static Font create(
+    PdfReference reference
+    )
+  {
     PdfDictionary fontDictionary = (PdfDictionary)reference.getDataObject();
     PdfName fontType = (PdfName)fontDictionary.get(PdfName.Subtype);
     if(fontType == null)
@@ -278,7 +302,7 @@ public abstract class Font
     else // Unknown.
       throw new UnsupportedOperationException("Unknown font type: " + fontType + " (reference: " + reference + ")");
   }
-  // </public>
+  // </private>
   // </interface>
   // </static>
 
@@ -327,6 +351,19 @@ public abstract class Font
     Maximum character code byte size.
   */
   private int charCodeMaxLength = 0;
+  /**
+    Character codes by unicode (Basic Multilingual Plane), paged by high-order byte.
+    <p>This is the compiled form of the inverse of {@link #codes}, built on {@link #load() load}.</p>
+  */
+  private byte[][][] charCodePages;
+  /**
+    Character code decoding trie.
+    <p>This is the compiled form of {@link #codes}, built on {@link #load() load}. Each node maps the
+    next byte of a character code to either a unicode (non-negative entry), a child node (entry
+    <code>-(childIndex + 2)</code>), or nothing ({@link #UnmappedCodeEntry}). Single-byte encodings
+    consist of the root node only, that is a plain lookup table.</p>
+  */
+  private int[][] codeNodes;
   /**
     Default Unicode for missing characters.
   */
@@ -381,54 +418,47 @@ public abstract class Font
     byte[] code
     ) throws DecodeException
   {
-    StringBuilder textBuilder = new StringBuilder();
+    int[][] codeNodes = this.codeNodes;
+    int[] rootCodeNode = codeNodes[0];
+    char[] textChars = new char[code.length];
+    int textLength = 0;
+    int index = 0;
+    int codeLength = code.length;
+    while(index < codeLength)
     {
-      byte[][] codeBuffers = new byte[charCodeMaxLength+1][];
-      for(
-        int codeBufferIndex = 0;
-        codeBufferIndex <= charCodeMaxLength;
-        codeBufferIndex++
-        )
-      {codeBuffers[codeBufferIndex] = new byte[codeBufferIndex];}
-      int index = 0;
-      int codeLength = code.length;
-      int codeBufferSize = 1;
-      while(index < codeLength)
+      int codeEntry = rootCodeNode[code[index] & 0xFF];
+      int codeSize = 1;
+      // Longer character code?
+      while(codeEntry < UnmappedCodeEntry
+        && codeSize < codeLength - index)
+      {codeEntry = codeNodes[-codeEntry - 2][code[index + codeSize++] & 0xFF];}
+      if(codeEntry < 0) // Missing character.
       {
-        byte[] codeBuffer = codeBuffers[codeBufferSize];
-        System.arraycopy(code, index, codeBuffer, 0, codeBufferSize);
-        Integer textChar = codes.get(new ByteArray(codeBuffer));
-        if(textChar == null)
+        switch(getDocument().getConfiguration().getEncodingFallback())
         {
-          if(codeBufferSize < charCodeMaxLength
-            && codeBufferSize < codeLength - index)
-          {
-            codeBufferSize++;
-            continue;
-          }
-          else // Missing character.
-          {
-            switch(getDocument().getConfiguration().getEncodingFallback())
-            {
-              case Exclusion:
-                break;
-              case Substitution:
-                textChar = defaultCode;
-                break;
-              case Exception:
-                throw new DecodeException(code, index);
-              default:
-                throw new NotImplementedException();
-            }
-          }
+          case Exclusion:
+            codeEntry = UnmappedCodeEntry;
+            break;
+          case Substitution:
+            codeEntry = defaultCode;
+            break;
+          case Exception:
+            throw new DecodeException(code, index);
+          default:
+            throw new NotImplementedException();
+        }
+        // NOTE: Missing character codes are assumed to span the maximum length.
+        codeSize = Math.min(Math.max(charCodeMaxLength, 1), codeLength - index);
+        if(codeEntry == UnmappedCodeEntry)
+        {
+          index += codeSize;
+          continue;
         }
-        if(textChar != null)
-        {textBuilder.append((char)(int)textChar);}
-        index += codeBufferSize;
-        codeBufferSize = 1;
       }
+      textChars[textLength++] = (char)codeEntry;
+      index += codeSize;
     }
-    return textBuilder.toString();
+    return new String(textChars, 0, textLength);
   }
 
   /**
@@ -450,15 +480,15 @@ public abstract class Font
         if(textCode < 32) // NOTE: Control characters are ignored [FIX:7].
           continue;
         
-        ByteArray code = codes.getKey(textCode);
-        if(code == null) // Missing glyph.
+        byte[] charCode = getCharCode(textCode);
+        if(charCode == null) // Missing glyph.
         {
           switch(getDocument().getConfiguration().getEncodingFallback())
           {
             case Exclusion:
               continue;
             case Substitution:
-              code = codes.getKey(defaultCode);
+              charCode = getCharCode(defaultCode);
               break;
             case Exception:
               throw new EncodeException(text, index);
@@ -467,7 +497,6 @@ public abstract class Font
           }
         }
         
-        byte[] charCode = code.data;
         encodedStream.write(charCode);
         usedCodes.add(textCode);
       }
@@ -883,6 +912,7 @@ public abstract class Font
       if(charCode.data.length > charCodeMaxLength)
       {charCodeMaxLength = charCode.data.length;}
     }
+    compileCodes();
     // Missing character substitute.
     if(defaultCode == UndefinedDefaultCode)
     {
@@ -920,6 +950,95 @@ public abstract class Font
   // </protected>
 
   // <private>
+  /**
+    Compiles the character code mapping into lookup structures (see {@link #codeNodes} and {@link
+    #charCodePages}).
+  */
+  private void compileCodes(
+    )
+  {
+    // Decoding trie.
+    List<int[]> codeNodes = new ArrayList<int[]>();
+    codeNodes.add(createCodeNode());
+    for(Map.Entry<ByteArray,Integer> codeEntry : codes.entrySet())
+    {
+      byte[] charCode = codeEntry.getKey().data;
+      int unicode = codeEntry.getValue();
+      if(charCode.length == 0
+        || unicode < 0)
+        continue;
+
+      int[] codeNode = codeNodes.get(0);
+      int lastIndex = charCode.length - 1;
+      for(int index = 0; index < lastIndex && codeNode != null; index++)
+      {
+        int codeByte = charCode[index] & 0xFF;
+        int nodeEntry = codeNode[codeByte];
+        if(nodeEntry >= 0) // Prefix already mapped.
+        {
+          /*
+            NOTE: Shorter character codes take precedence over longer ones sharing the same prefix
+            (decoding matches the shortest mapped code).
+          */
+          codeNode = null;
+        }
+        else if(nodeEntry == UnmappedCodeEntry)
+        {
+          codeNode[codeByte] = -(codeNodes.size() + 2);
+          codeNodes.add(codeNode = createCodeNode());
+        }
+        else
+        {codeNode = codeNodes.get(-nodeEntry - 2);}
+      }
+      if(codeNode != null)
+      {codeNode[charCode[lastIndex] & 0xFF] = unicode;}
+    }
+    this.codeNodes = codeNodes.toArray(new int[codeNodes.size()][]);
+
+    // Encoding table.
+    charCodePages = new byte[256][][];
+    for(Integer unicode : codes.values())
+    {
+      if(unicode < 0 || unicode > 0xFFFF)
+        continue;
+
+      byte[][] charCodePage = charCodePages[unicode >> 8];
+      if(charCodePage == null)
+      {charCodePage = charCodePages[unicode >> 8] = new byte[256][];}
+      if(charCodePage[unicode & 0xFF] == null)
+      {charCodePage[unicode & 0xFF] = codes.getKey(unicode).data;}
+    }
+  }
+
+  private static int[] createCodeNode(
+    )
+  {
+    int[] codeNode = new int[256];
+    Arrays.fill(codeNode, UnmappedCodeEntry);
+    return codeNode;
+  }
+
+  /**
+    Gets the character code corresponding to the specified unicode.
+
+    @return <code>null</code>, if no character code is mapped.
+  */
+  private byte[] getCharCode(
+    int unicode
+    )
+  {
+    if(unicode >= 0 && unicode <= 0xFFFF)
+    {
+      byte[][] charCodePage = charCodePages[unicode >> 8];
+      return charCodePage != null ? charCodePage[unicode & 0xFF] : null;
+    }
+    else
+    {
+      ByteArray charCode = codes.getKey(unicode);
+      return charCode != null ? charCode.data : null;
+    }
+  }
+
   private void initialize(
     )
   {
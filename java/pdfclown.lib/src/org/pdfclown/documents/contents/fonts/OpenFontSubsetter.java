@@ -0,0 +1,489 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.Stack;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.pdfclown.util.parsers.ParseException;
+
+/**
+  Open Font Format (TrueType outlines) subsetter [OFF:2009].
+  <p>The subset font program retains the outlines of the requested glyphs only, along with the
+  glyphs they are composed of. Glyph indexes are preserved (as CIDs are mapped to them through an
+  identity CIDToGIDMap): unused glyphs are emptied, while trailing unused glyphs are dropped.</p>
+  <p>Only the tables relevant to font embedding [PDF:1.7:5.8] are retained.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+final class OpenFontSubsetter
+{
+  // <class>
+  // <static>
+  // <fields>
+  private static final long ChecksumAdjustmentBase = 0xB1B0AFBAL;
+
+  /*
+    Composite glyph flags.
+  */
+  private static final int ComponentFlag_ArgsAreWords = 0x0001;
+  private static final int ComponentFlag_HasScale = 0x0008;
+  private static final int ComponentFlag_MoreComponents = 0x0020;
+  private static final int ComponentFlag_HasXYScale = 0x0040;
+  private static final int ComponentFlag_Has2x2 = 0x0080;
+
+  /**
+    Maximum byte size of a cmap subtable.
+  */
+  private static final int MaxCMapSubtableLength = 0xFFFF;
+
+  private static final String TableName_CMap = "cmap";
+  private static final String TableName_Glyf = "glyf";
+  private static final String TableName_Head = "head";
+  private static final String TableName_Hhea = "hhea";
+  private static final String TableName_Hmtx = "hmtx";
+  private static final String TableName_Loca = "loca";
+  private static final String TableName_Maxp = "maxp";
+  private static final String TableName_Post = "post";
+  /**
+    Tables retained in the subset.
+    <p>Besides the tables required by PDF, 'OS/2', 'name' and 'post' are retained for the sake of
+    font consumers (such as font rasterizers) which rely on them.</p>
+  */
+  private static final String[] TableNames_Retained = {"OS/2", TableName_CMap, "cvt ", "fpgm", TableName_Glyf, TableName_Head, TableName_Hhea, TableName_Hmtx, TableName_Loca, TableName_Maxp, "name", TableName_Post, "prep"};
+  // </fields>
+
+  // <interface>
+  // <private>
+  /**
+    Gets the checksum of the specified table data.
+  */
+  private static long getChecksum(
+    byte[] data
+    )
+  {
+    long checksum = 0;
+    for(int index = 0, length = data.length; index < length; index += 4)
+    {
+      long word = 0;
+      for(int byteIndex = 0; byteIndex < 4; byteIndex++)
+      {word = (word << 8) | (index + byteIndex < length ? data[index + byteIndex] & 0xFF : 0);}
+      checksum = (checksum + word) & 0xFFFFFFFFL;
+    }
+    return checksum;
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private final ByteBuffer fontData;
+  /**
+    Table locations (offset and length), by tag.
+  */
+  private final Map<String,int[]> tables;
+  // </fields>
+
+  // <constructors>
+  /**
+    @param fontData Font program (as parsed by {@link OpenFontParser}).
+  */
+  OpenFontSubsetter(
+    byte[] fontData
+    )
+  {
+    this.fontData = ByteBuffer.wrap(fontData);
+
+    int tableCount = this.fontData.getShort(4) & 0xFFFF;
+    tables = new HashMap<String,int[]>(tableCount);
+    for(int index = 0, entryOffset = 12; index < tableCount; index++, entryOffset += 16)
+    {
+      char[] tag = new char[4];
+      for(int tagIndex = 0; tagIndex < 4; tagIndex++)
+      {tag[tagIndex] = (char)(fontData[entryOffset + tagIndex] & 0xFF);}
+      tables.put(
+        new String(tag),
+        new int[]
+        {
+          this.fontData.getInt(entryOffset + 8), // Offset.
+          this.fontData.getInt(entryOffset + 12) // Length.
+        }
+        );
+    }
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets whether this font program can be subset (that is, whether it has TrueType outlines).
+  */
+  public boolean isSubsettable(
+    )
+  {
+    return tables.containsKey(TableName_Glyf)
+      && tables.containsKey(TableName_Loca)
+      && tables.containsKey(TableName_Head)
+      && tables.containsKey(TableName_Hhea)
+      && tables.containsKey(TableName_Hmtx)
+      && tables.containsKey(TableName_Maxp);
+  }
+
+  /**
+    Creates the font program subset.
+
+    @param glyphIndexes Indexes of the glyphs to retain (the .notdef glyph is implicitly retained).
+    @param codes Glyph indexes by unicode, to be mapped in the 'cmap' table of the subset; in case
+      of <code>null</code>, the original 'cmap' table is retained.
+    @return Subset font program.
+  */
+  public byte[] subset(
+    Collection<Integer> glyphIndexes,
+    Map<Integer,Integer> codes
+    )
+  {
+    if(!isSubsettable())
+      throw new UnsupportedOperationException("Only TrueType outlines can be subset.");
+
+    int glyphCount = getUShort(getTableOffset(TableName_Maxp) + 4);
+    int[] glyphOffsets = getGlyphOffsets(glyphCount);
+    TreeSet<Integer> retainedGlyphIndexes = getRetainedGlyphIndexes(glyphIndexes, glyphOffsets);
+    int subsetGlyphCount = retainedGlyphIndexes.last() + 1;
+
+    SortedMap<String,byte[]> subsetTables = new TreeMap<String,byte[]>();
+    for(String tableName : TableNames_Retained)
+    {
+      if(tables.containsKey(tableName))
+      {subsetTables.put(tableName, getTable(tableName));}
+    }
+
+    // 1. Glyph outlines ('glyf' and 'loca' tables).
+    {
+      int glyfOffset = getTableOffset(TableName_Glyf);
+      ByteArrayOutputStream glyfTable = new ByteArrayOutputStream();
+      ByteBuffer locaTable = ByteBuffer.allocate((subsetGlyphCount + 1) * 4);
+      for(int glyphIndex = 0; glyphIndex < subsetGlyphCount; glyphIndex++)
+      {
+        locaTable.putInt(glyfTable.size());
+        if(retainedGlyphIndexes.contains(glyphIndex))
+        {
+          int glyphOffset = glyphOffsets[glyphIndex];
+          glyfTable.write(fontData.array(), glyfOffset + glyphOffset, glyphOffsets[glyphIndex + 1] - glyphOffset);
+          // NOTE: Glyph descriptions are 4-byte aligned, as recommended for the long offset format.
+          while(glyfTable.size() % 4 != 0)
+          {glyfTable.write(0);}
+        }
+      }
+      locaTable.putInt(glyfTable.size());
+      subsetTables.put(TableName_Glyf, glyfTable.toByteArray());
+      subsetTables.put(TableName_Loca, locaTable.array());
+    }
+
+    // 2. Horizontal metrics ('hmtx' table).
+    {
+      int hmtxOffset = getTableOffset(TableName_Hmtx);
+      int hMetricCount = getUShort(getTableOffset(TableName_Hhea) + 34);
+      int subsetHMetricCount = Math.min(hMetricCount, subsetGlyphCount);
+      ByteBuffer hmtxTable = ByteBuffer.allocate(subsetHMetricCount * 4 + (subsetGlyphCount - subsetHMetricCount) * 2);
+      hmtxTable.put(fontData.array(), hmtxOffset, subsetHMetricCount * 4);
+      // Left side bearings of the glyphs sharing the last advance width.
+      hmtxTable.put(fontData.array(), hmtxOffset + hMetricCount * 4, (subsetGlyphCount - subsetHMetricCount) * 2);
+      subsetTables.put(TableName_Hmtx, hmtxTable.array());
+
+      ByteBuffer.wrap(subsetTables.get(TableName_Hhea)).putShort(34, (short)subsetHMetricCount);
+    }
+
+    // 3. Glyph count ('maxp' table).
+    ByteBuffer.wrap(subsetTables.get(TableName_Maxp)).putShort(4, (short)subsetGlyphCount);
+
+    // 4. Header ('head' table).
+    {
+      ByteBuffer headTable = ByteBuffer.wrap(subsetTables.get(TableName_Head));
+      headTable.putInt(8, 0); // Checksum adjustment (computed afterwards).
+      headTable.putShort(50, (short)1); // Long 'loca' offset format.
+    }
+
+    // 5. Glyph names ('post' table).
+    if(subsetTables.containsKey(TableName_Post))
+    {
+      /*
+        NOTE: Glyph names are dropped (version 3.0), as they may be way larger than the subset
+        itself.
+      */
+      byte[] postTable = subsetTables.get(TableName_Post);
+      if(postTable.length > 32)
+      {
+        ByteBuffer subsetPostTable = ByteBuffer.allocate(32);
+        subsetPostTable.put(postTable, 0, 32);
+        subsetPostTable.putInt(0, 0x00030000); // Version.
+        subsetTables.put(TableName_Post, subsetPostTable.array());
+      }
+    }
+
+    // 6. Character mapping ('cmap' table).
+    if(codes != null)
+    {
+      byte[] cmapTable = createCMap(codes, retainedGlyphIndexes);
+      if(cmapTable != null)
+      {subsetTables.put(TableName_CMap, cmapTable);}
+    }
+
+    return createFont(subsetTables);
+  }
+  // </public>
+
+  // <private>
+  /**
+    Creates a 'cmap' table containing a Unicode BMP (3,1) format-4 subtable.
+
+    @return <code>null</code>, if the mapping doesn't fit a format-4 subtable.
+  */
+  private byte[] createCMap(
+    Map<Integer,Integer> codes,
+    Collection<Integer> glyphIndexes
+    )
+  {
+    SortedMap<Integer,Integer> sortedCodes = new TreeMap<Integer,Integer>();
+    for(Map.Entry<Integer,Integer> codeEntry : codes.entrySet())
+    {
+      int code = codeEntry.getKey();
+      if(code >= 0 && code < 0xFFFF
+        && glyphIndexes.contains(codeEntry.getValue()))
+      {sortedCodes.put(code, codeEntry.getValue());}
+    }
+
+    // Segments (consecutive codes mapped to consecutive glyph indexes).
+    List<int[]> segments = new ArrayList<int[]>(); // Start code, end code, delta.
+    int[] segment = null;
+    for(Map.Entry<Integer,Integer> codeEntry : sortedCodes.entrySet())
+    {
+      int code = codeEntry.getKey();
+      int delta = codeEntry.getValue() - code;
+      if(segment == null
+        || code != segment[1] + 1
+        || delta != segment[2])
+      {segments.add(segment = new int[]{code, code, delta});}
+      else
+      {segment[1] = code;}
+    }
+    segments.add(new int[]{0xFFFF, 0xFFFF, 1}); // Final segment.
+
+    int segmentCount = segments.size();
+    int subtableLength = 16 + segmentCount * 8;
+    if(subtableLength > MaxCMapSubtableLength)
+      return null;
+
+    ByteBuffer cmapTable = ByteBuffer.allocate(12 + subtableLength);
+    // Header.
+    cmapTable.putShort((short)0); // Version.
+    cmapTable.putShort((short)1); // Subtable count.
+    cmapTable.putShort((short)3); // Platform ID (Microsoft).
+    cmapTable.putShort((short)1); // Encoding ID (Unicode BMP).
+    cmapTable.putInt(12); // Subtable offset.
+    // Format-4 subtable.
+    int searchRange = Integer.highestOneBit(segmentCount) * 2;
+    cmapTable.putShort((short)4); // Format.
+    cmapTable.putShort((short)subtableLength);
+    cmapTable.putShort((short)0); // Language.
+    cmapTable.putShort((short)(segmentCount * 2));
+    cmapTable.putShort((short)searchRange);
+    cmapTable.putShort((short)Integer.numberOfTrailingZeros(searchRange / 2)); // Entry selector.
+    cmapTable.putShort((short)(segmentCount * 2 - searchRange)); // Range shift.
+    for(int[] subsetSegment : segments)
+    {cmapTable.putShort((short)subsetSegment[1]);} // End codes.
+    cmapTable.putShort((short)0); // Reserved padding.
+    for(int[] subsetSegment : segments)
+    {cmapTable.putShort((short)subsetSegment[0]);} // Start codes.
+    for(int[] subsetSegment : segments)
+    {cmapTable.putShort((short)subsetSegment[2]);} // Deltas (modulo 65536).
+    for(int index = 0; index < segmentCount; index++)
+    {cmapTable.putShort((short)0);} // Range offsets.
+    return cmapTable.array();
+  }
+
+  /**
+    Assembles the font program from the specified tables.
+  */
+  private byte[] createFont(
+    SortedMap<String,byte[]> tables
+    )
+  {
+    int tableCount = tables.size();
+    int fontLength = 12 + tableCount * 16;
+    for(byte[] table : tables.values())
+    {fontLength += (table.length + 3) & ~3;}
+
+    ByteBuffer font = ByteBuffer.allocate(fontLength);
+    // Offset table.
+    int searchRange = Integer.highestOneBit(tableCount) * 16;
+    font.putInt(fontData.getInt(0)); // Version.
+    font.putShort((short)tableCount);
+    font.putShort((short)searchRange);
+    font.putShort((short)Integer.numberOfTrailingZeros(searchRange / 16)); // Entry selector.
+    font.putShort((short)(tableCount * 16 - searchRange)); // Range shift.
+    // Table directory.
+    int tableOffset = 12 + tableCount * 16;
+    int headOffset = 0;
+    for(Map.Entry<String,byte[]> tableEntry : tables.entrySet())
+    {
+      String tableName = tableEntry.getKey();
+      byte[] table = tableEntry.getValue();
+      for(int index = 0; index < 4; index++)
+      {font.put((byte)tableName.charAt(index));}
+      font.putInt((int)getChecksum(table));
+      font.putInt(tableOffset);
+      font.putInt(table.length);
+      if(tableName.equals(TableName_Head))
+      {headOffset = tableOffset;}
+      tableOffset += (table.length + 3) & ~3;
+    }
+    // Tables.
+    for(byte[] table : tables.values())
+    {
+      font.put(table);
+      font.position((font.position() + 3) & ~3);
+    }
+
+    byte[] fontBytes = font.array();
+    font.putInt(headOffset + 8, (int)((ChecksumAdjustmentBase - getChecksum(fontBytes)) & 0xFFFFFFFFL));
+    return fontBytes;
+  }
+
+  /**
+    Gets the glyph description offsets ('loca' table), relative to the 'glyf' table.
+  */
+  private int[] getGlyphOffsets(
+    int glyphCount
+    )
+  {
+    boolean longFormat = fontData.getShort(getTableOffset(TableName_Head) + 50) != 0;
+    int locaOffset = getTableOffset(TableName_Loca);
+    int[] glyphOffsets = new int[glyphCount + 1];
+    for(int index = 0; index <= glyphCount; index++)
+    {
+      glyphOffsets[index] = (longFormat
+        ? fontData.getInt(locaOffset + index * 4)
+        : getUShort(locaOffset + index * 2) * 2);
+    }
+    return glyphOffsets;
+  }
+
+  /**
+    Gets the indexes of the glyphs to retain, including the .notdef glyph and the components of
+    composite glyphs.
+  */
+  private TreeSet<Integer> getRetainedGlyphIndexes(
+    Collection<Integer> glyphIndexes,
+    int[] glyphOffsets
+    )
+  {
+    int glyphCount = glyphOffsets.length - 1;
+    int glyfOffset = getTableOffset(TableName_Glyf);
+    TreeSet<Integer> retainedGlyphIndexes = new TreeSet<Integer>();
+    Stack<Integer> glyphIndexStack = new Stack<Integer>();
+    glyphIndexStack.push(0); // .notdef glyph.
+    for(Integer glyphIndex : glyphIndexes)
+    {
+      if(glyphIndex != null
+        && glyphIndex >= 0
+        && glyphIndex < glyphCount)
+      {glyphIndexStack.push(glyphIndex);}
+    }
+    while(!glyphIndexStack.isEmpty())
+    {
+      int glyphIndex = glyphIndexStack.pop();
+      if(!retainedGlyphIndexes.add(glyphIndex))
+        continue;
+
+      int glyphOffset = glyfOffset + glyphOffsets[glyphIndex];
+      if(glyphOffsets[glyphIndex + 1] - glyphOffsets[glyphIndex] < 10 // Empty glyph.
+        || fontData.getShort(glyphOffset) >= 0) // Simple glyph.
+        continue;
+
+      // Composite glyph.
+      int componentOffset = glyphOffset + 10;
+      int flags;
+      do
+      {
+        flags = getUShort(componentOffset);
+        int componentGlyphIndex = getUShort(componentOffset + 2);
+        if(componentGlyphIndex < glyphCount)
+        {glyphIndexStack.push(componentGlyphIndex);}
+
+        componentOffset += 4 + ((flags & ComponentFlag_ArgsAreWords) != 0 ? 4 : 2);
+        if((flags & ComponentFlag_HasScale) != 0)
+        {componentOffset += 2;}
+        else if((flags & ComponentFlag_HasXYScale) != 0)
+        {componentOffset += 4;}
+        else if((flags & ComponentFlag_Has2x2) != 0)
+        {componentOffset += 8;}
+      } while((flags & ComponentFlag_MoreComponents) != 0);
+    }
+    return retainedGlyphIndexes;
+  }
+
+  private byte[] getTable(
+    String name
+    )
+  {
+    int[] table = tables.get(name);
+    byte[] data = new byte[table[1]];
+    System.arraycopy(fontData.array(), table[0], data, 0, table[1]);
+    return data;
+  }
+
+  private int getTableOffset(
+    String name
+    )
+  {
+    int[] table = tables.get(name);
+    if(table == null)
+      throw new ParseException("'" + name + "' table does NOT exist.");
+
+    return table[0];
+  }
+
+  private int getUShort(
+    int offset
+    )
+  {return fontData.getShort(offset) & 0xFFFF;}
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
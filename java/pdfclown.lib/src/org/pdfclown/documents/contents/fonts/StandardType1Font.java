@@ -27,8 +27,12 @@ package org.pdfclown.documents.contents.fonts;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
@@ -73,6 +77,59 @@ public final class StandardType1Font
   };
   // </classes>
 
+  // <static>
+  // <fields>
+  /**
+    Parsed font metrics, keyed by font name.
+    <p>As standard font metrics are read-only resources, they are parsed once and shared across
+    documents.</p>
+  */
+  private static final ConcurrentMap<String,AfmParser> fontMetricsCache = new ConcurrentHashMap<String,AfmParser>();
+  // </fields>
+
+  // <interface>
+  // <private>
+  /**
+    Gets the parsed metrics of the specified standard font.
+  */
+  private static AfmParser getFontMetrics(
+    String fontName
+    )
+  {
+    AfmParser fontMetrics = fontMetricsCache.get(fontName);
+    if(fontMetrics == null)
+    {
+      BufferedReader fontMetricsStream = null;
+      try
+      {
+        fontMetricsStream = new BufferedReader(
+          new InputStreamReader(
+            StandardType1Font.class.getResourceAsStream("/fonts/afm/" + fontName + ".afm")
+            )
+          );
+
+        fontMetrics = new AfmParser(fontMetricsStream);
+        fontMetrics.fontData = null;
+        // NOTE: Shared glyph maps are made read-only (and unsynchronized).
+        fontMetrics.glyphIndexes = Collections.unmodifiableMap(new HashMap<Integer,Integer>(fontMetrics.glyphIndexes));
+        fontMetrics.glyphKernings = Collections.unmodifiableMap(new HashMap<Integer,Integer>(fontMetrics.glyphKernings));
+        fontMetrics.glyphWidths = Collections.unmodifiableMap(new HashMap<Integer,Integer>(fontMetrics.glyphWidths));
+      }
+      catch(Exception e)
+      {throw new RuntimeException(String.format("Failed to load '%s'", fontName), e);}
+      finally
+      {IOUtils.closeQuietly(fontMetricsStream);}
+
+      AfmParser cachedFontMetrics = fontMetricsCache.putIfAbsent(fontName, fontMetrics);
+      if(cachedFontMetrics != null)
+      {fontMetrics = cachedFontMetrics;}
+    }
+    return fontMetrics;
+  }
+  // </private>
+  // </interface>
+  // </static>
+
   // <dynamic>
   // <constructors>
   public StandardType1Font(
@@ -217,26 +274,12 @@ public final class StandardType1Font
     String fontName
     )
   {
-    BufferedReader fontMetricsStream = null;
-    try
-    {
-      fontMetricsStream = new BufferedReader(
-        new InputStreamReader(
-          getClass().getResourceAsStream("/fonts/afm/" + fontName + ".afm")
-          )
-        );
-
-      AfmParser parser = new AfmParser(fontMetricsStream);
-      metrics = parser.metrics;
-      symbolic = metrics.isCustomEncoding;
-      glyphIndexes = parser.glyphIndexes;
-      glyphKernings = parser.glyphKernings;
-      glyphWidths = parser.glyphWidths;
-    }
-    catch(Exception e)
-    {throw new RuntimeException(String.format("Failed to load '%s'", fontName), e);}
-    finally
-    {IOUtils.closeQuietly(fontMetricsStream);}
+    AfmParser parser = getFontMetrics(fontName);
+    metrics = parser.metrics;
+    symbolic = metrics.isCustomEncoding;
+    glyphIndexes = parser.glyphIndexes;
+    glyphKernings = parser.glyphKernings;
+    glyphWidths = parser.glyphWidths;
   }
   // </private>
   // </interface>
@@ -65,133 +65,208 @@ public abstract class Operation
     if(operator == null)
       return null;
 
-    if(operator.equals(SaveGraphicsState.Operator))
-      return SaveGraphicsState.Value;
-    else if(operator.equals(SetFont.Operator))
-      return new SetFont(operands);
-    else if(operator.equals(SetStrokeColor.Operator)
-      || operator.equals(SetStrokeColor.ExtendedOperator))
-      return new SetStrokeColor(operator, operands);
-    else if(operator.equals(SetStrokeColorSpace.Operator))
-      return new SetStrokeColorSpace(operands);
-    else if(operator.equals(SetFillColor.Operator)
-      || operator.equals(SetFillColor.ExtendedOperator))
-      return new SetFillColor(operator, operands);
-    else if(operator.equals(SetFillColorSpace.Operator))
-      return new SetFillColorSpace(operands);
-    else if(operator.equals(SetDeviceGrayStrokeColor.Operator))
-      return new SetDeviceGrayStrokeColor(operands);
-    else if(operator.equals(SetDeviceGrayFillColor.Operator))
-      return new SetDeviceGrayFillColor(operands);
-    else if(operator.equals(SetDeviceRGBStrokeColor.Operator))
-      return new SetDeviceRGBStrokeColor(operands);
-    else if(operator.equals(SetDeviceRGBFillColor.Operator))
-      return new SetDeviceRGBFillColor(operands);
-    else if(operator.equals(SetDeviceCMYKStrokeColor.Operator))
-      return new SetDeviceCMYKStrokeColor(operands);
-    else if(operator.equals(SetDeviceCMYKFillColor.Operator))
-      return new SetDeviceCMYKFillColor(operands);
-    else if(operator.equals(RestoreGraphicsState.Operator))
-      return RestoreGraphicsState.Value;
-    else if(operator.equals(BeginSubpath.Operator))
-      return new BeginSubpath(operands);
-    else if(operator.equals(CloseSubpath.Operator))
-      return CloseSubpath.Value;
-    else if(operator.equals(PaintPath.CloseStrokeOperator))
-      return PaintPath.CloseStroke;
-    else if(operator.equals(PaintPath.FillOperator)
-      || operator.equals(PaintPath.FillObsoleteOperator))
-      return PaintPath.Fill;
-    else if(operator.equals(PaintPath.FillEvenOddOperator))
-      return PaintPath.FillEvenOdd;
-    else if(operator.equals(PaintPath.StrokeOperator))
-      return PaintPath.Stroke;
-    else if(operator.equals(PaintPath.FillStrokeOperator))
-      return PaintPath.FillStroke;
-    else if(operator.equals(PaintPath.FillStrokeEvenOddOperator))
-      return PaintPath.FillStrokeEvenOdd;
-    else if(operator.equals(PaintPath.CloseFillStrokeOperator))
-      return PaintPath.CloseFillStroke;
-    else if(operator.equals(PaintPath.CloseFillStrokeEvenOddOperator))
-      return PaintPath.CloseFillStrokeEvenOdd;
-    else if(operator.equals(PaintPath.EndPathNoOpOperator))
-      return PaintPath.EndPathNoOp;
-    else if(operator.equals(ModifyClipPath.NonZeroOperator))
-      return ModifyClipPath.NonZero;
-    else if(operator.equals(ModifyClipPath.EvenOddOperator))
-      return ModifyClipPath.EvenOdd;
-    else if(operator.equals(TranslateTextToNextLine.Operator))
-      return TranslateTextToNextLine.Value;
-    else if(operator.equals(ShowSimpleText.Operator))
-      return new ShowSimpleText(operands);
-    else if(operator.equals(ShowTextToNextLine.SimpleOperator)
-      || operator.equals(ShowTextToNextLine.SpaceOperator))
-      return new ShowTextToNextLine(operator, operands);
-    else if(operator.equals(ShowAdjustedText.Operator))
-      return new ShowAdjustedText(operands, 0);
-    else if(operator.equals(TranslateTextRelative.SimpleOperator)
-      || operator.equals(TranslateTextRelative.LeadOperator))
-      return new TranslateTextRelative(operator, operands);
-    else if(operator.equals(SetTextMatrix.Operator))
-      return new SetTextMatrix(operands);
-    else if(operator.equals(ModifyCTM.Operator))
-      return new ModifyCTM(operands);
-    else if(operator.equals(PaintXObject.Operator))
-      return new PaintXObject(operands);
-    else if(operator.equals(PaintShading.Operator))
-      return new PaintShading(operands);
-    else if(operator.equals(SetCharSpace.Operator))
-      return new SetCharSpace(operands);
-    else if(operator.equals(SetLineCap.Operator))
-      return new SetLineCap(operands);
-    else if(operator.equals(SetLineDash.Operator))
-      return new SetLineDash(operands);
-    else if(operator.equals(SetLineJoin.Operator))
-      return new SetLineJoin(operands);
-    else if(operator.equals(SetLineWidth.Operator))
-      return new SetLineWidth(operands);
-    else if(operator.equals(SetMiterLimit.Operator))
-      return new SetMiterLimit(operands);
-    else if(operator.equals(SetTextLead.Operator))
-      return new SetTextLead(operands);
-    else if(operator.equals(SetTextRise.Operator))
-      return new SetTextRise(operands);
-    else if(operator.equals(SetTextScale.Operator))
-      return new SetTextScale(operands);
-    else if(operator.equals(SetTextRenderMode.Operator))
-      return new SetTextRenderMode(operands);
-    else if(operator.equals(SetWordSpace.Operator))
-      return new SetWordSpace(operands);
-    else if(operator.equals(DrawLine.Operator))
-      return new DrawLine(operands);
-    else if(operator.equals(DrawRectangle.Operator))
-      return new DrawRectangle(operands);
-    else if(operator.equals(DrawCurve.FinalOperator)
-      || operator.equals(DrawCurve.FullOperator)
-      || operator.equals(DrawCurve.InitialOperator))
-      return new DrawCurve(operator, operands);
-    else if(operator.equals(EndInlineImage.Operator))
-      return EndInlineImage.Value;
-    else if(operator.equals(BeginText.Operator))
-      return BeginText.Value;
-    else if(operator.equals(EndText.Operator))
-      return EndText.Value;
-    else if(operator.equals(BeginMarkedContent.SimpleOperator)
-      || operator.equals(BeginMarkedContent.PropertyListOperator))
-      return new BeginMarkedContent(operator, operands);
-    else if(operator.equals(EndMarkedContent.Operator))
-      return EndMarkedContent.Value;
-    else if(operator.equals(MarkedContentPoint.SimpleOperator)
-      || operator.equals(MarkedContentPoint.PropertyListOperator))
-      return new MarkedContentPoint(operator, operands);
-    else if(operator.equals(BeginInlineImage.Operator))
-      return BeginInlineImage.Value;
-    else if(operator.equals(EndInlineImage.Operator))
-      return EndInlineImage.Value;
-    else if(operator.equals(ApplyExtGState.Operator))
-      return new ApplyExtGState(operands);
-    else // No explicit operation implementation available.
-      return new GenericOperation(operator, operands);
+    /*
+      NOTE: Operators are dispatched by their first character, so that each of them is resolved
+      through a few comparisons only, whatever its position in the operator set.
+    */
+    switch(operator.length() > 0 ? operator.charAt(0) : 0)
+    {
+      case 'b':
+        if(operator.equals(PaintPath.CloseFillStrokeOperator))
+          return PaintPath.CloseFillStroke;
+        else if(operator.equals(PaintPath.CloseFillStrokeEvenOddOperator))
+          return PaintPath.CloseFillStrokeEvenOdd;
+        break;
+      case 'B':
+        if(operator.equals(PaintPath.FillStrokeOperator))
+          return PaintPath.FillStroke;
+        else if(operator.equals(PaintPath.FillStrokeEvenOddOperator))
+          return PaintPath.FillStrokeEvenOdd;
+        else if(operator.equals(BeginText.Operator))
+          return BeginText.Value;
+        else if(operator.equals(BeginMarkedContent.SimpleOperator)
+          || operator.equals(BeginMarkedContent.PropertyListOperator))
+          return new BeginMarkedContent(operator, operands);
+        else if(operator.equals(BeginInlineImage.Operator))
+          return BeginInlineImage.Value;
+        break;
+      case 'c':
+        if(operator.equals(DrawCurve.FullOperator))
+          return new DrawCurve(operator, operands);
+        else if(operator.equals(ModifyCTM.Operator))
+          return new ModifyCTM(operands);
+        else if(operator.equals(SetFillColorSpace.Operator))
+          return new SetFillColorSpace(operands);
+        break;
+      case 'C':
+        if(operator.equals(SetStrokeColorSpace.Operator))
+          return new SetStrokeColorSpace(operands);
+        break;
+      case 'd':
+        if(operator.equals(SetLineDash.Operator))
+          return new SetLineDash(operands);
+        break;
+      case 'D':
+        if(operator.equals(PaintXObject.Operator))
+          return new PaintXObject(operands);
+        else if(operator.equals(MarkedContentPoint.PropertyListOperator))
+          return new MarkedContentPoint(operator, operands);
+        break;
+      case 'E':
+        if(operator.equals(EndText.Operator))
+          return EndText.Value;
+        else if(operator.equals(EndMarkedContent.Operator))
+          return EndMarkedContent.Value;
+        else if(operator.equals(EndInlineImage.Operator))
+          return EndInlineImage.Value;
+        break;
+      case 'f':
+        if(operator.equals(PaintPath.FillOperator))
+          return PaintPath.Fill;
+        else if(operator.equals(PaintPath.FillEvenOddOperator))
+          return PaintPath.FillEvenOdd;
+        break;
+      case 'F':
+        if(operator.equals(PaintPath.FillObsoleteOperator))
+          return PaintPath.Fill;
+        break;
+      case 'g':
+        if(operator.equals(SetDeviceGrayFillColor.Operator))
+          return new SetDeviceGrayFillColor(operands);
+        else if(operator.equals(ApplyExtGState.Operator))
+          return new ApplyExtGState(operands);
+        break;
+      case 'G':
+        if(operator.equals(SetDeviceGrayStrokeColor.Operator))
+          return new SetDeviceGrayStrokeColor(operands);
+        break;
+      case 'h':
+        if(operator.equals(CloseSubpath.Operator))
+          return CloseSubpath.Value;
+        break;
+      case 'j':
+        if(operator.equals(SetLineJoin.Operator))
+          return new SetLineJoin(operands);
+        break;
+      case 'J':
+        if(operator.equals(SetLineCap.Operator))
+          return new SetLineCap(operands);
+        break;
+      case 'k':
+        if(operator.equals(SetDeviceCMYKFillColor.Operator))
+          return new SetDeviceCMYKFillColor(operands);
+        break;
+      case 'K':
+        if(operator.equals(SetDeviceCMYKStrokeColor.Operator))
+          return new SetDeviceCMYKStrokeColor(operands);
+        break;
+      case 'l':
+        if(operator.equals(DrawLine.Operator))
+          return new DrawLine(operands);
+        break;
+      case 'm':
+        if(operator.equals(BeginSubpath.Operator))
+          return new BeginSubpath(operands);
+        break;
+      case 'M':
+        if(operator.equals(SetMiterLimit.Operator))
+          return new SetMiterLimit(operands);
+        else if(operator.equals(MarkedContentPoint.SimpleOperator))
+          return new MarkedContentPoint(operator, operands);
+        break;
+      case 'n':
+        if(operator.equals(PaintPath.EndPathNoOpOperator))
+          return PaintPath.EndPathNoOp;
+        break;
+      case 'q':
+        if(operator.equals(SaveGraphicsState.Operator))
+          return SaveGraphicsState.Value;
+        break;
+      case 'Q':
+        if(operator.equals(RestoreGraphicsState.Operator))
+          return RestoreGraphicsState.Value;
+        break;
+      case 'r':
+        if(operator.equals(DrawRectangle.Operator))
+          return new DrawRectangle(operands);
+        else if(operator.equals(SetDeviceRGBFillColor.Operator))
+          return new SetDeviceRGBFillColor(operands);
+        break;
+      case 'R':
+        if(operator.equals(SetDeviceRGBStrokeColor.Operator))
+          return new SetDeviceRGBStrokeColor(operands);
+        break;
+      case 's':
+        if(operator.equals(PaintPath.CloseStrokeOperator))
+          return PaintPath.CloseStroke;
+        else if(operator.equals(SetFillColor.Operator)
+          || operator.equals(SetFillColor.ExtendedOperator))
+          return new SetFillColor(operator, operands);
+        else if(operator.equals(PaintShading.Operator))
+          return new PaintShading(operands);
+        break;
+      case 'S':
+        if(operator.equals(PaintPath.StrokeOperator))
+          return PaintPath.Stroke;
+        else if(operator.equals(SetStrokeColor.Operator)
+          || operator.equals(SetStrokeColor.ExtendedOperator))
+          return new SetStrokeColor(operator, operands);
+        break;
+      case 'T':
+        if(operator.equals(ShowSimpleText.Operator))
+          return new ShowSimpleText(operands);
+        else if(operator.equals(ShowAdjustedText.Operator))
+          return new ShowAdjustedText(operands, 0);
+        else if(operator.equals(TranslateTextRelative.SimpleOperator)
+          || operator.equals(TranslateTextRelative.LeadOperator))
+          return new TranslateTextRelative(operator, operands);
+        else if(operator.equals(TranslateTextToNextLine.Operator))
+          return TranslateTextToNextLine.Value;
+        else if(operator.equals(SetFont.Operator))
+          return new SetFont(operands);
+        else if(operator.equals(SetTextMatrix.Operator))
+          return new SetTextMatrix(operands);
+        else if(operator.equals(SetCharSpace.Operator))
+          return new SetCharSpace(operands);
+        else if(operator.equals(SetWordSpace.Operator))
+          return new SetWordSpace(operands);
+        else if(operator.equals(SetTextLead.Operator))
+          return new SetTextLead(operands);
+        else if(operator.equals(SetTextRise.Operator))
+          return new SetTextRise(operands);
+        else if(operator.equals(SetTextScale.Operator))
+          return new SetTextScale(operands);
+        else if(operator.equals(SetTextRenderMode.Operator))
+          return new SetTextRenderMode(operands);
+        break;
+      case 'v':
+      case 'y':
+        if(operator.equals(DrawCurve.FinalOperator)
+          || operator.equals(DrawCurve.InitialOperator))
+          return new DrawCurve(operator, operands);
+        break;
+      case 'w':
+        if(operator.equals(SetLineWidth.Operator))
+          return new SetLineWidth(operands);
+        break;
+      case 'W':
+        if(operator.equals(ModifyClipPath.NonZeroOperator))
+          return ModifyClipPath.NonZero;
+        else if(operator.equals(ModifyClipPath.EvenOddOperator))
+          return ModifyClipPath.EvenOdd;
+        break;
+      case '\'':
+        if(operator.equals(ShowTextToNextLine.SimpleOperator)
+          || operator.equals(ShowTextToNextLine.SpaceOperator))
+          return new ShowTextToNextLine(operator, operands);
+        break;
+      default:
+      {
+        /* NOOP */
+      }
+    }
+    // No explicit operation implementation available.
+    return new GenericOperation(operator, operands);
   }
   // </public>
   // </interface>
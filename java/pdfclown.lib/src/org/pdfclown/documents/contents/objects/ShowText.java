@@ -66,6 +66,123 @@ public abstract class ShowText
   }
   // </interfaces>
 
+  // <classes>
+  /**
+    Sequence of glyphs shown by a text-showing operation.
+    <p>Glyph data are kept in parallel primitive arrays, which grow as needed and are retained
+    across {@link ShowText#scanGlyphs(GraphicsState, GlyphRun) scans}: reusing the same instance
+    spares any per-glyph allocation. Glyph boxes are expressed in the same coordinate space as {@link
+    IScanner#scanChar(char, Rectangle2D) scanned character boxes} (top-left origin).</p>
+
+    @since 0.2.0
+  */
+  public static final class GlyphRun
+  {
+    private static final int DefaultCapacity = 64;
+
+    private double[] heights;
+    private int length;
+    private char[] values;
+    private double[] widths;
+    private double[] xs;
+    private double[] ys;
+
+    public GlyphRun(
+      )
+    {this(DefaultCapacity);}
+
+    /**
+      @param capacity Initial glyph capacity.
+    */
+    public GlyphRun(
+      int capacity
+      )
+    {
+      values = new char[capacity];
+      xs = new double[capacity];
+      ys = new double[capacity];
+      widths = new double[capacity];
+      heights = new double[capacity];
+    }
+
+    /**
+      Gets the box height of the glyph at the specified position.
+    */
+    public double getHeight(
+      int index
+      )
+    {return heights[index];}
+
+    /**
+      Gets the number of glyphs.
+    */
+    public int getLength(
+      )
+    {return length;}
+
+    /**
+      Gets the (Unicode) character of the glyph at the specified position.
+    */
+    public char getValue(
+      int index
+      )
+    {return values[index];}
+
+    /**
+      Gets the box width of the glyph at the specified position.
+    */
+    public double getWidth(
+      int index
+      )
+    {return widths[index];}
+
+    /**
+      Gets the box left coordinate of the glyph at the specified position.
+    */
+    public double getX(
+      int index
+      )
+    {return xs[index];}
+
+    /**
+      Gets the box top coordinate of the glyph at the specified position.
+    */
+    public double getY(
+      int index
+      )
+    {return ys[index];}
+
+    private void add(
+      char value,
+      double x,
+      double y,
+      double width,
+      double height
+      )
+    {
+      if(length == values.length)
+      {
+        int capacity = Math.max(length * 2, DefaultCapacity);
+        values = Arrays.copyOf(values, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        widths = Arrays.copyOf(widths, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+      }
+      values[length] = value;
+      xs[length] = x;
+      ys[length] = y;
+      widths[length] = width;
+      heights[length] = height;
+      length++;
+    }
+
+    private void clear(
+      )
+    {length = 0;}
+  }
+  // </classes>
+
   // <dynamic>
   // <constructors>
   protected ShowText(
@@ -129,6 +246,65 @@ public abstract class ShowText
     ContentScanner.GraphicsState state,
     IScanner textScanner
     )
+  {scan(state, textScanner, null);}
+
+  /**
+    Collects the glyphs shown by this operation, without applying it to the graphics state context.
+    <p>Unlike {@link #scan(GraphicsState, IScanner)}, no object is allocated per glyph: this makes it
+    suitable for bulk text processing (such as text extraction).</p>
+
+    @param state Graphics state context.
+    @param glyphRun Glyph run to fill (its previous contents are discarded); in case it's null, a new
+      one is created.
+    @return Filled glyph run.
+    @since 0.2.0
+  */
+  public GlyphRun scanGlyphs(
+    ContentScanner.GraphicsState state,
+    GlyphRun glyphRun
+    )
+  {
+    if(glyphRun == null)
+    {glyphRun = new GlyphRun();}
+    else
+    {glyphRun.clear();}
+    scan(state, null, glyphRun);
+    return glyphRun;
+  }
+
+  /**
+    @see #getText()
+  */
+  public abstract void setText(
+    byte[] value
+    );
+
+  /**
+    @see #getValue()
+  */
+  public void setValue(
+    List<Object> value
+    )
+  {setText((byte[])value.get(0));}
+  // </public>
+
+  // <private>
+  /**
+    Executes scanning on this operation.
+    <p>Text matrices are evaluated component-wise (following the same arithmetic as {@link
+    AffineTransform}), as cloning and concatenating them for each glyph is way too expensive.</p>
+
+    @param state Graphics state context.
+    @param textScanner Scanner to be notified about text contents.
+    @param glyphRun Glyph run to be filled with text contents.
+      In case both <code>textScanner</code> and <code>glyphRun</code> are null, the operation is
+      applied to the graphics state context.
+  */
+  private void scan(
+    ContentScanner.GraphicsState state,
+    IScanner textScanner,
+    GlyphRun glyphRun
+    )
   {
     /*
       TODO: I really dislike this solution -- it's a temporary hack until the event-driven
@@ -137,6 +313,7 @@ public abstract class ShowText
     /*
       TODO: support to vertical writing mode.
     */
+    boolean scanning = (textScanner != null || glyphRun != null);
 
     double contextHeight = state.getScanner().getContextSize().getHeight();
     Font font = state.getFont();
@@ -145,15 +322,15 @@ public abstract class ShowText
     boolean wordSpaceSupported = !(font instanceof CompositeFont);
     double wordSpace = wordSpaceSupported ? state.getWordSpace() * state.getScale() : 0;
     double charSpace = state.getCharSpace() * state.getScale();
-    AffineTransform ctm = (AffineTransform)state.getCtm().clone();
-    AffineTransform tm;
+    // Text matrix components.
+    double tm00, tm10, tm01, tm11, tm02, tm12;
     if(this instanceof ShowTextToNextLine)
     {
       ShowTextToNextLine showTextToNextLine = (ShowTextToNextLine)this;
       Double newWordSpace = showTextToNextLine.getWordSpace();
       if(newWordSpace != null)
       {
-        if(textScanner == null)
+        if(!scanning)
         {state.setWordSpace(newWordSpace);}
         if(wordSpaceSupported)
         {wordSpace = newWordSpace * state.getScale();}
@@ -161,77 +338,99 @@ public abstract class ShowText
       Double newCharSpace = showTextToNextLine.getCharSpace();
       if(newCharSpace != null)
       {
-        if(textScanner == null)
+        if(!scanning)
         {state.setCharSpace(newCharSpace);}
         charSpace = newCharSpace * state.getScale();
       }
-      tm = (AffineTransform)state.getTlm().clone();
-      tm.concatenate(new AffineTransform(1, 0, 0, 1, 0, -state.getLead()));
+      AffineTransform tlm = state.getTlm();
+      tm00 = tlm.getScaleX(); tm10 = tlm.getShearY(); tm01 = tlm.getShearX(); tm11 = tlm.getScaleY();
+      // Move to the start of the next line (see TranslateTextToNextLine)!
+      double lead = -state.getLead();
+      tm02 = lead * tm01 + tlm.getTranslateX();
+      tm12 = lead * tm11 + tlm.getTranslateY();
     }
     else
-    {tm = (AffineTransform)state.getTm().clone();}
+    {
+      AffineTransform tm = state.getTm();
+      tm00 = tm.getScaleX(); tm10 = tm.getShearY(); tm01 = tm.getShearX(); tm11 = tm.getScaleY();
+      tm02 = tm.getTranslateX(); tm12 = tm.getTranslateY();
+    }
+
+    // Current transformation matrix components.
+    double ctm00 = 0, ctm10 = 0, ctm01 = 0, ctm11 = 0, ctm02 = 0, ctm12 = 0;
+    // Text rendering matrix scaling components (glyph displacements don't affect them).
+    double trm00 = 0, trm11 = 0;
+    double ascent = 0;
+    if(scanning)
+    {
+      AffineTransform ctm = state.getCtm();
+      ctm00 = ctm.getScaleX(); ctm10 = ctm.getShearY(); ctm01 = ctm.getShearX(); ctm11 = ctm.getScaleY();
+      ctm02 = ctm.getTranslateX(); ctm12 = ctm.getTranslateY();
+      trm00 = tm00 * ctm00 + tm10 * ctm01;
+      trm11 = tm01 * ctm10 + tm11 * ctm11;
+      ascent = font.getAscent(fontSize);
+    }
 
     for(Object textElement : getValue())
     {
       if(textElement instanceof byte[]) // Text string.
       {
         String textString = font.decode((byte[])textElement);
-        for(char textChar : textString.toCharArray())
+        for(int index = 0, length = textString.length(); index < length; index++)
         {
+          char textChar = textString.charAt(index);
           double charWidth = font.getWidth(textChar) * scaledFactor;
 
-          if(textScanner != null)
+          if(scanning)
           {
             /*
               NOTE: The text rendering matrix is recomputed before each glyph is painted
               during a text-showing operation.
             */
-            AffineTransform trm = (AffineTransform)ctm.clone(); trm.concatenate(tm);
-            double charHeight = font.getHeight(textChar,fontSize);
-            Rectangle2D charBox = new Rectangle2D.Double(
-              trm.getTranslateX(),
-              contextHeight - trm.getTranslateY() - font.getAscent(fontSize) * trm.getScaleY(),
-              charWidth * trm.getScaleX(),
-              charHeight * trm.getScaleY()
-              );
-            textScanner.scanChar(textChar,charBox);
+            double trm02 = ctm02 + (tm02 * ctm00 + tm12 * ctm01);
+            double trm12 = ctm12 + (tm02 * ctm10 + tm12 * ctm11);
+            double charX = trm02;
+            double charY = contextHeight - trm12 - ascent * trm11;
+            double charBoxWidth = charWidth * trm00;
+            double charBoxHeight = font.getHeight(textChar, fontSize) * trm11;
+            if(glyphRun != null)
+            {glyphRun.add(textChar, charX, charY, charBoxWidth, charBoxHeight);}
+            if(textScanner != null)
+            {
+              textScanner.scanChar(
+                textChar,
+                new Rectangle2D.Double(charX, charY, charBoxWidth, charBoxHeight)
+                );
+            }
           }
 
           /*
             NOTE: After the glyph is painted, the text matrix is updated
             according to the glyph displacement and any applicable spacing parameter.
           */
-          tm.translate(charWidth + charSpace + (textChar == ' ' ? wordSpace : 0), 0);
+          double charDisplacement = charWidth + charSpace + (textChar == ' ' ? wordSpace : 0);
+          tm02 = charDisplacement * tm00 + tm02;
+          tm12 = charDisplacement * tm10 + tm12;
         }
       }
       else // Text position adjustment.
-      {tm.translate(-((Number)textElement).doubleValue() * scaledFactor, 0);}
+      {
+        double adjustment = -((Number)textElement).doubleValue() * scaledFactor;
+        tm02 = adjustment * tm00 + tm02;
+        tm12 = adjustment * tm10 + tm12;
+      }
     }
 
-    if(textScanner == null)
+    if(!scanning)
     {
+      AffineTransform tm = new AffineTransform(tm00, tm10, tm01, tm11, tm02, tm12);
       state.setTm(tm);
 
       if(this instanceof ShowTextToNextLine)
       {state.setTlm((AffineTransform)tm.clone());}
     }
   }
-
-  /**
-    @see #getText()
-  */
-  public abstract void setText(
-    byte[] value
-    );
-
-  /**
-    @see #getValue()
-  */
-  public void setValue(
-    List<Object> value
-    )
-  {setText((byte[])value.get(0));}
-  // </public>
+  // </private>
   // </interface>
   // </dynamic>
   // </class>
@@ -75,6 +75,13 @@ public final class ContentParser
 {
   // <class>
   // <dynamic>
+  // <fields>
+  /**
+    Operands of the operation being parsed.
+  */
+  private final List<PdfDirectObject> operandBuffer = new ArrayList<PdfDirectObject>();
+  // </fields>
+
   // <constructors>
   public ContentParser(
     IInputStream stream
@@ -145,52 +152,9 @@ public final class ContentParser
   }
 
   /**
-    Parses the next operation.
+    Parses the inline image following its begin operation (see {@link BeginInlineImage}).
   */
-  public Operation parseOperation(
-    )
-  {
-    String operator = null;
-    final List<PdfDirectObject> operands = new ArrayList<PdfDirectObject>();
-    // Parsing the operation parts...
-    do
-    {
-      switch(getTokenType())
-      {
-        case Keyword:
-          operator = (String)getToken();
-          break;
-        default:
-          operands.add(parsePdfObject());
-          break;
-      }
-    } while(operator == null && moveNext());
-    return Operation.get(operator,operands);
-  }
-
-  @Override
-  public PdfDirectObject parsePdfObject(
-    )
-  {
-    switch(getTokenType())
-    {
-      case Literal:
-        if(getToken() instanceof String)
-          return new PdfByteString(Encoding.Pdf.encode((String)getToken()));
-        break;
-      case Hex:
-        return new PdfByteString((String)getToken());
-      default:
-      {
-        /* NOOP */
-      }
-    }
-    return (PdfDirectObject)super.parsePdfObject();
-  }
-  // </public>
-
-  // <private>
-  private InlineImage parseInlineImage(
+  public InlineImage parseInlineImage(
     )
   {
     InlineImageHeader header;
@@ -271,6 +235,60 @@ public final class ContentParser
     return new InlineImage(header, body);
   }
 
+  /**
+    Parses the next operation.
+  */
+  public Operation parseOperation(
+    )
+  {
+    String operator = null;
+    /*
+      NOTE: Operands are collected into a reusable buffer, then copied into a list sized to their
+      actual count (most operations have just a few of them).
+    */
+    final List<PdfDirectObject> operands = operandBuffer;
+    operands.clear();
+    // Parsing the operation parts...
+    do
+    {
+      switch(getTokenType())
+      {
+        case Keyword:
+          operator = (String)getToken();
+          break;
+        default:
+          operands.add(parsePdfObject());
+          break;
+      }
+    } while(operator == null && moveNext());
+    return Operation.get(
+      operator,
+      operands.isEmpty() ? new ArrayList<PdfDirectObject>(0) : new ArrayList<PdfDirectObject>(operands)
+      );
+  }
+
+  @Override
+  public PdfDirectObject parsePdfObject(
+    )
+  {
+    switch(getTokenType())
+    {
+      case Literal:
+        if(getToken() instanceof String)
+          return new PdfByteString(Encoding.Pdf.encode((String)getToken()));
+        break;
+      case Hex:
+        return new PdfByteString((String)getToken());
+      default:
+      {
+        /* NOOP */
+      }
+    }
+    return (PdfDirectObject)super.parsePdfObject();
+  }
+  // </public>
+
+  // <private>
   private Path parsePath(
     Operation beginOperation
     )
@@ -30,6 +30,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
+import java.util.Map;
 import java.util.Random;
 
 import org.pdfclown.Version;
@@ -38,8 +39,10 @@ import org.pdfclown.bytes.Buffer;
 import org.pdfclown.bytes.FileInputStream;
 import org.pdfclown.bytes.IInputStream;
 import org.pdfclown.bytes.IOutputStream;
+import org.pdfclown.bytes.MappedFileInputStream;
 import org.pdfclown.bytes.OutputStream;
 import org.pdfclown.documents.Document;
+import org.pdfclown.documents.contents.fonts.CompositeFont;
 import org.pdfclown.documents.interchange.metadata.Information;
 import org.pdfclown.objects.Cloner;
 import org.pdfclown.objects.PdfDataObject;
@@ -91,6 +94,7 @@ public final class File
   private final IndirectObjects indirectObjects;
   private String path;
   private Reader reader;
+  private boolean renumbered;
   private final PdfDictionary trailer;
   private final Version version;
 
@@ -111,10 +115,14 @@ public final class File
     String path
     ) throws java.io.FileNotFoundException
   {
+    /*
+      NOTE: The file is mapped only if it can be explicitly unmapped on closing, as it may have to be
+      replaced (see close() method), which is forbidden to mapped files on some platforms.
+    */
     this(
-      new FileInputStream(
-        new java.io.RandomAccessFile(path,"r")
-        )
+      MappedFileInputStream.isUnmappingSupported()
+        ? new MappedFileInputStream(new java.io.RandomAccessFile(path,"r"))
+        : new FileInputStream(new java.io.RandomAccessFile(path,"r"))
       );
     this.path = path;
   }
@@ -146,7 +154,7 @@ public final class File
     if(trailer.containsKey(PdfName.Encrypt)) // Encrypted file.
       throw new NotImplementedException("Encrypted files are currently not supported.");
 
-    indirectObjects = new IndirectObjects(this, info.getXrefEntries());
+    indirectObjects = new IndirectObjects(this, info.getXrefEntryTable());
     document = new Document(trailer.get(PdfName.Root));
     getConfiguration().setXRefMode(PdfName.XRef.equals(trailer.get(PdfName.Type)) ? XRefModeEnum.Compressed : XRefModeEnum.Plain);
   }
@@ -154,6 +162,43 @@ public final class File
 
   // <interface>
   // <public>
+  /**
+    Appends the file update to the end of its source file, in place.
+    <p>Unlike the {@link SerializationModeEnum#Incremental incremental serialization} to the current
+    path (see {@link #save(SerializationModeEnum)}), the original content is neither copied nor
+    rewritten: just the update section is written, so the cost of the operation depends on the size
+    of the changes only.</p>
+    <p>As this file keeps reading its source as it was when opened, it should be reopened before
+    appending further updates.</p>
+  */
+  public void append(
+    ) throws IOException
+  {
+    if(reader == null || path == null || !new java.io.File(path).exists())
+      throw new FileNotFoundException("No valid source path available.");
+
+    OutputStream outputStream;
+    try
+    {
+      // NOTE: In append mode, the file channel is positioned at the end of the file.
+      java.io.FileOutputStream fileStream = new java.io.FileOutputStream(path, true);
+      outputStream = new OutputStream(new java.io.BufferedOutputStream(fileStream), fileStream.getChannel());
+    }
+    catch(Exception e)
+    {throw new IOException(path + " file opening failed.", e);}
+    try
+    {
+      Writer writer = Writer.get(this, outputStream);
+      writer.setInPlace(true);
+      save(writer, SerializationModeEnum.Incremental);
+      outputStream.close();
+    }
+    catch(Exception e)
+    {throw new IOException(path + " file update failed.", e);}
+    finally
+    {IOUtils.closeQuietly(outputStream);}
+  }
+
   /**
     Gets the default cloner.
   */
@@ -231,6 +276,16 @@ public final class File
     )
   {return hashCode;}
 
+  /**
+    Gets whether the indirect objects are temporarily renumbered for serialization (see
+    linearization), so that references have to be written after the current numbers of the objects
+    they point to.
+    <p><span style="color:red">For internal use only.</span></p>
+  */
+  public boolean isRenumbered(
+    )
+  {return renumbered;}
+
   /**
     Gets whether the initial state of this file has been modified.
   */
@@ -308,7 +363,8 @@ public final class File
     try
     {
       file.createNewFile();
-      outputStream = new OutputStream(new java.io.BufferedOutputStream(new java.io.FileOutputStream(file)));
+      java.io.FileOutputStream fileStream = new java.io.FileOutputStream(file);
+      outputStream = new OutputStream(new java.io.BufferedOutputStream(fileStream), fileStream.getChannel());
     }
     catch(Exception e)
     {throw new IOException(file.getPath() + " file creation failed.", e);}
@@ -348,7 +404,26 @@ public final class File
     IOutputStream stream,
     SerializationModeEnum mode
     )
+  {save(Writer.get(this, stream), mode);}
+
+  /**
+    Serializes the file through the specified writer.
+    <p>It's caller responsibility to close the writer's stream after this method ends.</p>
+
+    @param writer
+      Target writer (for example, a {@link org.pdfclown.tokens.StreamingWriter streaming writer}).
+    @param mode
+      Serialization mode.
+    @since 0.2.0
+  */
+  public void save(
+    Writer writer,
+    SerializationModeEnum mode
+    )
   {
+    if(writer.getFile() != this)
+      throw new IllegalArgumentException("Writer MUST be associated to this file.");
+
     Information information = getDocument().getInformation();
     if(getReader() == null)
     {
@@ -364,7 +439,28 @@ public final class File
     else
     {information.setModificationDate(new Date());}
 
-    Writer writer = Writer.get(this, stream);
+    if(getDocument().getConfiguration().isFontSubsettingEnabled())
+    {
+      /*
+        NOTE: Fonts in the default resources of the interactive form are used by viewers to generate
+        field appearances from any text, so they are kept whole.
+      */
+      PdfDictionary formFonts = null;
+      {
+        PdfDictionary form = (PdfDictionary)getDocument().getBaseDataObject().resolve(PdfName.AcroForm);
+        PdfDictionary formResources = (form != null ? (PdfDictionary)form.resolve(PdfName.DR) : null);
+        if(formResources != null)
+        {formFonts = (PdfDictionary)formResources.resolve(PdfName.Font);}
+      }
+      // Embed only the glyphs actually used by the fonts created from font files!
+      for(Map.Entry<PdfReference,Object> cacheEntry : getDocument().cache.entrySet())
+      {
+        if(cacheEntry.getValue() instanceof CompositeFont
+          && (formFonts == null || !formFonts.containsValue(cacheEntry.getKey())))
+        {((CompositeFont)cacheEntry.getValue()).subset();}
+      }
+    }
+
     writer.write(mode);
   }
 
@@ -384,6 +480,16 @@ public final class File
     )
   {path = value;}
 
+  /**
+    <span style="color:red">For internal use only.</span>
+
+    @see #isRenumbered()
+  */
+  public void setRenumbered(
+    boolean value
+    )
+  {renumbered = value;}
+
   /**
     Unregisters an <b>internal object</b>.
 
@@ -411,8 +517,9 @@ public final class File
       if(sourceFile.exists())
       {
         java.io.File targetFile = new java.io.File(path);
-        targetFile.delete();
-        sourceFile.renameTo(targetFile);
+        if(!((!targetFile.exists() || targetFile.delete())
+          && sourceFile.renameTo(targetFile)))
+          throw new IOException(path + " file replacement failed (saved content is available at " + sourceFile.getPath() + ").");
       }
     }
   }
@@ -27,6 +27,8 @@ package org.pdfclown.files;
 
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.Deflater;
 
 import org.pdfclown.util.StringUtils;
 
@@ -39,9 +41,32 @@ import org.pdfclown.util.StringUtils;
 */
 public final class FileConfiguration
 {
+  // <static>
+  // <fields>
+  /**
+    Default maximum number of objects in individual object streams.
+  */
+  public static final int DefaultObjectStreamMaxEntryCount = 100;
+  /**
+    Default maximum number of PDF stream objects encoded in advance of their serialization.
+  */
+  public static final int DefaultStreamEncodingLookAhead = 16;
+  /**
+    Object cache size corresponding to no bound.
+  */
+  public static final int UnboundedObjectCacheSize = -1;
+  // </fields>
+  // </static>
+
   // <dynamic>
   // <fields>
+  private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+  private int objectCacheSize = UnboundedObjectCacheSize;
+  private int objectStreamMaxEntryCount = DefaultObjectStreamMaxEntryCount;
+  private ObjectStreamPackingEnum objectStreamPacking = ObjectStreamPackingEnum.PageLocality;
   private DecimalFormat realFormat;
+  private ExecutorService streamEncodingExecutor;
+  private int streamEncodingLookAhead = DefaultStreamEncodingLookAhead;
   private boolean streamFilterEnabled;
   private XRefModeEnum xrefMode = XRefModeEnum.Plain;
 
@@ -62,6 +87,17 @@ public final class FileConfiguration
 
   // <interface>
   // <public>
+  /**
+    Gets the compression level applied to PDF stream objects when {@link #isStreamFilterEnabled()
+    filtered}.
+
+    @return From {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}; {@link
+      Deflater#DEFAULT_COMPRESSION} (default) for the zlib default trade-off.
+  */
+  public int getCompressionLevel(
+    )
+  {return compressionLevel;}
+
   /**
     Gets the file associated with this configuration.
   */
@@ -69,6 +105,43 @@ public final class FileConfiguration
     )
   {return file;}
 
+  /**
+    Gets the maximum number of unmodified original data objects strongly retained in memory.
+    <p>Beyond this size, the least-recently-used original data objects are just softly retained,
+    so that they can be reclaimed on memory shortage and parsed again from the file when required.
+    Modified objects are always retained.</p>
+
+    @return {@link #UnboundedObjectCacheSize} (default), if original data objects are never
+      released.
+  */
+  public int getObjectCacheSize(
+    )
+  {return objectCacheSize;}
+
+  /**
+    Gets the maximum number of objects in individual object streams, when the file is serialized
+    with {@link XRefModeEnum#Compressed compressed} cross-reference.
+    <p>Smaller object streams are cheaper to decode on random access, larger ones compress better.
+    </p>
+
+    @return {@link #DefaultObjectStreamMaxEntryCount} (default).
+  */
+  public int getObjectStreamMaxEntryCount(
+    )
+  {return objectStreamMaxEntryCount;}
+
+  /**
+    Gets how compressible objects are distributed across object streams, when the file is
+    serialized with {@link XRefModeEnum#Compressed compressed} cross-reference.
+    <p>Objects which already belong to an object stream of the original file keep their position.
+    </p>
+
+    @return {@link ObjectStreamPackingEnum#PageLocality} (default).
+  */
+  public ObjectStreamPackingEnum getObjectStreamPacking(
+    )
+  {return objectStreamPacking;}
+
   public DecimalFormat getRealFormat(
     )
   {return realFormat;}
@@ -80,6 +153,31 @@ public final class FileConfiguration
     )
   {return realFormat.getMaximumFractionDigits();}
 
+  /**
+    Gets the executor on which PDF stream objects are encoded during serialization.
+    <p>When defined, the stream bodies to filter are submitted for compression ahead of the
+    serialization (see {@link #getStreamEncodingLookAhead()}), so that they are encoded concurrently
+    while the serialization itself proceeds sequentially in the usual object order. The executor is
+    not shut down by the library.</p>
+
+    @return <code>null</code> (default), if stream bodies are encoded sequentially while serializing.
+  */
+  public ExecutorService getStreamEncodingExecutor(
+    )
+  {return streamEncodingExecutor;}
+
+  /**
+    Gets the maximum number of PDF stream objects whose bodies are encoded in advance of their
+    serialization, when a {@link #getStreamEncodingExecutor() stream encoding executor} is defined.
+    <p>As both the raw and the encoded bodies of these streams are kept in memory until their
+    serialization, this limit bounds the memory footprint of concurrent encoding.</p>
+
+    @return {@link #DefaultStreamEncodingLookAhead} (default).
+  */
+  public int getStreamEncodingLookAhead(
+    )
+  {return streamEncodingLookAhead;}
+
   /**
     Gets the document's cross-reference mode.
   */
@@ -94,6 +192,58 @@ public final class FileConfiguration
     )
   {return streamFilterEnabled;}
 
+  /**
+    @see #getCompressionLevel()
+  */
+  public void setCompressionLevel(
+    int value
+    )
+  {
+    if(value < Deflater.DEFAULT_COMPRESSION || value > Deflater.BEST_COMPRESSION)
+      throw new IllegalArgumentException("Invalid compression level: " + value);
+
+    compressionLevel = value;
+  }
+
+  /**
+    @see #getObjectCacheSize()
+  */
+  public void setObjectCacheSize(
+    int value
+    )
+  {
+    objectCacheSize = (value < 0 ? UnboundedObjectCacheSize : value);
+    IndirectObjects indirectObjects = file.getIndirectObjects();
+    if(indirectObjects != null)
+    {indirectObjects.trimCache();}
+  }
+
+  /**
+    @see #getObjectStreamMaxEntryCount()
+  */
+  public void setObjectStreamMaxEntryCount(
+    int value
+    )
+  {
+    if(value < 1)
+      throw new IllegalArgumentException("Invalid object stream entry count: " + value);
+
+    objectStreamMaxEntryCount = value;
+  }
+
+  /**
+    @see #getObjectStreamPacking()
+  */
+  public void setObjectStreamPacking(
+    ObjectStreamPackingEnum value
+    )
+  {
+    if(value == null)
+      throw new IllegalArgumentException("Object stream packing MUST be defined.");
+
+    objectStreamPacking = value;
+  }
+
   /**
     @see #getRealPrecision()
   */
@@ -106,6 +256,27 @@ public final class FileConfiguration
     realFormat = new DecimalFormat("0." + StringUtils.repeat("#", value <= 0 ? 5 : value), symbols);
   }
 
+  /**
+    @see #getStreamEncodingExecutor()
+  */
+  public void setStreamEncodingExecutor(
+    ExecutorService value
+    )
+  {streamEncodingExecutor = value;}
+
+  /**
+    @see #getStreamEncodingLookAhead()
+  */
+  public void setStreamEncodingLookAhead(
+    int value
+    )
+  {
+    if(value < 1)
+      throw new IllegalArgumentException("Invalid stream encoding look-ahead: " + value);
+
+    streamEncodingLookAhead = value;
+  }
+
   /**
     @see #isStreamFilterEnabled()
   */
@@ -122,6 +293,50 @@ public final class FileConfiguration
     )
   {file.getDocument().checkCompatibility(xrefMode = value);}
 
+  /**
+    @see #setCompressionLevel(int)
+  */
+  public FileConfiguration withCompressionLevel(
+    int value
+    )
+  {
+    setCompressionLevel(value);
+    return this;
+  }
+
+  /**
+    @see #setObjectCacheSize(int)
+  */
+  public FileConfiguration withObjectCacheSize(
+    int value
+    )
+  {
+    setObjectCacheSize(value);
+    return this;
+  }
+
+  /**
+    @see #setObjectStreamMaxEntryCount(int)
+  */
+  public FileConfiguration withObjectStreamMaxEntryCount(
+    int value
+    )
+  {
+    setObjectStreamMaxEntryCount(value);
+    return this;
+  }
+
+  /**
+    @see #setObjectStreamPacking(ObjectStreamPackingEnum)
+  */
+  public FileConfiguration withObjectStreamPacking(
+    ObjectStreamPackingEnum value
+    )
+  {
+    setObjectStreamPacking(value);
+    return this;
+  }
+
   /**
     @see #setRealPrecision(int)
   */
@@ -133,6 +348,28 @@ public final class FileConfiguration
     return this;
   }
 
+  /**
+    @see #setStreamEncodingExecutor(ExecutorService)
+  */
+  public FileConfiguration withStreamEncodingExecutor(
+    ExecutorService value
+    )
+  {
+    setStreamEncodingExecutor(value);
+    return this;
+  }
+
+  /**
+    @see #setStreamEncodingLookAhead(int)
+  */
+  public FileConfiguration withStreamEncodingLookAhead(
+    int value
+    )
+  {
+    setStreamEncodingLookAhead(value);
+    return this;
+  }
+
   /**
     @see #setStreamFilterEnabled(boolean)
   */
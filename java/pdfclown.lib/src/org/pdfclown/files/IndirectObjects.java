@@ -29,16 +29,18 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 import org.pdfclown.objects.Cloner;
 import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfIndirectObject;
 import org.pdfclown.tokens.XRefEntry;
+import org.pdfclown.tokens.XRefEntryTable;
+import org.pdfclown.util.IntArrayMap;
 import org.pdfclown.util.NotImplementedException;
 
 /**
@@ -83,12 +85,39 @@ public final class IndirectObjects
   /**
     Collection of newly-registered indirect objects.
   */
-  private final TreeMap<Integer,PdfIndirectObject> modifiedObjects = new TreeMap<Integer,PdfIndirectObject>();
+  private final IntArrayMap<PdfIndirectObject> modifiedObjects = new IntArrayMap<PdfIndirectObject>();
   /**
     Collection of instantiated original indirect objects.
     <p>This collection is used as a cache to avoid unconsistent parsing duplications.</p>
   */
-  private final TreeMap<Integer,PdfIndirectObject> wokenObjects = new TreeMap<Integer,PdfIndirectObject>();
+  private final IntArrayMap<PdfIndirectObject> wokenObjects;
+  /**
+    Data objects of original indirect objects strongly retained in case of {@link
+    FileConfiguration#getObjectCacheSize() bounded object cache}.
+    <p>Entries are kept in access order, so that the least-recently-used ones are evicted first.
+    </p>
+  */
+  private final LinkedHashMap<Integer,PdfDataObject> retainedObjects = new LinkedHashMap<Integer,PdfDataObject>(16, .75f, true)
+  {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(
+      Map.Entry<Integer,PdfDataObject> eldest
+      )
+    {
+      int objectCacheSize = file.getConfiguration().getObjectCacheSize();
+      if(objectCacheSize == FileConfiguration.UnboundedObjectCacheSize
+        || size() <= objectCacheSize)
+        return false;
+
+      cacheEvictionCount++;
+      return true;
+    }
+  };
+  private long cacheEvictionCount;
+  private long cacheHitCount;
+  private long cacheMissCount;
 
   /**
     Object counter.
@@ -100,17 +129,20 @@ public final class IndirectObjects
     <p>This information is vital to randomly retrieve the indirect-object persistent
     representation inside the associated file.</p>
   */
-  private final SortedMap<Integer,XRefEntry> xrefEntries;
+  private final XRefEntryTable xrefEntries;
   // </fields>
 
   // <constructors>
   IndirectObjects(
     File file,
-    SortedMap<Integer,XRefEntry> xrefEntries
+    XRefEntryTable xrefEntries
     )
   {
     this.file = file;
     this.xrefEntries = xrefEntries;
+    wokenObjects = (xrefEntries != null
+      ? new IntArrayMap<PdfIndirectObject>(xrefEntries.getCount())
+      : new IntArrayMap<PdfIndirectObject>());
     if(this.xrefEntries == null) // No original indirect objects.
     {
       // Register the leading free-object!
@@ -136,7 +168,7 @@ public final class IndirectObjects
     else
     {
       // Adjust the object counter!
-      lastObjectNumber = xrefEntries.lastKey();
+      lastObjectNumber = xrefEntries.getLastNumber();
     }
   }
   // </constructors>
@@ -229,6 +261,34 @@ public final class IndirectObjects
     return addedObjects;
   }
 
+  /**
+    Gets the number of original data objects evicted from the object cache.
+
+    @see FileConfiguration#getObjectCacheSize()
+  */
+  public long getCacheEvictionCount(
+    )
+  {return cacheEvictionCount;}
+
+  /**
+    Gets the number of original data objects served by the object cache.
+
+    @see FileConfiguration#getObjectCacheSize()
+  */
+  public long getCacheHitCount(
+    )
+  {return cacheHitCount;}
+
+  /**
+    Gets the number of original data objects which had to be parsed from the file, as missing from
+    the object cache.
+
+    @see FileConfiguration#getObjectCacheSize()
+  */
+  public long getCacheMissCount(
+    )
+  {return cacheMissCount;}
+
   /**
     Gets the file associated to this collection.
   */
@@ -251,8 +311,12 @@ public final class IndirectObjects
     )
   {throw new UnsupportedOperationException();}
 
+  /*
+    NOTE: Synchronized as original objects are lazily awoken, so that concurrent readers share the
+    same instances (see PdfIndirectObject.getDataObject()).
+  */
   @Override
-  public PdfIndirectObject get(
+  public synchronized PdfIndirectObject get(
     int index
     )
   {
@@ -266,6 +330,9 @@ public final class IndirectObjects
     PdfIndirectObject object = modifiedObjects.get(index);
     if(object == null)
     {
+      if(xrefEntries == null) // New file (flushed object, see flush(PdfIndirectObject)).
+        return null;
+
       object = wokenObjects.get(index);
       if(object == null)
       {
@@ -279,15 +346,8 @@ public final class IndirectObjects
             do not actually occur in the file. However, for resilience purposes missing entries are
             treated as free ones.
           */
-          xrefEntries.put(
-            index,
-            xrefEntry = new XRefEntry(
-              index,
-              XRefEntry.GenerationUnreusable,
-              0,
-              XRefEntry.UsageEnum.Free
-              )
-            );
+          xrefEntries.put(index, XRefEntry.GenerationUnreusable, 0, XRefEntry.UsageEnum.Free);
+          xrefEntry = xrefEntries.get(index);
         }
 
         // Awake the object!
@@ -575,13 +635,89 @@ public final class IndirectObjects
     return object;
   }
 
+  /**
+    Releases the specified new indirect object, once it has been serialized by a streaming writer
+    (see {@link org.pdfclown.tokens.StreamingWriter}): its data object is dropped and the object is
+    no more tracked by this collection, so that both can be reclaimed.
+    <p><span style="color:red">For internal use only.</span></p>
+  */
+  public void flush(
+    PdfIndirectObject object
+    )
+  {
+    modifiedObjects.remove(object.getXrefEntry().getNumber());
+    object.dropDataObject();
+  }
+
   /**
     <span style="color:red">For internal use only.</span>
   */
-  public TreeMap<Integer,PdfIndirectObject> getModifiedObjects(
+  public IntArrayMap<PdfIndirectObject> getModifiedObjects(
     )
   {return modifiedObjects;}
 
+  /**
+    Gets whether original data objects are subject to the bounded object cache.
+    <p><span style="color:red">For internal use only.</span></p>
+  */
+  public boolean isCacheBounded(
+    )
+  {return file.getConfiguration().getObjectCacheSize() != FileConfiguration.UnboundedObjectCacheSize;}
+
+  /**
+    Releases the data object of the specified original indirect object from the object cache.
+    <p><span style="color:red">For internal use only.</span></p>
+  */
+  public void release(
+    PdfIndirectObject object
+    )
+  {retainedObjects.remove(object.getXrefEntry().getNumber());}
+
+  /**
+    Retains the data object of the specified original indirect object in the object cache.
+    <p>In case of unbounded object cache, just the statistics are updated.</p>
+    <p><span style="color:red">For internal use only.</span></p>
+
+    @param object Original indirect object.
+    @param dataObject Data object of the indirect object.
+    @param parsed Whether the data object has just been parsed (cache miss).
+  */
+  public void retain(
+    PdfIndirectObject object,
+    PdfDataObject dataObject,
+    boolean parsed
+    )
+  {
+    if(parsed)
+    {cacheMissCount++;}
+    else
+    {cacheHitCount++;}
+    if(!isCacheBounded())
+      return;
+
+    retainedObjects.put(object.getXrefEntry().getNumber(), dataObject);
+  }
+
+  /**
+    Evicts the exceeding entries from the object cache.
+    <p><span style="color:red">For internal use only.</span></p>
+  */
+  public void trimCache(
+    )
+  {
+    int objectCacheSize = file.getConfiguration().getObjectCacheSize();
+    if(objectCacheSize == FileConfiguration.UnboundedObjectCacheSize)
+      return;
+
+    Iterator<Integer> retainedObjectsIterator = retainedObjects.keySet().iterator();
+    while(retainedObjects.size() > objectCacheSize)
+    {
+      retainedObjectsIterator.next();
+      retainedObjectsIterator.remove();
+      cacheEvictionCount++;
+    }
+  }
+
   /**
     <span style="color:red">For internal use only.</span>
   */
@@ -600,6 +736,7 @@ public final class IndirectObjects
     modifiedObjects.put(index,object);
     // Remove old indirect object from cache!
     wokenObjects.remove(index);
+    retainedObjects.remove(index);
     // Mark the new indirect object as modified!
     object.dropOriginal();
 
@@ -0,0 +1,50 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.files;
+
+/**
+  Object stream packing policy, that is how compressible objects are distributed across object
+  streams when the file is serialized with {@link XRefModeEnum#Compressed compressed} cross-reference
+  [PDF:1.6:3.4.6].
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public enum ObjectStreamPackingEnum
+{
+  /**
+    Objects are packed in object-number order.
+  */
+  Sequential,
+  /**
+    Objects are packed by page reachability: the objects used by each page only (page dictionary,
+    resources, annotations, etc.) are kept together, followed by the objects shared among pages and
+    by the remaining ones in object-number order.
+    <p>This way, random page access requires far fewer object streams to be decoded.</p>
+  */
+  PageLocality
+}
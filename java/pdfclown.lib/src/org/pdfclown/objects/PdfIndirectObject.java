@@ -25,8 +25,11 @@
 
 package org.pdfclown.objects;
 
+import java.lang.ref.SoftReference;
+
 import org.pdfclown.bytes.IOutputStream;
 import org.pdfclown.files.File;
+import org.pdfclown.files.IndirectObjects;
 import org.pdfclown.tokens.Encoding;
 import org.pdfclown.tokens.Keyword;
 import org.pdfclown.tokens.ObjectStream;
@@ -54,8 +57,18 @@ public class PdfIndirectObject
 
   // <dynamic>
   // <fields>
-  private PdfDataObject dataObject;
+  /*
+    NOTE: Volatile in order to safely publish the data objects resolved by concurrent readers (see
+    getDataObject()).
+  */
+  private volatile PdfDataObject dataObject;
+  /**
+    Data object of an unmodified original indirect object subject to the bounded object cache (see
+    {@link org.pdfclown.files.FileConfiguration#getObjectCacheSize()}).
+  */
+  private SoftReference<PdfDataObject> softDataObject;
   private File file;
+  private boolean flushed;
   private boolean original;
   private final PdfReference reference;
   private final XRefEntry xrefEntry;
@@ -166,7 +179,7 @@ public class PdfIndirectObject
     return !isCompressed()
       && isInUse()
       && !(getDataObject() instanceof PdfStream
-        || dataObject instanceof PdfInteger)
+        || getDataObject() instanceof PdfInteger)
       && getReference().getGenerationNumber() == 0;
   }
 
@@ -215,9 +228,9 @@ public class PdfIndirectObject
     )
   {
     PdfIndirectObject otherObject = (PdfIndirectObject)other;
-    PdfDataObject otherDataObject = otherObject.dataObject;
+    PdfDataObject otherDataObject = otherObject.getDataObject();
     // Update the other!
-    otherObject.setDataObject(dataObject);
+    otherObject.setDataObject(getDataObject());
     // Update this one!
     this.setDataObject(otherDataObject);
     return this;
@@ -282,8 +295,37 @@ public class PdfIndirectObject
   public PdfDataObject getDataObject(
     )
   {
-    if(dataObject == null)
+    PdfDataObject dataObject = this.dataObject;
+    if(dataObject != null)
+      return dataObject;
+
+    /*
+      NOTE: Resolution is serialized on the indirect objects collection of the file, as it moves the
+      shared parser and updates the collection's bookkeeping; this way, independent parts of the same
+      file (e.g. distinct pages) can be read concurrently.
+    */
+    synchronized(file != null ? file.getIndirectObjects() : this)
     {
+      dataObject = this.dataObject;
+      if(dataObject != null)
+        return dataObject;
+
+      if(flushed)
+        throw new IllegalStateException("Indirect object " + reference.getId() + " already flushed: its data object is no more available.");
+
+      dataObject = (softDataObject != null ? softDataObject.get() : null);
+      if(dataObject != null) // Cache hit.
+      {
+        file.getIndirectObjects().retain(this, dataObject, false);
+        if(!file.getIndirectObjects().isCacheBounded())
+        {
+          // Pin the data object (the object cache has been switched to unbounded)!
+          releaseSoftDataObject();
+          this.dataObject = dataObject;
+        }
+        return dataObject;
+      }
+
       switch (xrefEntry.getUsage())
       {
         case Free: // Free entry (no data object at all).
@@ -303,8 +345,22 @@ public class PdfIndirectObject
           break;
         }
       }
+
+      IndirectObjects indirectObjects;
+      if(dataObject != null
+        && original
+        && (indirectObjects = file.getIndirectObjects()).isCacheBounded())
+      {
+        /*
+          NOTE: Unmodified original data objects can be reclaimed once they are no more referenced,
+          as they can be parsed again from the file.
+        */
+        softDataObject = new SoftReference<PdfDataObject>(dataObject);
+        indirectObjects.retain(this, dataObject, true);
+        return dataObject;
+      }
+      return this.dataObject = dataObject;
     }
-    return dataObject;
   }
 
   @Override
@@ -330,7 +386,8 @@ public class PdfIndirectObject
     if(xrefEntry.getGeneration() == XRefEntry.GenerationUnreusable)
       throw new RuntimeException("Unreusable entry.");
 
-    exclude(dataObject);
+    exclude(dataObject != null ? dataObject : softDataObject != null ? softDataObject.get() : null);
+    releaseSoftDataObject();
     dataObject = include(value);
     xrefEntry.setUsage(UsageEnum.InUse);
     update();
@@ -377,11 +434,24 @@ public class PdfIndirectObject
     }
     else
     {virtual = value;}
-    dataObject.setVirtual(virtual);
+    getDataObject().setVirtual(virtual);
   }
   // </protected>
 
   // <internal>
+  /**
+    Drops the data object, once it has been serialized by a streaming writer (see {@link
+    org.pdfclown.tokens.StreamingWriter}), so that it can be reclaimed.
+    <p><span style="color:red">For internal use only.</span></p>
+  */
+  public void dropDataObject(
+    )
+  {
+    dataObject = null;
+    releaseSoftDataObject();
+    flushed = true;
+  }
+
   /**
     <span style="color:red">For internal use only.</span>
   */
@@ -397,7 +467,15 @@ public class PdfIndirectObject
   */
   public void dropOriginal(
     )
-  {original = false;}
+  {
+    // Pin the data object (modified objects cannot be reclaimed)!
+    if(softDataObject != null)
+    {
+      dataObject = softDataObject.get();
+      releaseSoftDataObject();
+    }
+    original = false;
+  }
 
   @Override
   void setParent(
@@ -405,6 +483,19 @@ public class PdfIndirectObject
     )
   {/* NOOP: As indirect objects are root objects, no parent can be associated. */}
   // </internal>
+
+  // <private>
+  private void releaseSoftDataObject(
+    )
+  {
+    if(softDataObject == null)
+      return;
+
+    softDataObject = null;
+    if(file != null)
+    {file.getIndirectObjects().release(this);}
+  }
+  // </private>
   // </interface>
   // </dynamic>
   // </class>
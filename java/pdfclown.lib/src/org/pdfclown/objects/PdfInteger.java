@@ -41,8 +41,23 @@ public final class PdfInteger
   // <static>
   // <fields>
   public static final PdfInteger Default = new PdfInteger(0);
+
+  private static final int CacheLowValue = -128;
+  private static final int CacheHighValue = 1023;
+  /**
+    Shared instances of common small values.
+  */
+  private static final PdfInteger[] cache = new PdfInteger[CacheHighValue - CacheLowValue + 1];
   // </fields>
 
+  // <constructors>
+  static
+  {
+    for(int index = 0; index < cache.length; index++)
+    {cache[index] = (index == -CacheLowValue ? Default : new PdfInteger(index + CacheLowValue));}
+  }
+  // </constructors>
+
   // <interface>
   // <public>
   /**
@@ -51,7 +66,20 @@ public final class PdfInteger
   public static PdfInteger get(
     Integer value
     )
-  {return value == null ? null : new PdfInteger(value);}
+  {return value == null ? null : get(value.intValue());}
+
+  /**
+    Gets the object equivalent to the given value.
+    <p>Common small values are shared instances.</p>
+  */
+  public static PdfInteger get(
+    int value
+    )
+  {
+    return value >= CacheLowValue && value <= CacheHighValue
+      ? cache[value - CacheLowValue]
+      : new PdfInteger(value);
+  }
   // </public>
   // </interface>
   // </static>
@@ -88,6 +116,11 @@ public final class PdfInteger
     )
   {return getRawValue();}
 
+  @Override
+  public long getLongValue(
+    )
+  {return getRawValue();}
+
   @Override
   public Integer getValue(
     )
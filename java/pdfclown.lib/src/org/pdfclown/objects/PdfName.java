@@ -25,6 +25,11 @@
 
 package org.pdfclown.objects;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -182,6 +187,7 @@ public final class PdfName
   public static final PdfName Direction = new PdfName("Direction");
   public static final PdfName DisplayDocTitle = new PdfName("DisplayDocTitle");
   public static final PdfName Dissolve = new PdfName("Dissolve");
+  public static final PdfName DL = new PdfName("DL");
   public static final PdfName Dm = new PdfName("Dm");
   public static final PdfName Domain = new PdfName("Domain");
   public static final PdfName DOS = new PdfName("DOS");
@@ -326,6 +332,7 @@ public final class PdfName
   public static final PdfName Lighten = new PdfName("Lighten");
   public static final PdfName Limits = new PdfName("Limits");
   public static final PdfName Line = new PdfName("Line");
+  public static final PdfName Linearized = new PdfName("Linearized");
   public static final PdfName Link = new PdfName("Link");
   public static final PdfName ListMode = new PdfName("ListMode");
   public static final PdfName LJ = new PdfName("LJ");
@@ -599,8 +606,42 @@ public final class PdfName
   public static final PdfName Zoom = new PdfName("Zoom");
 
   private static final byte[] NamePrefixChunk = org.pdfclown.tokens.Encoding.Pdf.encode(Keyword.NamePrefix);
+
+  /**
+    Maximum number of interned names beside the predefined ones.
+  */
+  private static final int MaxInternedCount = 1 << 14;
+
+  /**
+    Interned names, keyed by their raw (escaped) value.
+  */
+  private static final ConcurrentMap<String,PdfName> internedNames = new ConcurrentHashMap<String,PdfName>(1 << 10);
+  private static final AtomicInteger internedCount = new AtomicInteger();
   // </fields>
 
+  // <constructors>
+  static
+  {
+    // Predefined names are always interned!
+    try
+    {
+      for(Field field : PdfName.class.getDeclaredFields())
+      {
+        int modifiers = field.getModifiers();
+        if(Modifier.isStatic(modifiers)
+          && Modifier.isPublic(modifiers)
+          && field.getType() == PdfName.class)
+        {
+          PdfName name = (PdfName)field.get(null);
+          internedNames.put(name.getRawValue(), name);
+        }
+      }
+    }
+    catch(IllegalAccessException e)
+    {throw new RuntimeException(e);}
+  }
+  // </constructors>
+
   // <interface>
   // <public>
   /**
@@ -613,12 +654,70 @@ public final class PdfName
 
   /**
     Gets the object equivalent to the given value.
+    <p>Predefined names (and, up to a bounded amount, other names) are shared instances.</p>
   */
   public static PdfName get(
     String value
     )
-  {return value == null ? null : new PdfName(value);}
+  {
+    if(value == null)
+      return null;
+
+    /*
+      NOTE: Values free from number signs can be looked up straight away, as they cannot collide
+      with any escaped raw value.
+    */
+    if(value.indexOf('#') < 0)
+    {
+      PdfName name = internedNames.get(value);
+      if(name != null)
+        return name;
+    }
+    return intern(new PdfName(value));
+  }
+
+  /**
+    Gets the object equivalent to the given value.
+    <p><span style="color:red">For internal use only.</span></p>
+
+    @param value Name value.
+    @param escaped Whether the value has already been escaped (see {@link #PdfName(String, boolean)}).
+  */
+  public static PdfName get(
+    String value,
+    boolean escaped
+    )
+  {
+    if(!escaped)
+      return get(value);
+    else if(value == null)
+      return null;
+
+    PdfName name = internedNames.get(value);
+    return name != null ? name : intern(new PdfName(value, true));
+  }
   // </public>
+
+  // <private>
+  /**
+    Gets the shared instance equivalent to the given name, registering it if the intern table
+    isn't full yet.
+  */
+  private static PdfName intern(
+    PdfName name
+    )
+  {
+    if(internedCount.get() >= MaxInternedCount)
+      return name;
+
+    PdfName internedName = internedNames.putIfAbsent(name.getRawValue(), name);
+    if(internedName != null)
+      return internedName;
+
+    internedCount.incrementAndGet();
+    return name;
+  }
+  // </private>
   // </interface>
   // </static>
 
@@ -35,6 +35,26 @@ public abstract class PdfNumber<TValue extends Number>
   extends PdfSimpleObject<TValue>
 {
   // <class>
+  // <static>
+  // <interface>
+  // <public>
+  /**
+    Gets the object equivalent to the given integer value.
+    <p>Values exceeding the range of {@link PdfInteger} (such as byte offsets within files larger
+    than 2 GB) are converted to {@link PdfReal}, as suggested by the spec [PDF:1.7:C.2].</p>
+  */
+  public static PdfNumber<?> get(
+    long value
+    )
+  {
+    return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE
+      ? PdfInteger.get((int)value)
+      : PdfReal.get((double)value);
+  }
+  // </public>
+  // </interface>
+  // </static>
+
   // <dynamic>
   // <interface>
   // <public>
@@ -72,6 +92,12 @@ public abstract class PdfNumber<TValue extends Number>
   public abstract int getIntValue(
     );
 
+  /**
+    Gets the long integer representation of the value.
+  */
+  public abstract long getLongValue(
+    );
+
   @Override
   public Number getValue(
     )
@@ -39,6 +39,23 @@ public final class PdfReal
 {
   // <class>
   // <static>
+  // <fields>
+  private static final int CacheLowValue = -16;
+  private static final int CacheHighValue = 255;
+  /**
+    Shared instances of common small integral values.
+  */
+  private static final PdfReal[] cache = new PdfReal[CacheHighValue - CacheLowValue + 1];
+  // </fields>
+
+  // <constructors>
+  static
+  {
+    for(int index = 0; index < cache.length; index++)
+    {cache[index] = new PdfReal(index + CacheLowValue);}
+  }
+  // </constructors>
+
   // <interface>
   // <public>
   /**
@@ -47,15 +64,26 @@ public final class PdfReal
   public static PdfReal get(
     Number value
     )
+  {return value == null ? null : get(value.doubleValue());}
+
+  /**
+    Gets the object equivalent to the given value.
+    <p>Common small integral values are shared instances.</p>
+  */
+  public static PdfReal get(
+    double value
+    )
   {
-    if(value == null)
+    if(Double.isNaN(value))
       return null;
 
-    double doubleValue = value.doubleValue();
-    if(Double.isNaN(doubleValue))
-      return null;
+    int intValue = (int)value;
+    if(intValue == value
+      && intValue >= CacheLowValue && intValue <= CacheHighValue
+      && (intValue != 0 || 1 / value > 0)) // NOTE: Negative zero is excluded.
+      return cache[intValue - CacheLowValue];
 
-    return new PdfReal(doubleValue);
+    return new PdfReal(value);
   }
   // </public>
   // </interface>
@@ -93,6 +121,11 @@ public final class PdfReal
     )
   {return (int)Math.round(getRawValue());}
 
+  @Override
+  public long getLongValue(
+    )
+  {return Math.round(getRawValue());}
+
   @Override
   public Double getValue(
     )
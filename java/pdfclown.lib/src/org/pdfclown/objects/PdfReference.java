@@ -50,7 +50,7 @@ public final class PdfReference
   private final int generationNumber;
   private final int objectNumber;
   
-  private PdfIndirectObject indirectObject;
+  private volatile PdfIndirectObject indirectObject;
 
   private File file;
   private PdfObject parent;
@@ -212,7 +212,15 @@ public final class PdfReference
     IOutputStream stream,
     File context
     )
-  {stream.write(getIndirectReference());}
+  {
+    /*
+      NOTE: While objects are renumbered on serialization (see linearization), the identifier is
+      taken from the referenced object, if available; otherwise, the referenced object is left
+      alone, so that serialization doesn't resolve it.
+    */
+    PdfIndirectObject indirectObject = (context.isRenumbered() ? getIndirectObject() : null);
+    stream.write(indirectObject != null ? indirectObject.getReference().getIndirectReference() : getIndirectReference());
+  }
 
   // <IPdfIndirectObject>
   @Override
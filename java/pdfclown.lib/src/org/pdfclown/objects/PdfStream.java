@@ -27,13 +27,19 @@ package org.pdfclown.objects;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.bytes.Buffer;
 import org.pdfclown.bytes.IBuffer;
 import org.pdfclown.bytes.IOutputStream;
+import org.pdfclown.bytes.LazyBuffer;
 import org.pdfclown.bytes.filters.Filter;
+import org.pdfclown.bytes.filters.FlateFilter;
 import org.pdfclown.documents.files.FileSpecification;
 import org.pdfclown.documents.files.IFileResource;
 import org.pdfclown.files.File;
@@ -74,6 +80,10 @@ public class PdfStream
     stream data.
   */
   private boolean bodyResolved;
+  /**
+    Body data encoded in advance of serialization (see {@link #encodeAhead(File, ExecutorService)}).
+  */
+  private Future<byte[]> encodedBodyData;
   // </fields>
 
   // <constructors>
@@ -121,7 +131,10 @@ public class PdfStream
       public void onChange(
         IBuffer buffer
         )
-      {update();}
+      {
+        encodedBodyData = null;
+        update();
+      }
     });
   }
   // </constructors>
@@ -157,10 +170,12 @@ public class PdfStream
 
   /**
     Gets the stream body.
+    <p>As decoding replaces the body in place, this method is synchronized, so that concurrent
+    readers of the same stream get it decoded once.</p>
 
     @param decode Defines whether the body has to be decoded.
   */
-  public IBuffer getBody(
+  public synchronized IBuffer getBody(
     boolean decode
     )
   {
@@ -187,11 +202,17 @@ public class PdfStream
       {
         header.setUpdateable(false);
         PdfDataObject parameters = getParameters();
+        /*
+          NOTE: The decoded length (if available) applies to the output of the last filter.
+        */
+        PdfNumber<?> decodedLengthObject = (PdfNumber<?>)header.resolve(PdfName.DL);
+        int decodedLength = (decodedLengthObject != null ? decodedLengthObject.getIntValue() : 0);
         if(filter instanceof PdfName) // Single filter.
         {
           body.decode(
             Filter.get((PdfName)filter),
-            (PdfDictionary)parameters
+            (PdfDictionary)parameters,
+            decodedLength
             );
         }
         else // Multiple filters.
@@ -200,9 +221,11 @@ public class PdfStream
           Iterator<PdfDirectObject> parametersIterator = (parameters != null ? ((PdfArray)parameters).iterator() : null);
           while(filterIterator.hasNext())
           {
+            PdfName filterName = (PdfName)resolve(filterIterator.next());
             body.decode(
-              Filter.get((PdfName)resolve(filterIterator.next())),
-              (PdfDictionary)(parametersIterator != null ? resolve(parametersIterator.next()) : null)
+              Filter.get(filterName),
+              (PdfDictionary)(parametersIterator != null ? resolve(parametersIterator.next()) : null),
+              filterIterator.hasNext() ? 0 : decodedLength
               );
           }
         }
@@ -391,19 +414,38 @@ public class PdfStream
         FileSpecification<?> dataFile = getDataFile();
         if(dataFile == null || (bodyResolved && body.isDirty()))
         {
-          /*
-            NOTE: In order to keep the contents of metadata streams visible as plain text to tools
-            that are not PDF-aware, no filter is applied to them [PDF:1.7:10.2.2].
-          */
-          if(getFilter() == null
-            && context.getConfiguration().isStreamFilterEnabled()
-            && !PdfName.Metadata.equals(header.get(PdfName.Type))) // Filter needed.
+          if(isFilterNeeded(context)) // Filter needed.
           {
             // Apply the filter to the stream!
             setFilter(PdfName.FlateDecode);
-            bodyData = body.encode(Filter.get((PdfName)getFilter()), null);
+            if(encodedBodyData != null) // Already encoded.
+            {
+              try
+              {bodyData = encodedBodyData.get();}
+              catch(InterruptedException e)
+              {
+                // Preserve the interruption status for the caller!
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+              }
+              catch(ExecutionException e)
+              {throw new RuntimeException(e.getCause());}
+              finally
+              {encodedBodyData = null;}
+            }
+            else
+            {bodyData = body.encode(FlateFilter.get(context.getConfiguration().getCompressionLevel()), null);}
             filterApplied = true;
           }
+          else if(dataFile == null
+            && body instanceof LazyBuffer
+            && !((LazyBuffer)body).isLoaded()) // No filter needed (untouched body).
+          {
+            /*
+              NOTE: Untouched lazily-loaded bodies are copied straight from their source on
+              serialization (see below), so that they aren't retained.
+            */
+          }
           else // No filter needed.
           {bodyData = body.toByteArray();}
 
@@ -424,7 +466,7 @@ public class PdfStream
       }
 
       // Set the encoded data length!
-      header.put(PdfName.Length, PdfInteger.get(bodyData.length));
+      header.put(PdfName.Length, PdfInteger.get(bodyData != null ? bodyData.length : (int)body.getLength()));
 
       // 1. Header.
       header.writeTo(stream, context);
@@ -439,7 +481,10 @@ public class PdfStream
 
     // 2. Body.
     stream.write(BeginStreamBodyChunk);
-    stream.write(bodyData);
+    if(bodyData != null)
+    {stream.write(bodyData);}
+    else
+    {body.writeTo(stream);}
     stream.write(EndStreamBodyChunk);
 
     header.setUpdateable(true);
@@ -510,12 +555,74 @@ public class PdfStream
   // </protected>
 
   // <internal>
+  /**
+    Encodes the body on the specified executor in advance of its serialization, in case it has to
+    be filtered on serialization.
+    <p>This allows the (CPU-intensive) compression of multiple streams to run concurrently, while
+    their serialization keeps its sequential order: {@link #writeTo(IOutputStream, File)} waits for
+    the encoded data to be available.</p>
+    <p><span style="color:red">For internal use only.</span></p>
+
+    @return Whether the body was submitted for encoding.
+  */
+  public boolean encodeAhead(
+    File context,
+    ExecutorService executor
+    )
+  {
+    if(getDataFile() != null || !isFilterNeeded(context))
+      return false;
+
+    /*
+      NOTE: Lazily-loaded bodies are read from their source stream under the parser's lock and
+      encoded from a transient copy (see LazyBuffer.encode(..)), so their raw data aren't retained
+      once encoded.
+    */
+    final IBuffer body = this.body;
+    final Filter filter = FlateFilter.get(context.getConfiguration().getCompressionLevel());
+    encodedBodyData = executor.submit(new Callable<byte[]>()
+    {
+      @Override
+      public byte[] call(
+        )
+      {return body.encode(filter, null);}
+    });
+    return true;
+  }
+
+  /**
+    Gets whether the body has been {@link #encodeAhead(File, ExecutorService) submitted for encoding}
+    and its encoded data haven't been serialized yet.
+    <p><span style="color:red">For internal use only.</span></p>
+  */
+  public boolean isEncodingAhead(
+    )
+  {return encodedBodyData != null;}
+
   @Override
   void setParent(
     PdfObject value
     )
   {parent = value;}
   // </internal>
+
+  // <private>
+  /**
+    Gets whether the body has to be filtered on serialization.
+  */
+  private boolean isFilterNeeded(
+    File context
+    )
+  {
+    /*
+      NOTE: In order to keep the contents of metadata streams visible as plain text to tools that
+      are not PDF-aware, no filter is applied to them [PDF:1.7:10.2.2].
+    */
+    return getFilter() == null
+      && context.getConfiguration().isStreamFilterEnabled()
+      && !PdfName.Metadata.equals(header.get(PdfName.Type));
+  }
+  // </private>
   // </interface>
   // </dynamic>
   // </class>
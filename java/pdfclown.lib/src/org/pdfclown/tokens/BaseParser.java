@@ -34,8 +34,8 @@ import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDate;
 import org.pdfclown.objects.PdfDictionary;
 import org.pdfclown.objects.PdfDirectObject;
-import org.pdfclown.objects.PdfInteger;
 import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.objects.PdfReal;
 import org.pdfclown.objects.PdfString;
 import org.pdfclown.objects.PdfTextString;
@@ -108,9 +108,9 @@ public class BaseParser
     switch(getTokenType())
     {
       case Integer:
-        return PdfInteger.get((Integer)getToken());
+        return PdfNumber.get(getLongToken());
       case Name:
-        return new PdfName((String)getToken(),true);
+        return PdfName.get((String)getToken(), true);
       case DictionaryBegin:
       {
         PdfDictionary dictionary = new PdfDictionary();
@@ -156,7 +156,7 @@ public class BaseParser
           PdfString.SerializationModeEnum.Hex
           );
       case Real:
-        return PdfReal.get((Double)getToken());
+        return PdfReal.get(getRealToken());
       case Boolean:
         return PdfBoolean.get((Boolean)getToken());
       case Null:
@@ -26,16 +26,22 @@
 package org.pdfclown.tokens;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.pdfclown.bytes.IOutputStream;
+import org.pdfclown.documents.Page;
 import org.pdfclown.files.File;
 import org.pdfclown.files.IndirectObjects;
+import org.pdfclown.files.ObjectStreamPackingEnum;
 import org.pdfclown.objects.PdfIndirectObject;
-import org.pdfclown.objects.PdfInteger;
 import org.pdfclown.objects.PdfName;
-import org.pdfclown.util.NotImplementedException;
+import org.pdfclown.objects.PdfNumber;
+import org.pdfclown.objects.PdfReference;
 
 /**
   PDF file writer implementing compressed cross-reference stream [PDF:1.6:3.4.7].
@@ -50,12 +56,12 @@ final class CompressedWriter
   // <static>
   // <fields>
   /**
-    Maximum number of objects in individual object streams [PDF:1.7:H:19].
+    Page index of the objects shared among pages.
   */
-  private static int ObjectStreamMaxEntryCount = 100;
+  private static final int SharedPageIndex = -1;
   // </fields>
   // </static>
-  
+
   // <dynamic>
   // <constructors>
   CompressedWriter(
@@ -73,7 +79,7 @@ final class CompressedWriter
   {
     // 1. Original content (header, body and previous trailer).
     FileParser parser = file.getReader().getParser();
-    stream.write(parser.getStream());
+    writeOriginal();
 
     // 2. Body update (modified indirect objects insertion).
     XRefEntry xrefStreamEntry;
@@ -91,8 +97,10 @@ final class CompressedWriter
       // 2.1.1. Modified indirect objects serialization.
       XRefEntry prevFreeEntry = null;
       /*
-        NOTE: Any uncompressed indirect object will be compressed.
+        NOTE: Any uncompressed indirect object will be compressed. As updates carry just the modified
+        objects, they are packed in object-number order regardless of the packing policy.
       */
+      int objectStreamMaxEntryCount = file.getConfiguration().getObjectStreamMaxEntryCount();
       ObjectStream objectStream = null;
       /*
         NOTE: Any previously-compressed indirect object will have its original object stream updated
@@ -105,7 +113,7 @@ final class CompressedWriter
         if(indirectObject.isCompressible())
         {
           if(objectStream == null
-            || objectStream.size() >= ObjectStreamMaxEntryCount)
+            || objectStream.size() >= objectStreamMaxEntryCount)
           {file.register(objectStream = new ObjectStream());}
 
           indirectObject.compress(objectStream);
@@ -135,7 +143,7 @@ final class CompressedWriter
 
       // 2.2. XRef stream.
       updateTrailer(xrefStream.getHeader(), stream);
-      xrefStream.getHeader().put(PdfName.Prev, PdfInteger.get((int)parser.retrieveXRefOffset()));
+      xrefStream.getHeader().put(PdfName.Prev, PdfNumber.get(parser.retrieveXRefOffset()));
       addXRefEntry(
         /*
           NOTE: This xref stream indirect object is purposely temporary (i.e. not registered into the
@@ -144,7 +152,7 @@ final class CompressedWriter
         new PdfIndirectObject(
           file,
           xrefStream,
-          xrefStreamEntry = new XRefEntry(indirectObjects.size(), 0, (int)stream.getLength(), XRefEntry.UsageEnum.InUse)
+          xrefStreamEntry = new XRefEntry(indirectObjects.size(), 0, stream.getLength(), XRefEntry.UsageEnum.InUse)
           ),
         xrefStream,
         null,
@@ -159,7 +167,13 @@ final class CompressedWriter
   @Override
   protected void writeLinearized(
     )
-  {throw new NotImplementedException();}
+  {
+    /*
+      NOTE: Linearized files are written with classic cross-reference tables, so that the first
+      page can be located by viewers without decoding any cross-reference stream.
+    */
+    new Linearizer(this).write();
+  }
 
   @Override
   protected void writeStandard(
@@ -183,13 +197,20 @@ final class CompressedWriter
 
       // Indirect objects serialization.
       XRefEntry prevFreeEntry = null;
-      ObjectStream objectStream = null;
+      int objectStreamMaxEntryCount = file.getConfiguration().getObjectStreamMaxEntryCount();
+      /*
+        NOTE: Page-related objects are packed in advance, so that the remaining compressible objects
+        fill the object streams in object-number order.
+      */
+      ObjectStream objectStream = (file.getConfiguration().getObjectStreamPacking() == ObjectStreamPackingEnum.PageLocality
+        ? packPageObjects(objectStreamMaxEntryCount)
+        : null);
       for(PdfIndirectObject indirectObject : indirectObjects)
       {
         if(indirectObject.isCompressible())
         {
           if(objectStream == null
-            || objectStream.size() >= ObjectStreamMaxEntryCount)
+            || objectStream.size() >= objectStreamMaxEntryCount)
           {file.register(objectStream = new ObjectStream());}
 
           indirectObject.compress(objectStream);
@@ -214,7 +235,7 @@ final class CompressedWriter
         new PdfIndirectObject(
           file,
           xrefStream,
-          xrefStreamEntry = new XRefEntry(indirectObjects.size(), 0, (int)stream.getLength(), XRefEntry.UsageEnum.InUse)
+          xrefStreamEntry = new XRefEntry(indirectObjects.size(), 0, stream.getLength(), XRefEntry.UsageEnum.InUse)
           ),
         xrefStream,
         null,
@@ -228,6 +249,107 @@ final class CompressedWriter
   // </protected>
 
   // <private>
+  /**
+    Compresses the specified objects into object streams, keeping them together as far as possible.
+
+    @param objects Objects to compress.
+    @param objectStream Current object stream.
+    @param objectStreamMaxEntryCount Maximum number of objects in individual object streams.
+    @return Current object stream.
+  */
+  private ObjectStream pack(
+    List<PdfIndirectObject> objects,
+    ObjectStream objectStream,
+    int objectStreamMaxEntryCount
+    )
+  {
+    if(objects.isEmpty())
+      return objectStream;
+
+    /*
+      NOTE: If the objects don't fit the current object stream, a new one is begun, so that they
+      are not scattered.
+    */
+    if(objectStream != null
+      && objectStream.size() + objects.size() > objectStreamMaxEntryCount)
+    {objectStream = null;}
+    for(PdfIndirectObject object : objects)
+    {
+      if(objectStream == null
+        || objectStream.size() >= objectStreamMaxEntryCount)
+      {file.register(objectStream = new ObjectStream());}
+
+      object.compress(objectStream);
+    }
+    return objectStream;
+  }
+
+  /**
+    Compresses the objects reachable from the document pages into object streams, grouped by page
+    (see {@link ObjectStreamPackingEnum#PageLocality}).
+
+    @param objectStreamMaxEntryCount Maximum number of objects in individual object streams.
+    @return Current object stream.
+  */
+  private ObjectStream packPageObjects(
+    int objectStreamMaxEntryCount
+    )
+  {
+    // 1. Page objects collection.
+    List<List<PdfIndirectObject>> pagesObjects = new ArrayList<List<PdfIndirectObject>>();
+    Map<PdfIndirectObject,Integer> objectPageIndexes = new IdentityHashMap<PdfIndirectObject,Integer>();
+    for(Page page : file.getDocument().getPages())
+    {
+      int pageIndex = pagesObjects.size();
+      PdfIndirectObject pageObject = ((PdfReference)page.getBaseObject()).getIndirectObject();
+      List<PdfIndirectObject> pageObjects = new ArrayList<PdfIndirectObject>();
+      pageObjects.add(pageObject);
+      Set<PdfIndirectObject> visitedObjects = Collections.newSetFromMap(new IdentityHashMap<PdfIndirectObject,Boolean>());
+      visitedObjects.add(pageObject);
+      Linearizer.collect(pageObject.getDataObject(), true, visitedObjects, pageObjects);
+      pagesObjects.add(pageObjects);
+
+      for(PdfIndirectObject object : pageObjects)
+      {
+        if(!object.isCompressible())
+          continue;
+
+        Integer objectPageIndex = objectPageIndexes.get(object);
+        if(objectPageIndex == null)
+        {objectPageIndexes.put(object, pageIndex);}
+        else if(objectPageIndex != pageIndex)
+        {objectPageIndexes.put(object, SharedPageIndex);}
+      }
+    }
+
+    // 2. Page objects packing.
+    ObjectStream objectStream = null;
+    List<PdfIndirectObject> sharedObjects = new ArrayList<PdfIndirectObject>();
+    for(int pageIndex = 0, pageCount = pagesObjects.size(); pageIndex < pageCount; pageIndex++)
+    {
+      List<PdfIndirectObject> privateObjects = new ArrayList<PdfIndirectObject>();
+      for(PdfIndirectObject object : pagesObjects.get(pageIndex))
+      {
+        Integer objectPageIndex = objectPageIndexes.get(object);
+        if(objectPageIndex == null)
+          continue;
+        else if(objectPageIndex == pageIndex)
+        {privateObjects.add(object);}
+        else if(objectPageIndex == SharedPageIndex)
+        {
+          sharedObjects.add(object);
+          objectPageIndexes.remove(object); // Avoids duplicates.
+        }
+      }
+      objectStream = pack(privateObjects, objectStream, objectStreamMaxEntryCount);
+    }
+    /*
+      NOTE: Shared objects (typically fonts and other common resources) are packed in order of first
+      use, so that those needed by the leading pages are kept together.
+    */
+    return pack(sharedObjects, objectStream, objectStreamMaxEntryCount);
+  }
+
   /**
     Adds an indirect object entry to the specified xref stream.
 
@@ -259,8 +381,9 @@ final class CompressedWriter
     {
       case InUse:
       {
-        int offset = (int)stream.getLength();
+        long offset = stream.getLength();
         // Add entry content!
+        encodeStreamsAhead();
         indirectObject.writeTo(stream, file);
         // Set entry content's offset!
         xrefEntry.setOffset(offset);
@@ -29,6 +29,7 @@ import java.io.EOFException;
 
 import org.pdfclown.bytes.Buffer;
 import org.pdfclown.bytes.IInputStream;
+import org.pdfclown.bytes.LazyBuffer;
 import org.pdfclown.files.File;
 import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDictionary;
@@ -121,26 +122,30 @@ public final class FileParser
           long baseOffset = stream.getPosition(); // Backs up the recovery position.
 
           // 1. Object number.
-          int objectNumber = (Integer)getToken();
+          long objectNumber = getLongToken();
+          boolean referenceFound = false;
           // 2. Generation number.
           super.moveNext();
           if(getTokenType() == TokenTypeEnum.Integer)
           {
-            int generationNumber = (Integer)getToken();
+            int generationNumber = getIntegerToken();
             // 3. Reference keyword.
             super.moveNext();
             if(getTokenType() == TokenTypeEnum.Keyword
-              && getToken().equals(Keyword.Reference))
-            {setToken(new Reference(objectNumber,generationNumber));}
+              && tokenEquals(Keyword.Reference))
+            {
+              setToken(new Reference((int)objectNumber,generationNumber));
+              referenceFound = true;
+            }
           }
-          if(!(getToken() instanceof Reference))
+          if(!referenceFound)
           {
             // Rollback!
             try
             {stream.seek(baseOffset);}
             catch(EOFException e)
             {throw new RuntimeException(e);}
-            setToken(objectNumber);
+            setIntegerToken(objectNumber);
             setTokenType(TokenTypeEnum.Integer);
           }
         } break;
@@ -182,7 +187,7 @@ public final class FileParser
         moveNext();
         // Is this dictionary the header of a stream object [PDF:1.6:3.2.7]?
         if(getTokenType() == TokenTypeEnum.Keyword
-          && getToken().equals(Keyword.BeginStream)) // Stream.
+          && tokenEquals(Keyword.BeginStream)) // Stream.
         {
           PdfDictionary streamHeader = (PdfDictionary)pdfObject;
   
@@ -198,28 +203,33 @@ public final class FileParser
           stream.seek(position);
           skipEOL();
   
-          // Copy the stream data to the instance!
-          byte[] data = new byte[length];
-          stream.read(data);
-  
-          moveNext(); // Postcondition (last token should be 'endstream' keyword).
-  
           Object streamType = streamHeader.get(PdfName.Type);
           if(PdfName.ObjStm.equals(streamType)) // Object stream [PDF:1.6:3.4.6].
             return new ObjectStream(
               streamHeader,
-              new Buffer(data)
+              readStreamBody(length)
               );
           else if(PdfName.XRef.equals(streamType)) // Cross-reference stream [PDF:1.6:3.4.7].
             return new XRefStream(
               streamHeader,
-              new Buffer(data)
+              readStreamBody(length)
               );
           else // Generic stream.
+          {
+            /*
+              NOTE: Generic stream data are loaded on demand, so that walking the object graph
+              doesn't bring bulky contents (e.g. images) into memory.
+            */
+            LazyBuffer body = new LazyBuffer(stream, stream.getPosition(), length);
+            stream.skip(length);
+  
+            moveNext(); // Postcondition (last token should be 'endstream' keyword).
+  
             return new PdfStream(
               streamHeader,
-              new Buffer(data)
+              body
               );
+          }
         }
         else // Stand-alone dictionary.
         {stream.seek(oldOffset);} // Restores postcondition (last token should be the dictionary end).
@@ -240,18 +250,25 @@ public final class FileParser
     XRefEntry xrefEntry
     )
   {
-    // Go to the beginning of the indirect object!
-    seek(xrefEntry.getOffset());
-    // Skip the indirect-object header!
-    moveNext(4);
-    
-    // Empty indirect object?
-    if(getTokenType() == TokenTypeEnum.Keyword
-        && Keyword.EndIndirectObject.equals(getToken()))
-      return null; 
-    
-    // Get the indirect data object!
-    return parsePdfObject();
+    /*
+      NOTE: The source stream is shared with the lazily-loaded stream bodies (see LazyBuffer), so
+      its pointer is guarded by its own lock.
+    */
+    synchronized(getStream())
+    {
+      // Go to the beginning of the indirect object!
+      seek(xrefEntry.getOffset());
+      // Skip the indirect-object header!
+      moveNext(4);
+
+      // Empty indirect object?
+      if(getTokenType() == TokenTypeEnum.Keyword
+          && tokenEquals(Keyword.EndIndirectObject))
+        return null;
+
+      // Get the indirect data object!
+      return parsePdfObject();
+    }
   }
 
   /**
@@ -314,12 +331,33 @@ public final class FileParser
       if(getTokenType() != TokenTypeEnum.Integer)
         throw new PostScriptParseException("'" + Keyword.StartXRef + "' value invalid.", this);
   
-      return (Integer)getToken();
+      return getLongToken();
     }
     catch(EOFException e)
     {throw new RuntimeException(e);}
   }
   // </public>
+
+  // <private>
+  /**
+    Reads the data of the current stream object.
+    <p>When this method terminates, the pointer is at the 'endstream' keyword.</p>
+
+    @param length Stream data length.
+  */
+  private Buffer readStreamBody(
+    int length
+    ) throws EOFException
+  {
+    // Copy the stream data to the instance!
+    byte[] data = new byte[length];
+    getStream().read(data);
+
+    moveNext(); // Postcondition (last token should be 'endstream' keyword).
+
+    return new Buffer(data);
+  }
+  // </private>
   // </interface>
   // </dynamic>
   // </class>
@@ -25,14 +25,18 @@
 
 package org.pdfclown.tokens;
 
+import java.util.Arrays;
+
 import org.pdfclown.util.BiMap;
 
 /**
   Adobe standard Latin character set [PDF:1.7:D].
+  <p>Code-to-Unicode mapping is held in immutable lookup tables, so that decoding and encoding are
+  lock-free and don't box any code or character; {@link #chars} mirrors them.</p>
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.1.2
-  @version 0.1.2, 02/20/12
+  @version 0.2.0
 */
 public abstract class LatinEncoding
   extends Encoding
@@ -41,10 +45,74 @@ public abstract class LatinEncoding
   // <fields>
   /**
     Code-to-Unicode map.
+    <p>Changes to this map don't affect the encoding.</p>
   */
   protected BiMap<Integer,Character> chars;
+
+  /**
+    Code-to-Unicode lookup table (indexed by code).
+  */
+  private final char[] codeChars;
+  /**
+    Unicode-to-code map of characters below U+0100 (<code>-1</code> for unmapped characters).
+  */
+  private final short[] lowCodes;
+  /**
+    Characters at or above U+0100, sorted (Unicode-to-code map keys).
+  */
+  private final char[] highChars;
+  /**
+    Codes of {@link #highChars} (Unicode-to-code map values).
+  */
+  private final byte[] highCodes;
   // </fields>
 
+  // <constructors>
+  /**
+    @param chars Code-to-Unicode map (256 entries, indexed by code).
+  */
+  protected LatinEncoding(
+    char[] chars
+    )
+  {
+    if(chars.length != 256)
+      throw new IllegalArgumentException("Code-to-Unicode map MUST have 256 entries.");
+
+    codeChars = chars.clone();
+    this.chars = new BiMap<Integer,Character>(256);
+
+    lowCodes = new short[256];
+    Arrays.fill(lowCodes, (short)-1);
+    int highCount = 0;
+    for(char c : chars)
+    {
+      if(c >= 256)
+      {highCount++;}
+    }
+    highChars = new char[highCount];
+    highCodes = new byte[highCount];
+    {
+      // NOTE: Codes are scanned in reverse order so that, on duplicate characters, the lowest code wins.
+      long[] highEntries = new long[highCount];
+      for(int code = 255; code >= 0; code--)
+      {
+        char c = chars[code];
+        this.chars.put(code, c);
+        if(c < 256)
+        {lowCodes[c] = (short)code;}
+        else
+        {highEntries[--highCount] = ((long)c << 8) | code;}
+      }
+      Arrays.sort(highEntries);
+      for(int index = 0, length = highEntries.length; index < length; index++)
+      {
+        highChars[index] = (char)(highEntries[index] >>> 8);
+        highCodes[index] = (byte)highEntries[index];
+      }
+    }
+  }
+  // </constructors>
+
   // <interface>
   @Override
   public String decode(
@@ -61,7 +129,7 @@ public abstract class LatinEncoding
   {
     char[] stringChars = new char[length];
     for(int decodeIndex = index, decodeLength = length + index; decodeIndex < decodeLength; decodeIndex++)
-    {stringChars[decodeIndex - index] = chars.get(value[decodeIndex] & 0xff);}
+    {stringChars[decodeIndex - index] = codeChars[value[decodeIndex] & 0xff];}
     return new String(stringChars);
   }
 
@@ -70,18 +138,36 @@ public abstract class LatinEncoding
     String value
     )
   {
-    char[] stringChars = value.toCharArray();
-    byte[] stringBytes = new byte[stringChars.length];
-    for(int index = 0, length = stringChars.length; index < length; index++)
+    int length = value.length();
+    byte[] stringBytes = new byte[length];
+    for(int index = 0; index < length; index++)
     {
-      Integer code = chars.getKey(stringChars[index]);
-      if(code == null)
+      int code = getCode(value.charAt(index));
+      if(code < 0)
         return null;
 
-      stringBytes[index] = code.byteValue();
+      stringBytes[index] = (byte)code;
     }
     return stringBytes;
   }
+
+  // <private>
+  /**
+    Gets the code corresponding to the specified character.
+
+    @return <code>-1</code>, if the character isn't mapped.
+  */
+  private int getCode(
+    char value
+    )
+  {
+    if(value < 256)
+      return lowCodes[value];
+
+    int index = Arrays.binarySearch(highChars, value);
+    return index >= 0 ? highCodes[index] & 0xff : -1;
+  }
+  // </private>
   // </interface>
   // </dynamic>
 }
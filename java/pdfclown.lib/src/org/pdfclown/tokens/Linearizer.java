@@ -0,0 +1,1024 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.tokens;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.pdfclown.bytes.Buffer;
+import org.pdfclown.bytes.FileInputStream;
+import org.pdfclown.bytes.IOutputStream;
+import org.pdfclown.bytes.OutputStream;
+import org.pdfclown.documents.Document;
+import org.pdfclown.documents.Page;
+import org.pdfclown.files.File;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfIndirectObject;
+import org.pdfclown.objects.PdfInteger;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfReference;
+import org.pdfclown.objects.PdfStream;
+import org.pdfclown.util.io.IOUtils;
+
+/**
+  Linearized file serializer [PDF:1.7:F].
+  <p>Objects are arranged so that the first page can be displayed as soon as the first-page section
+  is received:</p>
+  <ol>
+    <li>header;</li>
+    <li>linearization parameter dictionary;</li>
+    <li>first-page cross-reference table and trailer;</li>
+    <li>document catalog and document-level objects;</li>
+    <li>primary hint stream (page offset and shared object hint tables);</li>
+    <li>first-page section (first page along with all its objects);</li>
+    <li>remaining pages (each page along with its private objects);</li>
+    <li>shared objects of the remaining pages;</li>
+    <li>other objects (page tree, document information, outlines and so on);</li>
+    <li>main cross-reference table and trailer.</li>
+  </ol>
+  <p>Objects are renumbered according to their position (the first-page cross-reference section
+  follows the main one), and unreachable objects are dropped; the original object numbers are
+  restored once the serialization is done.</p>
+  <p>Objects are serialized straight to the target stream, while the parts depending on the whole
+  layout (linearization dictionary, first-page cross-reference section and hint stream) are
+  reserved and filled in at the end: in case the target stream can't be overwritten, a temporary
+  file is used.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+final class Linearizer
+{
+  // <class>
+  // <classes>
+  /**
+    Bit-level writer of hint table entries [PDF:1.7:F.4].
+  */
+  private static final class HintTableWriter
+  {
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private int bits;
+    private int bitCount;
+
+    /**
+      Pads the current byte with zero bits.
+      <p>Each hint table item sequence begins at a byte boundary.</p>
+    */
+    public void align(
+      )
+    {
+      if(bitCount > 0)
+      {write(0, 8 - bitCount);}
+    }
+
+    public byte[] toByteArray(
+      )
+    {
+      align();
+      return data.toByteArray();
+    }
+
+    /**
+      Writes the specified value, most significant bit first.
+    */
+    public void write(
+      long value,
+      int length
+      )
+    {
+      for(int index = length - 1; index >= 0; index--)
+      {
+        bits = (bits << 1) | (int)((value >>> index) & 1);
+        if(++bitCount == 8)
+        {
+          data.write(bits);
+          bits = 0;
+          bitCount = 0;
+        }
+      }
+    }
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  /**
+    Width of the numeric fields which are resolved after the layout is complete, so that the length
+    of the leading part of the file is known in advance.
+  */
+  private static final int ReservedNumberWidth = 10;
+
+  private static final String HintStreamFooter = Symbol.LineFeed + Keyword.EndStream + Symbol.LineFeed + Keyword.EndIndirectObject + Symbol.LineFeed;
+  /**
+    Filler of the reserved space.
+  */
+  private static final byte[] ReservedChunk = new byte[4096];
+  // </fields>
+
+  // <constructors>
+  static
+  {Arrays.fill(ReservedChunk, (byte)Symbol.Space);}
+  // </constructors>
+
+  // <interface>
+  // <internal>
+  /**
+    Collects the indirect objects reachable from the specified object.
+
+    @param object Object to explore.
+    @param pageBound Whether the exploration is bound to the objects which can be owned by a page
+      (parent links and structural objects aren't followed).
+    @param visitedObjects Objects to skip (updated with the collected ones).
+    @param objects Collected objects.
+  */
+  static void collect(
+    PdfDataObject object,
+    boolean pageBound,
+    Set<PdfIndirectObject> visitedObjects,
+    List<PdfIndirectObject> objects
+    )
+  {
+    /*
+      NOTE: Iterative exploration, as object chains (e.g. outline items) may be very long.
+    */
+    Deque<PdfDataObject> pendingObjects = new ArrayDeque<PdfDataObject>();
+    if(object != null)
+    {pendingObjects.push(object);}
+    while(!pendingObjects.isEmpty())
+    {
+      PdfDataObject pendingObject = pendingObjects.pop();
+      if(pendingObject instanceof PdfReference)
+      {
+        PdfIndirectObject indirectObject = ((PdfReference)pendingObject).getIndirectObject();
+        if(indirectObject == null
+          || !indirectObject.isInUse()
+          || visitedObjects.contains(indirectObject))
+          continue;
+
+        PdfDataObject dataObject = indirectObject.getDataObject();
+        if(dataObject == null
+          || (pageBound && isStructural(dataObject)))
+          continue;
+
+        visitedObjects.add(indirectObject);
+        objects.add(indirectObject);
+        pendingObjects.push(dataObject);
+      }
+      else if(pendingObject instanceof PdfDictionary)
+      {
+        for(Map.Entry<PdfName,PdfDirectObject> entry : ((PdfDictionary)pendingObject).entrySet())
+        {
+          if(entry.getValue() == null
+            || (pageBound && PdfName.Parent.equals(entry.getKey())))
+            continue;
+
+          pendingObjects.push(entry.getValue());
+        }
+      }
+      else if(pendingObject instanceof PdfArray)
+      {
+        for(PdfDirectObject item : (PdfArray)pendingObject)
+        {
+          if(item != null)
+          {pendingObjects.push(item);}
+        }
+      }
+      else if(pendingObject instanceof PdfStream)
+      {pendingObjects.push(((PdfStream)pendingObject).getHeader());}
+    }
+  }
+  // </internal>
+
+  // <private>
+  /**
+    Gets the number of bits needed to represent the specified non-negative value.
+  */
+  private static int getBitCount(
+    long value
+    )
+  {return 64 - Long.numberOfLeadingZeros(value);}
+
+  /**
+    Gets whether the specified data object belongs to the document structure (page tree nodes,
+    pages and catalog), which can't be owned by individual pages.
+  */
+  private static boolean isStructural(
+    PdfDataObject dataObject
+    )
+  {
+    if(!(dataObject instanceof PdfDictionary))
+      return false;
+
+    PdfDirectObject type = ((PdfDictionary)dataObject).get(PdfName.Type);
+    return PdfName.Page.equals(type)
+      || PdfName.Pages.equals(type)
+      || PdfName.Catalog.equals(type);
+  }
+
+  /**
+    Reserves the specified space in the stream, filling it with white-space.
+  */
+  private static void reserve(
+    IOutputStream stream,
+    long length
+    )
+  {
+    for(long remaining = length; remaining > 0; remaining -= ReservedChunk.length)
+    {stream.write(ReservedChunk, 0, (int)Math.min(remaining, ReservedChunk.length));}
+  }
+
+  /**
+    Formats the specified number as a fixed-width field (see {@link #ReservedNumberWidth}).
+  */
+  private static String reserve(
+    long value
+    )
+  {
+    StringBuilder buffer = new StringBuilder(Long.toString(value));
+    while(buffer.length() < ReservedNumberWidth)
+    {buffer.append(Symbol.Space);}
+    return buffer.toString();
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private final File file;
+  private final IOutputStream stream;
+  private final Writer writer;
+
+  /** Document catalog and document-level objects (part 4). */
+  private final List<PdfIndirectObject> documentObjects = new ArrayList<PdfIndirectObject>();
+  /** First page along with all its objects (part 6). */
+  private final List<PdfIndirectObject> firstPageObjects = new ArrayList<PdfIndirectObject>();
+  /** Remaining pages, each one along with its private objects (part 7). */
+  private final List<PdfIndirectObject> pageObjects = new ArrayList<PdfIndirectObject>();
+  /** Number of objects of each page (first page included). */
+  private int[] pageObjectCounts;
+  /** Shared object identifiers of each page (first page excluded). */
+  private int[][] pageSharedObjectIds;
+  /** Shared objects of the remaining pages (part 8). */
+  private final List<PdfIndirectObject> sharedObjects = new ArrayList<PdfIndirectObject>();
+  /** Other objects (part 9). */
+  private final List<PdfIndirectObject> otherObjects = new ArrayList<PdfIndirectObject>();
+  /** Inheritable attributes temporarily copied into each page object. */
+  private final Map<PdfDictionary,List<PdfName>> inheritedAttributes = new IdentityHashMap<PdfDictionary,List<PdfName>>();
+  // </fields>
+
+  // <constructors>
+  Linearizer(
+    Writer writer
+    )
+  {
+    this.writer = writer;
+    this.file = writer.getFile();
+    this.stream = writer.getStream();
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Serializes the file linearized.
+  */
+  public void write(
+    )
+  {
+    if(file.getTrailer().containsKey(PdfName.Encrypt))
+      throw new UnsupportedOperationException("Encrypted files can't be linearized.");
+
+    Document document = file.getDocument();
+    if(document.getPages().size() == 0)
+      throw new IllegalStateException("Documents without pages can't be linearized.");
+
+    // 1. Header [PDF:1.7:F.3.1].
+    writer.writeHeader();
+    long headerLength = stream.getLength();
+
+    // Update the trailer (before any renumbering, as it's used to compute the file identifier)!
+    PdfDictionary trailer = file.getTrailer();
+    writer.updateTrailer(trailer, stream);
+
+    try
+    {
+      // Arrange the objects!
+      arrange(document, trailer);
+
+      write(trailer, headerLength);
+    }
+    finally
+    {
+      // Remove the inheritable attributes copied into the page objects!
+      for(Map.Entry<PdfDictionary,List<PdfName>> entry : inheritedAttributes.entrySet())
+      {
+        PdfDictionary pageData = entry.getKey();
+        boolean updateable = pageData.isUpdateable();
+        pageData.setUpdateable(false);
+        for(PdfName key : entry.getValue())
+        {pageData.remove(key);}
+        pageData.setUpdateable(updateable);
+      }
+    }
+  }
+  // </public>
+
+  // <private>
+  private void appendXRefEntry(
+    StringBuilder xrefBuilder,
+    long offset
+    )
+  {
+    xrefBuilder.append(PlainWriter.XRefOffsetFormatter.format(offset)).append(Symbol.Space)
+      .append(PlainWriter.XRefGenerationFormatter.format(0)).append(Symbol.Space)
+      .append(Keyword.InUseXrefEntry).append(PlainWriter.XRefEOLChunk);
+  }
+
+  /**
+    Distributes the objects reachable from the trailer among the file parts.
+  */
+  private void arrange(
+    Document document,
+    PdfDictionary trailer
+    )
+  {
+    Set<PdfIndirectObject> arrangedObjects = Collections.newSetFromMap(new IdentityHashMap<PdfIndirectObject,Boolean>());
+
+    // 1. Document-level objects (part 4).
+    PdfReference catalogReference = (PdfReference)document.getBaseObject();
+    PdfDictionary catalog = document.getBaseDataObject();
+    documentObjects.add(catalogReference.getIndirectObject());
+    arrangedObjects.add(catalogReference.getIndirectObject());
+    collect(catalog.get(PdfName.ViewerPreferences), true, arrangedObjects, documentObjects);
+    collect(catalog.get(PdfName.OpenAction), true, arrangedObjects, documentObjects);
+    if(PdfName.UseOutlines.equals(catalog.get(PdfName.PageMode)))
+    {collect(catalog.get(PdfName.Outlines), true, arrangedObjects, documentObjects);}
+
+    // 2. Page objects.
+    List<Page> pages = document.getPages();
+    int pageCount = pages.size();
+    List<List<PdfIndirectObject>> pagesObjects = new ArrayList<List<PdfIndirectObject>>(pageCount);
+    Map<PdfIndirectObject,Integer> objectFirstPageIndexes = new IdentityHashMap<PdfIndirectObject,Integer>();
+    Set<PdfIndirectObject> pageSharedObjects = Collections.newSetFromMap(new IdentityHashMap<PdfIndirectObject,Boolean>());
+    for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+    {
+      PdfReference pageReference = (PdfReference)pages.get(pageIndex).getBaseObject();
+      PdfDictionary pageData = (PdfDictionary)pageReference.getDataObject();
+      /*
+        NOTE: Inheritable attributes are copied into the page object, so that the page can be
+        rendered without the page tree, which is located at the end of the file; as this applies to
+        the serialized file only, they are removed once done (see write() method), and the copy
+        doesn't mark the page object as modified.
+      */
+      List<PdfName> inheritedKeys = null;
+      for(PdfName key : Page.InheritableAttributeKeys)
+      {
+        if(!pageData.containsKey(key))
+        {
+          PdfDirectObject value = Page.getInheritableAttribute(pageData, key);
+          if(value != null)
+          {
+            if(inheritedKeys == null)
+            {inheritedAttributes.put(pageData, inheritedKeys = new ArrayList<PdfName>());}
+
+            boolean updateable = pageData.isUpdateable();
+            pageData.setUpdateable(false);
+            pageData.put(key, value);
+            pageData.setUpdateable(updateable);
+            inheritedKeys.add(key);
+          }
+        }
+      }
+
+      List<PdfIndirectObject> pageObjects = new ArrayList<PdfIndirectObject>();
+      pageObjects.add(pageReference.getIndirectObject());
+      Set<PdfIndirectObject> visitedObjects = Collections.newSetFromMap(new IdentityHashMap<PdfIndirectObject,Boolean>());
+      visitedObjects.addAll(documentObjects);
+      visitedObjects.add(pageReference.getIndirectObject());
+      collect(pageData, true, visitedObjects, pageObjects);
+      pagesObjects.add(pageObjects);
+
+      for(int index = 1, length = pageObjects.size(); index < length; index++)
+      {
+        PdfIndirectObject object = pageObjects.get(index);
+        Integer firstPageIndex = objectFirstPageIndexes.get(object);
+        if(firstPageIndex == null)
+        {objectFirstPageIndexes.put(object, pageIndex);}
+        else if(firstPageIndex != pageIndex)
+        {pageSharedObjects.add(object);}
+      }
+    }
+
+    // First page (part 6).
+    /*
+      NOTE: Each object in the first-page section is a shared object group on its own, while the
+      shared objects of the remaining pages follow (see shared object hint table).
+    */
+    Map<PdfIndirectObject,Integer> sharedObjectIds = new IdentityHashMap<PdfIndirectObject,Integer>();
+    firstPageObjects.addAll(pagesObjects.get(0));
+    for(PdfIndirectObject object : firstPageObjects)
+    {sharedObjectIds.put(object, sharedObjectIds.size());}
+    arrangedObjects.addAll(firstPageObjects);
+
+    // Remaining pages (part 7) and their shared objects (part 8).
+    pageObjectCounts = new int[pageCount];
+    pageObjectCounts[0] = firstPageObjects.size();
+    pageSharedObjectIds = new int[pageCount][];
+    pageSharedObjectIds[0] = new int[0];
+    for(int pageIndex = 1; pageIndex < pageCount; pageIndex++)
+    {
+      List<PdfIndirectObject> pageObjects = pagesObjects.get(pageIndex);
+      List<PdfIndirectObject> privateObjects = new ArrayList<PdfIndirectObject>();
+      List<Integer> sharedIds = new ArrayList<Integer>();
+      for(PdfIndirectObject object : pageObjects)
+      {
+        if(sharedObjectIds.containsKey(object)
+          || pageSharedObjects.contains(object))
+        {
+          Integer sharedId = sharedObjectIds.get(object);
+          if(sharedId == null)
+          {
+            sharedObjectIds.put(object, sharedId = sharedObjectIds.size());
+            sharedObjects.add(object);
+          }
+          sharedIds.add(sharedId);
+        }
+        else
+        {privateObjects.add(object);}
+      }
+      this.pageObjects.addAll(privateObjects);
+      pageObjectCounts[pageIndex] = privateObjects.size();
+      int[] pageSharedIds = pageSharedObjectIds[pageIndex] = new int[sharedIds.size()];
+      for(int index = 0; index < pageSharedIds.length; index++)
+      {pageSharedIds[index] = sharedIds.get(index);}
+    }
+    arrangedObjects.addAll(this.pageObjects);
+    arrangedObjects.addAll(sharedObjects);
+
+    // 3. Other objects (part 9).
+    List<PdfIndirectObject> reachableObjects = new ArrayList<PdfIndirectObject>();
+    Set<PdfIndirectObject> visitedObjects = Collections.newSetFromMap(new IdentityHashMap<PdfIndirectObject,Boolean>());
+    collect(trailer.get(PdfName.Root), false, visitedObjects, reachableObjects);
+    collect(trailer.get(PdfName.Info), false, visitedObjects, reachableObjects);
+    for(PdfIndirectObject object : reachableObjects)
+    {
+      if(!arrangedObjects.contains(object))
+      {otherObjects.add(object);}
+    }
+  }
+
+  /**
+    Gets the maximum length of the hint stream data, that is the length of the hint tables in case
+    all their variable-width items take 32 bits.
+  */
+  private int getHintDataMaxLength(
+    )
+  {
+    int pageCount = pageObjectCounts.length;
+    int pageSharedObjectCount = 0;
+    for(int[] pageSharedIds : pageSharedObjectIds)
+    {pageSharedObjectCount += pageSharedIds.length;}
+    int groupCount = firstPageObjects.size() + sharedObjects.size();
+    return 36 + pageCount * 4 * 4 + pageSharedObjectCount * 4 // Page offset hint table.
+      + 24 + groupCount * 4 + (groupCount + 7) / 8; // Shared object hint table.
+  }
+
+  /**
+    Gets the beginning of the hint stream object, up to its data.
+  */
+  private String getHintStreamHeader(
+    int number,
+    long sharedObjectHintTableOffset,
+    int dataLength
+    )
+  {
+    return number + " 0 " + Keyword.BeginIndirectObject + Symbol.LineFeed
+      + "<</S " + reserve(sharedObjectHintTableOffset) + " /Length " + dataLength + ">>"
+      + Symbol.LineFeed + Keyword.BeginStream + Symbol.LineFeed;
+  }
+
+  /**
+    Gets the length of the hint stream object.
+
+    @param number Object number.
+    @param dataLength Data length (see {@link #getHintDataMaxLength()}).
+  */
+  private long getHintStreamLength(
+    int number,
+    int dataLength
+    )
+  {return getHintStreamHeader(number, 0, dataLength).length() + dataLength + HintStreamFooter.length();}
+
+  private void renumber(
+    PdfIndirectObject object,
+    int number
+    )
+  {
+    XRefEntry xrefEntry = object.getXrefEntry();
+    xrefEntry.setNumber(number);
+    xrefEntry.setGeneration(0);
+  }
+
+  /**
+    Serializes the arranged objects along with the cross-reference sections.
+    <p>Objects are written straight to the target stream; the leading part (linearization
+    dictionary, first-page cross-reference table and trailer) and the hint stream depend on the
+    layout of the whole file, so their space is reserved (see {@link #ReservedNumberWidth} and
+    {@link #getHintDataMaxLength()}) and filled in once the layout is complete.</p>
+
+    @param trailer File trailer.
+    @param headerLength Position of the leading part.
+  */
+  private void write(
+    PdfDictionary trailer,
+    long headerLength
+    )
+  {
+    /*
+      NOTE: Objects are numbered according to their position: the main section (parts 7-9)
+      starts at 1, then follows the first-page section (linearization dictionary, part 4, hint
+      stream and part 6).
+    */
+    List<PdfIndirectObject> mainObjects = new ArrayList<PdfIndirectObject>(pageObjects);
+    mainObjects.addAll(sharedObjects);
+    mainObjects.addAll(otherObjects);
+    int mainSize = mainObjects.size() + 1;
+    int linearizationNumber = mainSize;
+    int hintNumber = linearizationNumber + documentObjects.size() + 1;
+    int size = hintNumber + firstPageObjects.size() + 1;
+    List<PdfIndirectObject> objects = new ArrayList<PdfIndirectObject>(size);
+    objects.addAll(documentObjects);
+    objects.addAll(firstPageObjects);
+    objects.addAll(mainObjects);
+    /*
+      NOTE: Data objects are pinned during serialization, so that they aren't reclaimed (see
+      FileConfiguration.getObjectCacheSize()) while their xref entries are renumbered.
+    */
+    PdfDataObject[] dataObjects = new PdfDataObject[objects.size()];
+    int[] numbers = new int[objects.size()];
+    int[] generations = new int[objects.size()];
+    for(int index = 0, length = objects.size(); index < length; index++)
+    {
+      PdfIndirectObject object = objects.get(index);
+      dataObjects[index] = object.getDataObject();
+      numbers[index] = object.getXrefEntry().getNumber();
+      generations[index] = object.getXrefEntry().getGeneration();
+    }
+    /*
+      NOTE: Reserved space is filled in through the file channel of the target stream; in case the
+      target stream can't be overwritten, the file is serialized to a temporary file first.
+    */
+    OutputStream target;
+    long targetOffset; // Position of the target stream within the file (the temporary file follows the header).
+    java.io.File tempFile = null;
+    if(stream instanceof OutputStream
+      && ((OutputStream)stream).isOverwritable())
+    {
+      target = (OutputStream)stream;
+      targetOffset = 0;
+    }
+    else
+    {
+      try
+      {
+        tempFile = java.io.File.createTempFile("pdfclown", ".pdf");
+        java.io.FileOutputStream tempFileStream = new java.io.FileOutputStream(tempFile);
+        target = new OutputStream(new java.io.BufferedOutputStream(tempFileStream), tempFileStream.getChannel());
+      }
+      catch(IOException e)
+      {
+        if(tempFile != null)
+        {tempFile.delete();}
+        throw new RuntimeException("Temporary file creation failed.", e);
+      }
+      targetOffset = headerLength;
+    }
+    try
+    {
+      // Renumber the objects!
+      {
+        int number = linearizationNumber + 1;
+        for(PdfIndirectObject object : documentObjects)
+        {renumber(object, number++);}
+        number++; // Hint stream.
+        for(PdfIndirectObject object : firstPageObjects)
+        {renumber(object, number++);}
+        number = 1;
+        for(PdfIndirectObject object : mainObjects)
+        {renumber(object, number++);}
+        file.setRenumbered(true);
+      }
+
+      int firstPageIndex = documentObjects.size();
+      int firstMainIndex = documentObjects.size() + firstPageObjects.size();
+
+      // Reserve the leading part (linearization dictionary, first-page xref table and trailer)!
+      int firstPageXRefEntryCount = size - linearizationNumber;
+      long firstPageXRefOffset = headerLength + writeLinearizationDictionary(new Buffer(), linearizationNumber, 0, 0, 0, 0, 0, pageObjectCounts.length, 0).getLength();
+      long bodyOffset = firstPageXRefOffset
+        + writeFirstPageXRef(new Buffer(), linearizationNumber, new long[firstPageXRefEntryCount]).getLength()
+        + writeFirstPageTrailer(new Buffer(), size, trailer, 0).getLength();
+      reserve(target, bodyOffset - headerLength);
+
+      // Serialize the objects!
+      /*
+        NOTE: Offsets are relative to the beginning of part 4, as if the hint stream (which is
+        inserted between part 4 and part 6) were absent.
+      */
+      long[] offsets = new long[objects.size() + 1];
+      int hintDataLength = getHintDataMaxLength();
+      long hintOffset;
+      long hintLength = getHintStreamLength(hintNumber, hintDataLength);
+      {
+        int index = 0;
+        for(PdfIndirectObject object : documentObjects)
+        {
+          offsets[index++] = targetOffset + target.getLength() - bodyOffset;
+          object.writeTo(target, file);
+        }
+        // Reserve the hint stream!
+        hintOffset = targetOffset + target.getLength();
+        reserve(target, hintLength);
+        for(int length = objects.size(); index < length; index++)
+        {
+          offsets[index] = targetOffset + target.getLength() - bodyOffset - hintLength;
+          objects.get(index).writeTo(target, file);
+        }
+        offsets[index] = targetOffset + target.getLength() - bodyOffset - hintLength;
+      }
+
+      // Main xref table and trailer.
+      long mainXRefOffset = targetOffset + target.getLength();
+      String mainXRefHeader = PlainWriter.XRefChunk + 0 + Symbol.Space + mainSize;
+      {
+        StringBuilder xrefBuilder = new StringBuilder(mainXRefHeader).append(Symbol.LineFeed);
+        xrefBuilder.append(PlainWriter.XRefOffsetFormatter.format(0)).append(Symbol.Space)
+          .append(PlainWriter.XRefGenerationFormatter.format(XRefEntry.GenerationUnreusable)).append(Symbol.Space)
+          .append(Keyword.FreeXrefEntry).append(PlainWriter.XRefEOLChunk);
+        target.write(xrefBuilder.toString());
+        for(int index = firstMainIndex, length = objects.size(); index < length; index++)
+        {
+          xrefBuilder.setLength(0);
+          appendXRefEntry(xrefBuilder, bodyOffset + hintLength + offsets[index]);
+          target.write(xrefBuilder.toString());
+        }
+      }
+      target.write(PlainWriter.TrailerChunk);
+      PdfDictionary mainTrailer = new PdfDictionary(
+        new PdfName[]{PdfName.Size},
+        new PdfDirectObject[]{PdfInteger.get(mainSize)}
+        );
+      mainTrailer.writeTo(target, file); target.write(Chunk.LineFeed);
+      /*
+        NOTE: The last startxref points to the first-page xref table, which links back to the main
+        one through its trailer [PDF:1.7:F.3.4].
+      */
+      Writer.writeTail(target, firstPageXRefOffset);
+
+      // Fill in the leading part!
+      Buffer prefix = new Buffer();
+      writeLinearizationDictionary(
+        prefix,
+        linearizationNumber,
+        targetOffset + target.getLength(), // File length.
+        hintOffset,
+        hintLength,
+        bodyOffset + hintLength + offsets[firstPageIndex], // First page's page object.
+        bodyOffset + hintLength + offsets[firstMainIndex], // End of the first page.
+        pageObjectCounts.length,
+        mainXRefOffset + mainXRefHeader.length() // White-space preceding the first entry of the main xref table.
+        );
+      {
+        long[] firstPageOffsets = new long[firstPageXRefEntryCount];
+        int entryIndex = 0;
+        firstPageOffsets[entryIndex++] = headerLength;
+        for(int index = 0; index < documentObjects.size(); index++)
+        {firstPageOffsets[entryIndex++] = bodyOffset + offsets[index];}
+        firstPageOffsets[entryIndex++] = hintOffset;
+        for(int index = firstPageIndex; index < firstMainIndex; index++)
+        {firstPageOffsets[entryIndex++] = bodyOffset + hintLength + offsets[index];}
+        writeFirstPageXRef(prefix, linearizationNumber, firstPageOffsets);
+      }
+      writeFirstPageTrailer(prefix, size, trailer, mainXRefOffset);
+      if(headerLength + prefix.getLength() != bodyOffset) // Should NEVER happen.
+        throw new IllegalStateException("Linearization layout mismatch.");
+      target.write(headerLength - targetOffset, prefix.toByteArray());
+
+      // Fill in the hint stream!
+      Buffer hintStream = writeHintStream(new Buffer(), hintNumber, bodyOffset, offsets, hintDataLength);
+      if(hintStream.getLength() != hintLength) // Should NEVER happen.
+        throw new IllegalStateException("Hint stream layout mismatch.");
+      target.write(hintOffset - targetOffset, hintStream.toByteArray());
+
+      if(tempFile != null)
+      {
+        // Serialize the file!
+        target.close();
+        FileInputStream tempFileStream = new FileInputStream(new java.io.RandomAccessFile(tempFile, "r"));
+        try
+        {stream.write(tempFileStream);}
+        finally
+        {tempFileStream.close();}
+      }
+    }
+    catch(IOException e)
+    {throw new RuntimeException(e);}
+    finally
+    {
+      if(tempFile != null)
+      {
+        IOUtils.closeQuietly(target);
+        tempFile.delete();
+      }
+      // Restore the original object numbers!
+      file.setRenumbered(false);
+      for(int index = 0, length = objects.size(); index < length; index++)
+      {
+        XRefEntry xrefEntry = objects.get(index).getXrefEntry();
+        xrefEntry.setNumber(numbers[index]);
+        xrefEntry.setGeneration(generations[index]);
+      }
+      // Unpin the data objects!
+      Arrays.fill(dataObjects, null);
+    }
+  }
+
+  /**
+    Serializes the first-page cross-reference table [PDF:1.7:F.3.3].
+
+    @param target Target stream.
+    @param firstNumber Object number of the first entry.
+    @param offsets Entry offsets.
+  */
+  private Buffer writeFirstPageXRef(
+    Buffer target,
+    int firstNumber,
+    long[] offsets
+    )
+  {
+    StringBuilder xrefBuilder = new StringBuilder(PlainWriter.XRefChunk)
+      .append(firstNumber).append(Symbol.Space).append(offsets.length).append(Symbol.LineFeed);
+    for(long offset : offsets)
+    {appendXRefEntry(xrefBuilder, offset);}
+    target.write(xrefBuilder.toString());
+    return target;
+  }
+
+  /**
+    Serializes the first-page trailer [PDF:1.7:F.3.3].
+
+    @param target Target stream.
+    @param size Total number of objects.
+    @param trailer File trailer.
+    @param prev Position of the main cross-reference table.
+  */
+  private Buffer writeFirstPageTrailer(
+    Buffer target,
+    int size,
+    PdfDictionary trailer,
+    long prev
+    )
+  {
+    target.write(PlainWriter.TrailerChunk);
+    target.write("<</Size " + size + " /Prev " + reserve(prev));
+    for(PdfName key : new PdfName[]{PdfName.Root, PdfName.Info, PdfName.ID})
+    {
+      PdfDirectObject value = trailer.get(key);
+      if(value == null)
+        continue;
+
+      target.write(Chunk.Space);
+      key.writeTo(target, file);
+      target.write(Chunk.Space);
+      value.writeTo(target, file);
+    }
+    target.write(">>" + Symbol.LineFeed);
+    /*
+      NOTE: The first-page trailer is never the last one, so its startxref value is ignored by
+      readers [PDF:1.7:F.3.3].
+    */
+    Writer.writeTail(target, 0);
+    return target;
+  }
+
+  /**
+    Serializes the primary hint stream [PDF:1.7:F.4].
+    <p>NOTE: Hint table offsets are computed as if the hint stream were absent.</p>
+
+    @param target Target stream.
+    @param number Object number.
+    @param bodyOffset Position of part 4.
+    @param offsets Object positions (relative to part 4).
+    @param dataLength Data length (see {@link #getHintDataMaxLength()}).
+  */
+  private Buffer writeHintStream(
+    Buffer target,
+    int number,
+    long bodyOffset,
+    long[] offsets,
+    int dataLength
+    )
+  {
+    HintTableWriter hintTable = new HintTableWriter();
+    int firstPageIndex = documentObjects.size();
+    int pagesIndex = firstPageIndex + firstPageObjects.size();
+
+    // 1. Page offset hint table [PDF:1.7:F.4.1].
+    int pageCount = pageObjectCounts.length;
+    long[] pageLengths = new long[pageCount];
+    {
+      int objectIndex = firstPageIndex;
+      for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+      {
+        int endObjectIndex = objectIndex + pageObjectCounts[pageIndex];
+        pageLengths[pageIndex] = offsets[endObjectIndex] - offsets[objectIndex];
+        objectIndex = endObjectIndex;
+      }
+    }
+    int minObjectCount = Integer.MAX_VALUE, maxObjectCount = 0;
+    long minPageLength = Long.MAX_VALUE, maxPageLength = 0;
+    int maxSharedObjectCount = 0, maxSharedObjectId = 0;
+    for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+    {
+      minObjectCount = Math.min(minObjectCount, pageObjectCounts[pageIndex]);
+      maxObjectCount = Math.max(maxObjectCount, pageObjectCounts[pageIndex]);
+      minPageLength = Math.min(minPageLength, pageLengths[pageIndex]);
+      maxPageLength = Math.max(maxPageLength, pageLengths[pageIndex]);
+      maxSharedObjectCount = Math.max(maxSharedObjectCount, pageSharedObjectIds[pageIndex].length);
+      for(int sharedObjectId : pageSharedObjectIds[pageIndex])
+      {maxSharedObjectId = Math.max(maxSharedObjectId, sharedObjectId);}
+    }
+    int objectCountBits = getBitCount(maxObjectCount - minObjectCount);
+    int pageLengthBits = getBitCount(maxPageLength - minPageLength);
+    int sharedObjectCountBits = getBitCount(maxSharedObjectCount);
+    int sharedObjectIdBits = getBitCount(maxSharedObjectId);
+    // Header.
+    hintTable.write(minObjectCount, 32); // Item 1: least number of objects in a page.
+    hintTable.write(bodyOffset + offsets[firstPageIndex], 32); // Item 2: location of the first page's page object.
+    hintTable.write(objectCountBits, 16); // Item 3.
+    hintTable.write(minPageLength, 32); // Item 4: least length of a page.
+    hintTable.write(pageLengthBits, 16); // Item 5.
+    /*
+      NOTE: Content stream items follow the Acrobat convention (least offset and its delta set to
+      0, content length matching page length) [PDF:1.7:F.4.1, implementation note].
+    */
+    hintTable.write(0, 32); // Item 6: least content stream offset.
+    hintTable.write(0, 16); // Item 7.
+    hintTable.write(minPageLength, 32); // Item 8: least content stream length.
+    hintTable.write(pageLengthBits, 16); // Item 9.
+    hintTable.write(sharedObjectCountBits, 16); // Item 10.
+    hintTable.write(sharedObjectIdBits, 16); // Item 11.
+    hintTable.write(0, 16); // Item 12: bits of the fractional position numerators.
+    hintTable.write(1, 16); // Item 13: denominator of the fractional positions.
+    // Per-page entries (each item sequence for all the pages).
+    for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+    {hintTable.write(pageObjectCounts[pageIndex] - minObjectCount, objectCountBits);}
+    hintTable.align();
+    for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+    {hintTable.write(pageLengths[pageIndex] - minPageLength, pageLengthBits);}
+    hintTable.align();
+    for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+    {hintTable.write(pageSharedObjectIds[pageIndex].length, sharedObjectCountBits);}
+    hintTable.align();
+    for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+    {
+      for(int sharedObjectId : pageSharedObjectIds[pageIndex])
+      {hintTable.write(sharedObjectId, sharedObjectIdBits);}
+    }
+    hintTable.align();
+    // Content stream offsets (no bits), then lengths.
+    for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+    {hintTable.write(pageLengths[pageIndex] - minPageLength, pageLengthBits);}
+    hintTable.align();
+    int sharedObjectHintTableOffset = hintTable.toByteArray().length;
+
+    // 2. Shared object hint table [PDF:1.7:F.4.2].
+    int groupCount = firstPageObjects.size() + sharedObjects.size();
+    long[] groupLengths = new long[groupCount];
+    for(int groupIndex = 0; groupIndex < firstPageObjects.size(); groupIndex++)
+    {
+      int objectIndex = firstPageIndex + groupIndex;
+      groupLengths[groupIndex] = offsets[objectIndex + 1] - offsets[objectIndex];
+    }
+    int sharedIndex = pagesIndex + pageObjects.size();
+    for(int groupIndex = firstPageObjects.size(); groupIndex < groupCount; groupIndex++)
+    {
+      int objectIndex = sharedIndex + groupIndex - firstPageObjects.size();
+      groupLengths[groupIndex] = offsets[objectIndex + 1] - offsets[objectIndex];
+    }
+    long minGroupLength = Long.MAX_VALUE, maxGroupLength = 0;
+    for(long groupLength : groupLengths)
+    {
+      minGroupLength = Math.min(minGroupLength, groupLength);
+      maxGroupLength = Math.max(maxGroupLength, groupLength);
+    }
+    int groupLengthBits = getBitCount(maxGroupLength - minGroupLength);
+    // Header.
+    hintTable.write(sharedObjects.isEmpty() ? 0 : 1 + pageObjects.size(), 32); // Item 1: object number of the first shared object.
+    hintTable.write(sharedObjects.isEmpty() ? 0 : bodyOffset + offsets[sharedIndex], 32); // Item 2: location of the first shared object.
+    hintTable.write(firstPageObjects.size(), 32); // Item 3: number of shared object entries for the first page.
+    hintTable.write(groupCount, 32); // Item 4: number of shared object entries.
+    hintTable.write(0, 16); // Item 5: bits of the greatest number of objects in a group (single-object groups).
+    hintTable.write(minGroupLength, 32); // Item 6: least length of a group.
+    hintTable.write(groupLengthBits, 16); // Item 7.
+    // Entries.
+    for(long groupLength : groupLengths)
+    {hintTable.write(groupLength - minGroupLength, groupLengthBits);}
+    hintTable.align();
+    for(int groupIndex = 0; groupIndex < groupCount; groupIndex++)
+    {hintTable.write(0, 1);} // No signature.
+    hintTable.align();
+    // NOTE: Object counts per group take no bits.
+
+    byte[] data = hintTable.toByteArray();
+    if(data.length > dataLength) // Should NEVER happen.
+      throw new IllegalStateException("Hint tables exceed their reserved space.");
+
+    /*
+      NOTE: As the hint stream fills a reserved space, its data are padded with zeros (trailing
+      bytes are ignored by readers, as hint tables are located through their offsets).
+    */
+    target.write(getHintStreamHeader(number, sharedObjectHintTableOffset, dataLength));
+    target.write(Arrays.copyOf(data, dataLength));
+    target.write(HintStreamFooter);
+    return target;
+  }
+
+  /**
+    Serializes the linearization parameter dictionary [PDF:1.7:F.3.2].
+    <p>Its numeric values are resolved once the layout is complete, so they are written as
+    fixed-width fields.</p>
+  */
+  private Buffer writeLinearizationDictionary(
+    Buffer target,
+    int number,
+    long fileLength,
+    long hintOffset,
+    long hintLength,
+    long firstPageOffset,
+    long firstPageEndOffset,
+    int pageCount,
+    long mainXRefEntriesOffset
+    )
+  {
+    /*
+      NOTE: The object number of the first page's page object (O) follows the linearization
+      dictionary, part 4 and the hint stream.
+    */
+    int firstPageNumber = number + documentObjects.size() + 2;
+    target.write(number + " 0 " + Keyword.BeginIndirectObject + Symbol.LineFeed);
+    target.write(
+      "<</Linearized 1.0"
+        + " /L " + reserve(fileLength)
+        + " /H [" + reserve(hintOffset) + Symbol.Space + reserve(hintLength) + "]"
+        + " /O " + firstPageNumber
+        + " /E " + reserve(firstPageEndOffset)
+        + " /N " + pageCount
+        + " /T " + reserve(mainXRefEntriesOffset)
+        + ">>"
+      );
+    target.write(Symbol.LineFeed + Keyword.EndIndirectObject + Symbol.LineFeed);
+    return target;
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
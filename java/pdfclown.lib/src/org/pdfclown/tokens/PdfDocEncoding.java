@@ -25,14 +25,12 @@
 
 package org.pdfclown.tokens;
 
-import org.pdfclown.util.BiMap;
-
 /**
   Encoding for text strings in a PDF document outside the document's content streams [PDF:1.7:D].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.1.2
-  @version 0.1.2, 02/20/12
+  @version 0.2.0
 */
 public final class PdfDocEncoding
   extends LatinEncoding
@@ -46,83 +44,60 @@ public final class PdfDocEncoding
   public static PdfDocEncoding get(
     )
   {return instance;}
-  // <interface>
+
+  // <private>
+  private static char[] getChars(
+    )
+  {
+    /*
+      NOTE: Codes are mapped to the same Unicode values, except for the 0x80-0xA0 range.
+    */
+    char[] chars = new char[256];
+    for(int code = 0; code < chars.length; code++)
+    {chars[code] = (char)code;}
+    chars[0x80] = '\u2022';
+    chars[0x81] = '\u2020';
+    chars[0x82] = '\u2021';
+    chars[0x84] = '\u2014';
+    chars[0x85] = '\u2013';
+    chars[0x86] = '\u0192';
+    chars[0x87] = '\u2044';
+    chars[0x88] = '\u2039';
+    chars[0x89] = '\u203A';
+    chars[0x8A] = '\u2212';
+    chars[0x8B] = '\u2030';
+    chars[0x8C] = '\u201E';
+    chars[0x8D] = '\u201C';
+    chars[0x8E] = '\u201D';
+    chars[0x8F] = '\u2018';
+    chars[0x90] = '\u2019';
+    chars[0x91] = '\u201A';
+    chars[0x92] = '\u2122';
+    chars[0x93] = '\uFB01';
+    chars[0x94] = '\uFB02';
+    chars[0x95] = '\u0141';
+    chars[0x96] = '\u0152';
+    chars[0x97] = '\u0160';
+    chars[0x98] = '\u0178';
+    chars[0x99] = '\u017D';
+    chars[0x9A] = '\u0131';
+    chars[0x9B] = '\u0142';
+    chars[0x9C] = '\u0153';
+    chars[0x9D] = '\u0161';
+    chars[0x9E] = '\u017E';
+    chars[0x9F] = '\u009F';
+    chars[0xA0] = '\u20AC';
+    return chars;
+  }
+  // </private>
+  // </interface>
   // </static>
 
   // <dynamic>
   // <constructors>
   private PdfDocEncoding(
     )
-  {
-    chars = new BiMap<Integer,Character>()
-    {
-      private static final long serialVersionUID = 1L;
-
-      private boolean isIdentity(
-        int code
-        )
-      {return code < 128 || (code > 160 && code < 256);}
-
-      @Override
-      public synchronized Character get(
-        Object key
-        )
-      {
-        Integer code = (Integer)key;
-        return isIdentity(code) 
-          ? (char)code.intValue()
-          : super.get(key);
-      }
-
-      @Override
-      public Integer getKey(
-        Character value
-        )
-      {
-        if(isIdentity(value))
-          return (int)value;
-        else
-          return super.getKey(value);
-      }
-
-      @Override
-      public synchronized int size(
-        )
-      {return 256;}
-    };
-    chars.put(0x80, '\u2022');
-    chars.put(0x81, '\u2020');
-    chars.put(0x82, '\u2021');
-    chars.put(0x84, '\u2014');
-    chars.put(0x85, '\u2013');
-    chars.put(0x86, '\u0192');
-    chars.put(0x87, '\u2044');
-    chars.put(0x88, '\u2039');
-    chars.put(0x89, '\u203A');
-    chars.put(0x8A, '\u2212');
-    chars.put(0x8B, '\u2030');
-    chars.put(0x8C, '\u201E');
-    chars.put(0x8D, '\u201C');
-    chars.put(0x8E, '\u201D');
-    chars.put(0x8F, '\u2018');
-    chars.put(0x90, '\u2019');
-    chars.put(0x91, '\u201A');
-    chars.put(0x92, '\u2122');
-    chars.put(0x93, '\uFB01');
-    chars.put(0x94, '\uFB02');
-    chars.put(0x95, '\u0141');
-    chars.put(0x96, '\u0152');
-    chars.put(0x97, '\u0160');
-    chars.put(0x98, '\u0178');
-    chars.put(0x99, '\u017D');
-    chars.put(0x9A, '\u0131');
-    chars.put(0x9B, '\u0142');
-    chars.put(0x9C, '\u0153');
-    chars.put(0x9D, '\u0161');
-    chars.put(0x9E, '\u017E');
-    chars.put(0x9F, '\u009F');
-    chars.put(0xA0, '\u20AC');
-  }
+  {super(getChars());}
   // </constructors>
   // </dynamic>
 }
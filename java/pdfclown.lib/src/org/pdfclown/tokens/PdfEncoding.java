@@ -25,7 +25,7 @@
 
 package org.pdfclown.tokens;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 
 /**
   PDF serialization encoding [PDF:1.6:3.1].
@@ -36,11 +36,21 @@ import java.io.UnsupportedEncodingException;
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.1.2
-  @version 0.1.2, 02/20/12
+  @version 0.2.0
 */
 public final class PdfEncoding
   extends Encoding
 {
+  // <class>
+  // <static>
+  // <fields>
+  /*
+    NOTE: The charset instance is resolved once, so that conversions skip the charset lookup by name.
+  */
+  private static final Charset Latin1Charset = Charset.forName(CharsetName.ISO88591);
+  // </fields>
+  // </static>
+
   // <dynamic>
   // <constructors>
   PdfEncoding(
@@ -53,12 +63,7 @@ public final class PdfEncoding
   public String decode(
     byte[] value
     )
-  {
-    try
-    {return new String(value, CharsetName.ISO88591);}
-    catch(UnsupportedEncodingException e)
-    {throw new RuntimeException(e);}
-  }
+  {return new String(value, Latin1Charset);}
 
   @Override
   public String decode(
@@ -66,23 +71,14 @@ public final class PdfEncoding
     int index,
     int length
     )
-  {
-    try
-    {return new String(value, index, length, CharsetName.ISO88591);}
-    catch(UnsupportedEncodingException e)
-    {throw new RuntimeException(e);}
-  }
+  {return new String(value, index, length, Latin1Charset);}
 
   @Override
   public byte[] encode(
     String value
     )
-  {
-    try
-    {return value.getBytes(CharsetName.ISO88591);}
-    catch(UnsupportedEncodingException e)
-    {throw new RuntimeException(e);}
-  }
+  {return value.getBytes(Latin1Charset);}
   // </interface>
   // </dynamic>
+  // </class>
 }
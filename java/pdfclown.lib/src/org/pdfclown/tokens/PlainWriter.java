@@ -37,8 +37,8 @@ import org.pdfclown.objects.PdfDictionary;
 import org.pdfclown.objects.PdfIndirectObject;
 import org.pdfclown.objects.PdfInteger;
 import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.objects.PdfReference;
-import org.pdfclown.util.NotImplementedException;
 
 /**
   PDF file writer implementing classic cross-reference table [PDF:1.6:3.4.3].
@@ -52,12 +52,12 @@ final class PlainWriter
   // <class>
   // <static>
   // <fields>
-  private static final byte[] TrailerChunk = Encoding.Pdf.encode(Keyword.Trailer + Symbol.LineFeed);
-  private static final String XRefChunk = Keyword.XRef + Symbol.LineFeed;
-  private static final String XRefEOLChunk = "" + Symbol.CarriageReturn + Symbol.LineFeed;
+  static final byte[] TrailerChunk = Encoding.Pdf.encode(Keyword.Trailer + Symbol.LineFeed);
+  static final String XRefChunk = Keyword.XRef + Symbol.LineFeed;
+  static final String XRefEOLChunk = "" + Symbol.CarriageReturn + Symbol.LineFeed;
 
-  private static final DecimalFormat XRefGenerationFormatter = new DecimalFormat("00000");
-  private static final DecimalFormat XRefOffsetFormatter = new DecimalFormat("0000000000");
+  static final DecimalFormat XRefGenerationFormatter = new DecimalFormat("00000");
+  static final DecimalFormat XRefOffsetFormatter = new DecimalFormat("0000000000");
   // </fields>
   // </static>
 
@@ -78,7 +78,7 @@ final class PlainWriter
   {
     // 1. Original content (head, body and previous trailer).
     FileParser parser = file.getReader().getParser();
-    stream.write(parser.getStream());
+    writeOriginal();
 
     // 2. Body update (modified indirect objects insertion).
     int xrefSize = file.getIndirectObjects().size();
@@ -132,6 +132,7 @@ final class PlainWriter
             stream.getLength()
             );
           // Add in-use entry content!
+          encodeStreamsAhead();
           indirectObjectEntry.getValue().writeTo(stream, file);
         }
         else // Free entry.
@@ -169,7 +170,7 @@ final class PlainWriter
   @Override
   protected void writeLinearized(
     )
-  {throw new NotImplementedException();}
+  {new Linearizer(this).write();}
 
   @Override
   protected void writeStandard(
@@ -210,6 +211,7 @@ final class PlainWriter
             stream.getLength()
             );
           // Add in-use entry content!
+          encodeStreamsAhead();
           indirectObject.writeTo(stream, file);
         }
         else // Free entry.
@@ -331,7 +333,7 @@ final class PlainWriter
     if(parser == null)
     {trailer.remove(PdfName.Prev);} // [FIX:0.0.4:5] It (wrongly) kept the 'Prev' entry of multiple-section xref tables.
     else
-    {trailer.put(PdfName.Prev, PdfInteger.get((int)parser.retrieveXRefOffset()));}
+    {trailer.put(PdfName.Prev, PdfNumber.get(parser.retrieveXRefOffset()));}
     // Serialize its contents!
     trailer.writeTo(stream, file); stream.write(Chunk.LineFeed);
 
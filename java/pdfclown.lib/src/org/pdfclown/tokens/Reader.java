@@ -28,14 +28,13 @@ package org.pdfclown.tokens;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.SortedMap;
-import java.util.TreeMap;
 
 import org.pdfclown.Version;
 import org.pdfclown.bytes.IInputStream;
 import org.pdfclown.files.File;
 import org.pdfclown.objects.PdfDictionary;
-import org.pdfclown.objects.PdfInteger;
 import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.util.parsers.PostScriptParseException;
 import org.pdfclown.util.parsers.PostScriptParser.TokenTypeEnum;
 
@@ -54,12 +53,12 @@ public final class Reader
   {
     private final PdfDictionary trailer;
     private final Version version;
-    private final SortedMap<Integer,XRefEntry> xrefEntries;
+    private final XRefEntryTable xrefEntries;
 
     FileInfo(
       Version version,
       PdfDictionary trailer,
-      SortedMap<Integer,XRefEntry> xrefEntries
+      XRefEntryTable xrefEntries
       )
     {
       this.version = version;
@@ -75,8 +74,18 @@ public final class Reader
       )
     {return version;}
 
+    /**
+      Gets the cross-reference entries (read-only).
+    */
     public SortedMap<Integer,XRefEntry> getXrefEntries(
       )
+    {return xrefEntries.asMap();}
+
+    /**
+      <span style="color:red">For internal use only.</span>
+    */
+    public XRefEntryTable getXrefEntryTable(
+      )
     {return xrefEntries;}
   }
   // </classes>
@@ -117,7 +126,7 @@ public final class Reader
 //TODO:hybrid xref table/stream
     Version version = Version.get(parser.retrieveVersion());
     PdfDictionary trailer = null;
-    SortedMap<Integer,XRefEntry> xrefEntries = new TreeMap<Integer,XRefEntry>();
+    XRefEntryTable xrefEntries = new XRefEntryTable();
     {
       long sectionOffset = parser.retrieveXRefOffset();
       while(sectionOffset > -1)
@@ -126,7 +135,8 @@ public final class Reader
         parser.seek(sectionOffset);
 
         PdfDictionary sectionTrailer;
-        if(parser.getToken(1).equals(Keyword.XRef)) // XRef-table section.
+        parser.moveNext();
+        if(parser.tokenEquals(Keyword.XRef)) // XRef-table section.
         {
           // Looping sequentially across the subsections inside the current xref-table section...
           while(true)
@@ -139,13 +149,13 @@ public final class Reader
             // 1. First object number.
             parser.moveNext();
             if((parser.getTokenType() == TokenTypeEnum.Keyword)
-                && parser.getToken().equals(Keyword.Trailer)) // XRef-table section ended.
+                && parser.tokenEquals(Keyword.Trailer)) // XRef-table section ended.
               break;
             else if(parser.getTokenType() != TokenTypeEnum.Integer)
               throw new PostScriptParseException("Neither object number of the first object in this xref subsection nor end of xref section found.", parser);
 
             // Get the object number of the first object in this xref-table subsection!
-            int startObjectNumber = (Integer)parser.getToken();
+            int startObjectNumber = parser.getIntegerToken();
 
             // 2. Last object number.
             parser.moveNext();
@@ -153,7 +163,7 @@ public final class Reader
               throw new PostScriptParseException("Number of entries in this xref subsection not found.", parser);
 
             // Get the object number of the last object in this xref-table subsection!
-            int endObjectNumber = (Integer)parser.getToken() + startObjectNumber;
+            int endObjectNumber = parser.getIntegerToken() + startObjectNumber;
 
             // 3. XRef-table subsection entries.
             for(
@@ -162,7 +172,7 @@ public final class Reader
               index++
               )
             {
-              if(xrefEntries.containsKey(index)) // Already-defined entry.
+              if(xrefEntries.contains(index)) // Already-defined entry.
               {
                 // Skip to the next entry!
                 parser.moveNext(3);
@@ -170,31 +180,25 @@ public final class Reader
               }
 
               // Get the indirect object offset!
-              int offset = (Integer)parser.getToken(1);
+              parser.moveNext();
+              long offset = parser.getLongToken();
               // Get the object generation number!
-              int generation = (Integer)parser.getToken(1);
+              parser.moveNext();
+              int generation = parser.getIntegerToken();
               // Get the usage tag!
               XRefEntry.UsageEnum usage;
               {
-                String usageToken = (String)parser.getToken(1);
-                if(usageToken.equals(Keyword.InUseXrefEntry))
+                parser.moveNext();
+                if(parser.tokenEquals(Keyword.InUseXrefEntry))
                   usage = XRefEntry.UsageEnum.InUse;
-                else if(usageToken.equals(Keyword.FreeXrefEntry))
+                else if(parser.tokenEquals(Keyword.FreeXrefEntry))
                   usage = XRefEntry.UsageEnum.Free;
                 else
                   throw new PostScriptParseException("Invalid xref entry.", parser);
               }
 
               // Define entry!
-              xrefEntries.put(
-                index,
-                new XRefEntry(
-                  index,
-                  generation,
-                  offset,
-                  usage
-                  )
-                );
+              xrefEntries.put(index, generation, offset, usage);
             }
           }
 
@@ -205,14 +209,7 @@ public final class Reader
         {
           XRefStream stream = (XRefStream)parser.parsePdfObject(3); // Gets the xref stream skipping the indirect-object header.
           // XRef-stream subsection entries.
-          for(XRefEntry xrefEntry : stream.values())
-          {
-            if(xrefEntries.containsKey(xrefEntry.getNumber())) // Already-defined entry.
-              continue;
-
-            // Define entry!
-            xrefEntries.put(xrefEntry.getNumber(), xrefEntry);
-          }
+          stream.readEntries(xrefEntries);
 
           // Get the previous trailer!
           sectionTrailer = stream.getHeader();
@@ -222,8 +219,8 @@ public final class Reader
         {trailer = sectionTrailer;}
 
         // Get the previous xref-table section's offset!
-        PdfInteger prevXRefOffset = (PdfInteger)sectionTrailer.get(PdfName.Prev);
-        sectionOffset = (prevXRefOffset != null ? prevXRefOffset.getValue() : -1);
+        PdfNumber<?> prevXRefOffset = (PdfNumber<?>)sectionTrailer.get(PdfName.Prev);
+        sectionOffset = (prevXRefOffset != null ? prevXRefOffset.getLongValue() : -1);
       }
     }
     return new FileInfo(version, trailer, xrefEntries);
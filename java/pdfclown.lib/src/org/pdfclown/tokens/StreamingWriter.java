@@ -0,0 +1,420 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.tokens;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.pdfclown.bytes.IOutputStream;
+import org.pdfclown.documents.Page;
+import org.pdfclown.documents.Pages;
+import org.pdfclown.files.File;
+import org.pdfclown.files.IndirectObjects;
+import org.pdfclown.files.SerializationModeEnum;
+import org.pdfclown.objects.IPdfObjectWrapper;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfIndirectObject;
+import org.pdfclown.objects.PdfInteger;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfReference;
+import org.pdfclown.objects.PdfStream;
+
+/**
+  PDF file writer serializing the document progressively, so that arbitrarily large documents can
+  be generated within a bounded amount of memory [PDF:1.6:3.4].
+  <p>The header is written as soon as the writer is instantiated; then, each page is {@link
+  #add(Page) attached} to the page tree through this writer and, once its composition is complete,
+  {@link #flush(Page) flushed} to the target stream along with the objects it exclusively owns
+  (contents, annotations, images and so on), whose data objects are then released. Page tree nodes,
+  fonts and {@link #retain(IPdfObjectWrapper) shared objects} are kept until the end of the
+  serialization ({@link #close()}), when they are written along with the remaining objects, the
+  cross-reference table and the trailer.</p>
+  <p>Streaming is limited to new files and to {@link SerializationModeEnum#Standard standard}
+  serialization, with classic cross-reference table [PDF:1.6:3.4.3].</p>
+  <p>Flushed objects can no more be accessed (their references are still valid, though); in
+  particular, pages MUST be appended to the document only through {@link #add(Page)}, as the page
+  tree nodes they are bound to can't be rearranged once they have been flushed.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public final class StreamingWriter
+  extends Writer
+  implements Closeable
+{
+  // <class>
+  // <static>
+  // <fields>
+  /**
+    Types of the objects whose serialization is deferred to the end: the page tree and the
+    document catalog are completed at the end, while fonts may be shared and updated (see {@link
+    org.pdfclown.documents.DocumentConfiguration#isFontSubsettingEnabled() font subsetting}).
+  */
+  private static final Set<PdfName> DeferredTypes = new HashSet<PdfName>(
+    Arrays.asList(PdfName.Catalog, PdfName.Font, PdfName.Page, PdfName.Pages)
+    );
+  // </fields>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Current leaf node of the page tree.
+  */
+  private PdfReference leaf;
+  /**
+    Byte offsets of the serialized objects, indexed by object number (0 if not serialized yet).
+  */
+  private long[] offsets = new long[1024];
+  /**
+    Numbers of the objects whose serialization is deferred to the end.
+  */
+  private final Set<Integer> retainedObjectNumbers = new HashSet<Integer>();
+  // </fields>
+
+  // <constructors>
+  /**
+    Begins the serialization of the specified file.
+
+    @param file File to serialize. It MUST be new.
+    @param stream Target stream.
+  */
+  public StreamingWriter(
+    File file,
+    IOutputStream stream
+    )
+  {
+    super(file, stream);
+    if(file.getReader() != null)
+      throw new IllegalArgumentException("Streaming is available to new files only.");
+
+    // 1. Header [PDF:1.6:3.4.1].
+    writeHeader();
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Appends the specified page to the document.
+    <p>The page is bound to the current leaf of the page tree, so that its inheritable attributes
+    are available to its composition.</p>
+
+    @param page Page to append. It MUST NOT be already attached to the page tree.
+  */
+  public void add(
+    Page page
+    )
+  {
+    PdfDictionary pageData = page.getBaseDataObject();
+    if(pageData.containsKey(PdfName.Parent))
+      throw new IllegalArgumentException("Page already attached to the page tree.");
+
+    PdfReference root = (PdfReference)file.getDocument().getPages().getBaseObject();
+    PdfDictionary rootData = (PdfDictionary)root.getDataObject();
+    PdfDictionary leafData = (leaf != null ? (PdfDictionary)leaf.getDataObject() : null);
+    if(leafData == null
+      || ((PdfArray)leafData.get(PdfName.Kids)).size() >= Pages.MaxKidCount)
+    {
+      // New leaf node.
+      leaf = Pages.createNode(root, new PdfDirectObject[0], 0, 0, null);
+      leafData = (PdfDictionary)leaf.getDataObject();
+      ((PdfArray)rootData.resolve(PdfName.Kids)).add(leaf);
+    }
+
+    // Bind the page to the leaf node!
+    PdfArray kidsData = (PdfArray)leafData.get(PdfName.Kids);
+    kidsData.add(page.getBaseObject());
+    pageData.put(PdfName.Parent, leaf);
+    leafData.put(PdfName.Count, PdfInteger.get(kidsData.size()));
+    rootData.put(PdfName.Count, PdfInteger.get(((PdfInteger)rootData.get(PdfName.Count)).getRawValue() + 1));
+  }
+
+  /**
+    Ends the serialization of the {@link #getFile() file}, writing the remaining objects, the
+    cross-reference table and the trailer.
+    <p>It's caller responsibility to close the target stream after this method ends.</p>
+  */
+  @Override
+  public void close(
+    )
+  {file.save(this, SerializationModeEnum.Standard);}
+
+  /**
+    Serializes the specified page along with the objects it exclusively owns, releasing their data
+    objects.
+    <p>Objects reachable from the page are serialized unless they are page tree nodes, other pages,
+    fonts or {@link #retain(IPdfObjectWrapper) retained objects} (and their dependencies); parent
+    links are not followed.</p>
+
+    @param page Page to flush. It MUST have been {@link #add(Page) added} through this writer.
+  */
+  public void flush(
+    Page page
+    )
+  {
+    PdfDictionary parentData = (PdfDictionary)page.getBaseDataObject().resolve(PdfName.Parent);
+    if(parentData == null
+      || !file.getDocument().getPages().getBaseObject().equals(parentData.get(PdfName.Parent)))
+      throw new IllegalArgumentException("Page MUST be added through this writer before being flushed.");
+
+    IndirectObjects indirectObjects = file.getIndirectObjects();
+    Deque<PdfIndirectObject> pendingObjects = new ArrayDeque<PdfIndirectObject>();
+    pendingObjects.push(((PdfReference)page.getBaseObject()).getIndirectObject());
+    while(!pendingObjects.isEmpty())
+    {
+      PdfIndirectObject object = pendingObjects.pop();
+      int objectNumber = object.getReference().getObjectNumber();
+      if(isWritten(objectNumber))
+        continue;
+
+      // Collect the dependencies of the object!
+      collect(object.getDataObject(), pendingObjects);
+
+      // Serialize the object!
+      setOffset(objectNumber, stream.getLength());
+      object.writeTo(stream, file);
+      // Release the object!
+      indirectObjects.flush(object);
+    }
+  }
+
+  /**
+    Retains the specified object until the end of the serialization, so that it can be shared
+    among multiple pages (for example, an image repeated on each page) without being flushed along
+    with the first one.
+
+    @param object Indirect object to retain.
+  */
+  public void retain(
+    IPdfObjectWrapper object
+    )
+  {
+    PdfDirectObject baseObject = object.getBaseObject();
+    if(!(baseObject instanceof PdfReference))
+      throw new IllegalArgumentException("Only indirect objects can be retained.");
+
+    retainedObjectNumbers.add(((PdfReference)baseObject).getObjectNumber());
+  }
+
+  /**
+    Serializes the {@link #getFile() file} to the {@link #getStream() target stream}.
+    <p>Applications are expected to end the serialization through {@link #close()}.</p>
+
+    @param mode Serialization mode. It MUST be {@link SerializationModeEnum#Standard}.
+   */
+  @Override
+  public void write(
+    SerializationModeEnum mode
+    )
+  {
+    if(mode != SerializationModeEnum.Standard)
+      throw new UnsupportedOperationException("Streaming supports standard serialization only.");
+
+    encodeStreams(new ArrayList<PdfIndirectObject>(file.getIndirectObjects().getModifiedObjects().values()));
+    writeStandard();
+  }
+  // </public>
+
+  // <protected>
+  @Override
+  protected void writeIncremental(
+    )
+  {throw new UnsupportedOperationException("Streaming supports standard serialization only.");}
+
+  @Override
+  protected void writeLinearized(
+    )
+  {throw new UnsupportedOperationException("Streaming supports standard serialization only.");}
+
+  @Override
+  protected void writeStandard(
+    )
+  {
+    // 1. Page tree completion.
+    /*
+      NOTE: The kids of the page tree root are distributed into intermediate nodes; as all the leaves
+      are at the same depth, the resulting tree is balanced. The leaves aren't affected, so the parent
+      links of the flushed pages stay valid.
+    */
+    Pages.balance(file.getDocument().getPages().getBaseObject());
+
+    // 2. Body [PDF:1.6:3.4.2] (remaining objects).
+    IndirectObjects indirectObjects = file.getIndirectObjects();
+    int xrefSize = indirectObjects.size();
+    for(Map.Entry<Integer,PdfIndirectObject> indirectObjectEntry : indirectObjects.getModifiedObjects().entrySet())
+    {
+      PdfIndirectObject indirectObject = indirectObjectEntry.getValue();
+      if(!indirectObject.isInUse())
+        continue;
+
+      encodeStreamsAhead();
+      setOffset(indirectObjectEntry.getKey(), stream.getLength());
+      indirectObject.writeTo(stream, file);
+    }
+
+    // 3. XRef table (unique section) [PDF:1.6:3.4.3].
+    long startxref = stream.getLength();
+    writeXRefTable(xrefSize);
+
+    // 4. Trailer [PDF:1.6:3.4.4].
+    stream.write(PlainWriter.TrailerChunk);
+    PdfDictionary trailer = file.getTrailer();
+    updateTrailer(trailer, stream);
+    trailer.put(PdfName.Size, PdfInteger.get(xrefSize));
+    trailer.remove(PdfName.Prev);
+    trailer.writeTo(stream, file); stream.write(Chunk.LineFeed);
+    writeTail(startxref);
+  }
+  // </protected>
+
+  // <private>
+  /**
+    Collects the indirect objects referenced by the specified object which are to be flushed along
+    with it.
+  */
+  private void collect(
+    PdfDataObject object,
+    Deque<PdfIndirectObject> pendingObjects
+    )
+  {
+    if(object instanceof PdfReference)
+    {
+      PdfIndirectObject indirectObject = ((PdfReference)object).getIndirectObject();
+      if(indirectObject == null)
+        return;
+
+      int objectNumber = indirectObject.getReference().getObjectNumber();
+      if(isWritten(objectNumber)
+        || retainedObjectNumbers.contains(objectNumber))
+        return;
+
+      PdfDataObject dataObject = indirectObject.getDataObject();
+      PdfDictionary dictionary = (dataObject instanceof PdfStream
+        ? ((PdfStream)dataObject).getHeader()
+        : dataObject instanceof PdfDictionary ? (PdfDictionary)dataObject : null);
+      if(dictionary != null
+        && DeferredTypes.contains(dictionary.get(PdfName.Type)))
+        return;
+
+      pendingObjects.push(indirectObject);
+    }
+    else if(object instanceof PdfDictionary)
+    {
+      for(Map.Entry<PdfName,PdfDirectObject> entry : ((PdfDictionary)object).entrySet())
+      {
+        if(PdfName.Parent.equals(entry.getKey()))
+          continue;
+
+        collect(entry.getValue(), pendingObjects);
+      }
+    }
+    else if(object instanceof PdfArray)
+    {
+      for(PdfDirectObject item : (PdfArray)object)
+      {collect(item, pendingObjects);}
+    }
+    else if(object instanceof PdfStream)
+    {collect(((PdfStream)object).getHeader(), pendingObjects);}
+  }
+
+  private boolean isWritten(
+    int objectNumber
+    )
+  {return objectNumber < offsets.length && offsets[objectNumber] > 0;}
+
+  private void setOffset(
+    int objectNumber,
+    long offset
+    )
+  {
+    if(objectNumber >= offsets.length)
+    {offsets = Arrays.copyOf(offsets, Math.max(objectNumber + 1, offsets.length * 2));}
+    offsets[objectNumber] = offset;
+  }
+
+  /**
+    Serializes the cross-reference table, whose free entries are arrayed as a linked list [PDF:1.6:3.4.3].
+
+    @param xrefSize Number of entries.
+  */
+  private void writeXRefTable(
+    int xrefSize
+    )
+  {
+    stream.write(PlainWriter.XRefChunk + 0 + Symbol.Space + xrefSize + Symbol.LineFeed);
+
+    // Link the free entries!
+    int[] nextFreeObjectNumbers = new int[xrefSize];
+    for(
+      int index = xrefSize - 1, nextFreeObjectNumber = 0;
+      index >= 0;
+      index--
+      )
+    {
+      if(!isWritten(index))
+      {
+        nextFreeObjectNumbers[index] = nextFreeObjectNumber;
+        nextFreeObjectNumber = index;
+      }
+    }
+
+    Map<Integer,PdfIndirectObject> modifiedObjects = file.getIndirectObjects().getModifiedObjects();
+    StringBuilder xrefBuilder = new StringBuilder();
+    for(int index = 0; index < xrefSize; index++)
+    {
+      PdfIndirectObject indirectObject = modifiedObjects.get(index);
+      int generation = (indirectObject != null ? indirectObject.getReference().getGenerationNumber() : 0);
+      if(isWritten(index)) // In-use entry.
+      {xrefBuilder.append(PlainWriter.XRefOffsetFormatter.format(offsets[index])).append(Symbol.Space).append(PlainWriter.XRefGenerationFormatter.format(generation)).append(Symbol.Space).append(Keyword.InUseXrefEntry);}
+      else // Free entry.
+      {xrefBuilder.append(PlainWriter.XRefOffsetFormatter.format(nextFreeObjectNumbers[index])).append(Symbol.Space).append(PlainWriter.XRefGenerationFormatter.format(indirectObject != null ? generation : XRefEntry.GenerationUnreusable)).append(Symbol.Space).append(Keyword.FreeXrefEntry);}
+      xrefBuilder.append(PlainWriter.XRefEOLChunk);
+
+      // Flush the entries in chunks!
+      if(xrefBuilder.length() > 8192)
+      {
+        stream.write(xrefBuilder.toString());
+        xrefBuilder.setLength(0);
+      }
+    }
+    stream.write(xrefBuilder.toString());
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
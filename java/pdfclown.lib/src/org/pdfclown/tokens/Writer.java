@@ -25,12 +25,23 @@
 
 package org.pdfclown.tokens;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.pdfclown.bytes.IInputStream;
 import org.pdfclown.bytes.IOutputStream;
 import org.pdfclown.files.File;
+import org.pdfclown.files.FileConfiguration;
 import org.pdfclown.files.FileIdentifier;
 import org.pdfclown.files.SerializationModeEnum;
+import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfIndirectObject;
 import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfStream;
 
 /**
   PDF file writer.
@@ -81,6 +92,17 @@ public abstract class Writer
   // <fields>
   protected final File file;
   protected final IOutputStream stream;
+
+  /**
+    Objects whose streams are still to be submitted to the stream encoding executor.
+  */
+  private Iterator<PdfIndirectObject> encodingObjects;
+  /**
+    Streams submitted to the stream encoding executor whose encoded bodies haven't been serialized
+    yet.
+  */
+  private final List<PdfStream> encodingStreams = new LinkedList<PdfStream>();
+  private boolean inPlace;
   // </fields>
 
   // <constructors>
@@ -110,6 +132,24 @@ public abstract class Writer
     )
   {return stream;}
 
+  /**
+    Gets whether the target stream is the source file itself, positioned at its end (so that the
+    incremental update is appended in place, see {@link File#append()}).
+  */
+  public boolean isInPlace(
+    )
+  {return inPlace;}
+
+  /**
+    <span style="color:red">For internal use only.</span>
+
+    @see #isInPlace()
+  */
+  public void setInPlace(
+    boolean value
+    )
+  {inPlace = value;}
+
   /**
     Serializes the {@link #getFile() file} to the {@link #getStream() target stream}.
 
@@ -124,11 +164,13 @@ public abstract class Writer
       case Incremental:
         if(file.getReader() != null)
         {
+          encodeStreams(new ArrayList<PdfIndirectObject>(file.getIndirectObjects().getModifiedObjects().values()));
           writeIncremental();
           break;
         }
         // If the file is new (no reader), fall through to Standard!
       case Standard:
+        encodeStreams(file.getIndirectObjects());
         writeStandard();
         break;
       case Linearized:
@@ -139,6 +181,102 @@ public abstract class Writer
   // </public>
 
   // <protected>
+  /**
+    Starts submitting the streams among the specified indirect objects to the {@link
+    FileConfiguration#getStreamEncodingExecutor() stream encoding executor}, if any, so that their
+    bodies are encoded in advance of their serialization.
+    <p>Streams are submitted in the order of the objects, within the {@link
+    FileConfiguration#getStreamEncodingLookAhead() look-ahead limit}; as serialization moves through
+    the objects, further streams are submitted (see {@link #encodeStreamsAhead()}).</p>
+
+    @param objects Indirect objects in serialization order.
+  */
+  protected void encodeStreams(
+    Iterable<PdfIndirectObject> objects
+    )
+  {
+    if(file.getConfiguration().getStreamEncodingExecutor() == null)
+      return;
+
+    encodingObjects = objects.iterator();
+    encodeStreamsAhead();
+  }
+
+  /**
+    Keeps the stream encoding look-ahead going: the streams whose encoded bodies have been serialized
+    are dropped, and the next ones are submitted up to the {@link
+    FileConfiguration#getStreamEncodingLookAhead() look-ahead limit}.
+    NOTE: this method has to be called just before serializing each indirect object.
+  */
+  protected void encodeStreamsAhead(
+    )
+  {
+    // Drop the streams already serialized!
+    for(Iterator<PdfStream> encodingStreamsIterator = encodingStreams.iterator(); encodingStreamsIterator.hasNext();)
+    {
+      if(!encodingStreamsIterator.next().isEncodingAhead())
+      {encodingStreamsIterator.remove();}
+    }
+    if(encodingObjects == null)
+      return;
+
+    // Submit the next streams!
+    FileConfiguration configuration = file.getConfiguration();
+    ExecutorService executor = configuration.getStreamEncodingExecutor();
+    int lookAhead = configuration.getStreamEncodingLookAhead();
+    while(encodingStreams.size() < lookAhead)
+    {
+      if(!encodingObjects.hasNext())
+      {
+        encodingObjects = null;
+        break;
+      }
+
+      PdfIndirectObject object = encodingObjects.next();
+      if(!object.isInUse())
+        continue;
+
+      PdfDataObject dataObject = object.getDataObject();
+      /*
+        NOTE: Object streams and xref streams are populated during serialization, so their bodies
+        can't be encoded in advance.
+      */
+      if(dataObject instanceof PdfStream
+        && !(dataObject instanceof ObjectStream || dataObject instanceof XRefStream))
+      {
+        PdfStream streamObject = (PdfStream)dataObject;
+        if(streamObject.encodeAhead(file, executor))
+        {encodingStreams.add(streamObject);}
+      }
+    }
+  }
+
+  /**
+    Writes the original file content (header, body and previous trailer) as the base of the
+    incremental update.
+    <p>In case the update is {@link #isInPlace() appended in place}, the target stream already
+    contains the original content, so nothing is written.</p>
+  */
+  protected void writeOriginal(
+    )
+  {
+    IInputStream source = file.getReader().getParser().getStream();
+    if(!inPlace)
+    {
+      /*
+        NOTE: The source stream is shared with the lazily-loaded stream bodies, which may be read
+        concurrently by the stream encoding executor (see LazyBuffer).
+      */
+      synchronized(source)
+      {stream.write(source);}
+    }
+    else if(stream.getLength() != source.getLength()) // Source file changed since opening.
+      throw new IllegalStateException(
+        "Target stream doesn't match the original content (length " + stream.getLength()
+          + " instead of " + source.getLength() + ")."
+        );
+  }
+
   /**
     Updates the specified trailer.
     NOTE: this method has to be called just before serializing the trailer object.
@@ -193,12 +331,27 @@ public abstract class Writer
   protected final void writeTail(
     long startxref
     )
+  {writeTail(stream, startxref);}
+  // </protected>
+
+  // <internal>
+  /**
+    Serializes the end of the file [PDF:1.6:3.4.4] into the specified stream.
+
+    @param stream Target stream.
+    @param startxref Byte offset from the beginning of the file to the beginning
+      of the last cross-reference section.
+  */
+  static void writeTail(
+    IOutputStream stream,
+    long startxref
+    )
   {
     stream.write(StartXRefChunk);
     stream.write(Long.toString(startxref));
     stream.write(EOFChunk);
   }
-  // </protected>
+  // </internal>
   // </interface>
   // </dynamic>
   // </class>
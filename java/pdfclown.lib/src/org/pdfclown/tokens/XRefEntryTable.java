@@ -0,0 +1,488 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.tokens;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.pdfclown.util.MapEntry;
+
+/**
+  Compact cross-reference table [PDF:1.6:3.4.3].
+  <p>Entries are stored into parallel arrays indexed by object number, so that no object is
+  allocated per entry; {@link XRefEntry} instances are created on demand as detached views of the
+  stored entries.</p>
+  <p>As object numbers come from the parsed file, the array range is bounded by the number of
+  defined entries: entries beyond it (as in case of sparse or malformed cross-reference sections)
+  are kept in a sparse map instead.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public final class XRefEntryTable
+{
+  // <class>
+  // <classes>
+  /**
+    Read-only sorted map view of a range of the table.
+  */
+  private final class MapView
+    extends AbstractMap<Integer,XRefEntry>
+    implements SortedMap<Integer,XRefEntry>
+  {
+    /**
+      Lowest object number (inclusive).
+    */
+    private final int fromNumber;
+    /**
+      Highest object number (exclusive).
+    */
+    private final long toNumber;
+
+    private Set<Map.Entry<Integer,XRefEntry>> entrySet;
+
+    MapView(
+      int fromNumber,
+      long toNumber
+      )
+    {
+      this.fromNumber = fromNumber;
+      this.toNumber = toNumber;
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator(
+      )
+    {return null;}
+
+    @Override
+    public boolean containsKey(
+      Object key
+      )
+    {return get(key) != null;}
+
+    @Override
+    public Set<Map.Entry<Integer,XRefEntry>> entrySet(
+      )
+    {
+      if(entrySet == null)
+      {
+        entrySet = new AbstractSet<Map.Entry<Integer,XRefEntry>>()
+        {
+          @Override
+          public Iterator<Map.Entry<Integer,XRefEntry>> iterator(
+            )
+          {
+            return new Iterator<Map.Entry<Integer,XRefEntry>>()
+            {
+              private int nextNumber = seek(fromNumber);
+
+              @Override
+              public boolean hasNext(
+                )
+              {return nextNumber >= 0;}
+
+              @Override
+              public Map.Entry<Integer,XRefEntry> next(
+                )
+              {
+                if(!hasNext())
+                  throw new NoSuchElementException();
+
+                int number = nextNumber;
+                nextNumber = (number < Integer.MAX_VALUE ? seek(number + 1) : -1);
+                return new MapEntry<Integer,XRefEntry>(number, XRefEntryTable.this.get(number));
+              }
+
+              @Override
+              public void remove(
+                )
+              {throw new UnsupportedOperationException();}
+            };
+          }
+
+          @Override
+          public int size(
+            )
+          {
+            if(fromNumber == 0 && toNumber > lastNumber)
+              return count;
+
+            int size = 0;
+            for(Iterator<?> iterator = iterator(); iterator.hasNext(); iterator.next())
+            {size++;}
+            return size;
+          }
+        };
+      }
+      return entrySet;
+    }
+
+    @Override
+    public Integer firstKey(
+      )
+    {
+      int number = seek(fromNumber);
+      if(number < 0)
+        throw new NoSuchElementException();
+
+      return number;
+    }
+
+    @Override
+    public XRefEntry get(
+      Object key
+      )
+    {
+      if(!(key instanceof Integer))
+        return null;
+
+      int number = (Integer)key;
+      return number >= fromNumber && number < toNumber ? XRefEntryTable.this.get(number) : null;
+    }
+
+    @Override
+    public SortedMap<Integer,XRefEntry> headMap(
+      Integer toKey
+      )
+    {return subMap(fromNumber, Math.min(toNumber, toKey));}
+
+    @Override
+    public Integer lastKey(
+      )
+    {
+      Integer lastKey = null;
+      for(int number = seek(fromNumber); number >= 0; number = (number < Integer.MAX_VALUE ? seek(number + 1) : -1))
+      {lastKey = number;}
+      if(lastKey == null)
+        throw new NoSuchElementException();
+
+      return lastKey;
+    }
+
+    @Override
+    public SortedMap<Integer,XRefEntry> subMap(
+      Integer fromKey,
+      Integer toKey
+      )
+    {return subMap(Math.max(fromNumber, fromKey), Math.min(toNumber, toKey));}
+
+    @Override
+    public SortedMap<Integer,XRefEntry> tailMap(
+      Integer fromKey
+      )
+    {return subMap(Math.max(fromNumber, fromKey), toNumber);}
+
+    private SortedMap<Integer,XRefEntry> subMap(
+      int fromNumber,
+      long toNumber
+      )
+    {return new MapView(Math.max(fromNumber, 0), Math.max(toNumber, fromNumber));}
+
+    /**
+      Gets the lowest defined object number within this view, starting from the specified one.
+
+      @return <code>-1</code>, if none.
+    */
+    private int seek(
+      int number
+      )
+    {
+      int nextNumber = getNextNumber(number);
+      return nextNumber < toNumber ? nextNumber : -1;
+    }
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  private static final int DefaultCapacity = 16;
+  /**
+    Minimum array range, regardless of the number of defined entries.
+  */
+  private static final int MinDenseCapacity = 1024;
+
+  /**
+    Usage code of undefined entries.
+  */
+  private static final byte UndefinedUsage = 0;
+
+  private static final XRefEntry.UsageEnum[] Usages = XRefEntry.UsageEnum.values();
+  // </fields>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private int count;
+  private int lastNumber = -1;
+
+  /**
+    Generation numbers (ordinary entries) or object stream numbers (compressed entries).
+  */
+  private int[] generations;
+  /**
+    Byte offsets (in-use entries), next free-object numbers (free entries) or object indexes within
+    their object streams (compressed entries).
+  */
+  private long[] offsets;
+  /**
+    Usage codes (entry usage ordinal plus 1; {@link #UndefinedUsage} for undefined entries).
+  */
+  private byte[] usages;
+  /**
+    Entries beyond the array range.
+  */
+  private TreeMap<Integer,XRefEntry> sparseEntries;
+  // </fields>
+
+  // <constructors>
+  public XRefEntryTable(
+    )
+  {this(DefaultCapacity);}
+
+  /**
+    @param capacity Initial number of object numbers the table can hold without growing.
+  */
+  public XRefEntryTable(
+    int capacity
+    )
+  {
+    capacity = Math.max(capacity, 1);
+    generations = new int[capacity];
+    offsets = new long[capacity];
+    usages = new byte[capacity];
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets whether the entry of the specified object number is defined.
+  */
+  public boolean contains(
+    int number
+    )
+  {
+    return (number >= 0 && number < usages.length && usages[number] != UndefinedUsage)
+      || (sparseEntries != null && sparseEntries.containsKey(number));
+  }
+
+  /**
+    Gets a view of the entry of the specified object number.
+    <p>The returned entry is detached from this table: its changes aren't reflected here.</p>
+
+    @return <code>null</code>, if the entry is undefined.
+  */
+  public XRefEntry get(
+    int number
+    )
+  {
+    if(number < 0)
+      return null;
+    else if(number >= usages.length || usages[number] == UndefinedUsage)
+    {
+      XRefEntry entry = (sparseEntries != null ? sparseEntries.get(number) : null);
+      return entry != null ? copy(entry) : null;
+    }
+
+    XRefEntry.UsageEnum usage = Usages[usages[number] - 1];
+    if(usage == XRefEntry.UsageEnum.InUseCompressed)
+      return new XRefEntry(number, (int)offsets[number], generations[number]);
+    else
+      return new XRefEntry(number, generations[number], offsets[number], usage);
+  }
+
+  /**
+    Gets a read-only sorted map view of the defined entries, by object number.
+    <p>Entries are detached from this table (see {@link #get(int)}).</p>
+  */
+  public SortedMap<Integer,XRefEntry> asMap(
+    )
+  {return new MapView(0, Integer.MAX_VALUE + 1L);}
+
+  /**
+    Gets the number of defined entries.
+  */
+  public int getCount(
+    )
+  {return count;}
+
+  /**
+    Gets the highest object number among the defined entries.
+
+    @return <code>-1</code>, if no entry is defined.
+  */
+  public int getLastNumber(
+    )
+  {return lastNumber;}
+
+  /**
+    Gets the lowest defined object number starting from the specified one.
+
+    @return <code>-1</code>, if none.
+  */
+  public int getNextNumber(
+    int number
+    )
+  {
+    int nextNumber = -1;
+    for(int index = Math.max(number, 0); index < usages.length; index++)
+    {
+      if(usages[index] != UndefinedUsage)
+      {
+        nextNumber = index;
+        break;
+      }
+    }
+    if(sparseEntries != null)
+    {
+      Integer sparseNumber = sparseEntries.ceilingKey(Math.max(number, 0));
+      if(sparseNumber != null
+        && (nextNumber < 0 || sparseNumber < nextNumber))
+      {nextNumber = sparseNumber;}
+    }
+    return nextNumber;
+  }
+
+  /**
+    Defines the entry of an ordinary (uncompressed) object.
+
+    @param number Object number.
+    @param generation Generation number.
+    @param offset Indirect-object byte offset within the serialized file (in-use entry), or the next
+      free-object object number (free entry).
+    @param usage Usage state.
+  */
+  public void put(
+    int number,
+    int generation,
+    long offset,
+    XRefEntry.UsageEnum usage
+    )
+  {put(number, generation, offset, (byte)(usage.ordinal() + 1));}
+
+  /**
+    Defines the entry of a compressed object.
+
+    @param number Object number.
+    @param index Object index within its object stream.
+    @param streamNumber Object number of the object stream in which the object is stored.
+  */
+  public void putCompressed(
+    int number,
+    int index,
+    int streamNumber
+    )
+  {put(number, streamNumber, index, (byte)(XRefEntry.UsageEnum.InUseCompressed.ordinal() + 1));}
+  // </public>
+
+  // <private>
+  private static XRefEntry copy(
+    XRefEntry entry
+    )
+  {
+    return entry.getUsage() == XRefEntry.UsageEnum.InUseCompressed
+      ? new XRefEntry(entry.getNumber(), (int)entry.getOffset(), entry.getStreamNumber())
+      : new XRefEntry(entry.getNumber(), entry.getGeneration(), entry.getOffset(), entry.getUsage());
+  }
+
+  private void ensureCapacity(
+    int capacity
+    )
+  {
+    if(capacity <= usages.length)
+      return;
+
+    int newCapacity = (int)Math.max(capacity, Math.min(usages.length + (usages.length >> 1), getDenseCapacityLimit()));
+    generations = Arrays.copyOf(generations, newCapacity);
+    offsets = Arrays.copyOf(offsets, newCapacity);
+    usages = Arrays.copyOf(usages, newCapacity);
+  }
+
+  private void put(
+    int number,
+    int generation,
+    long offset,
+    byte usage
+    )
+  {
+    if(number < 0)
+      throw new IllegalArgumentException("Negative object number: " + number);
+
+    if((sparseEntries != null && sparseEntries.containsKey(number))
+      || (number >= usages.length && number >= getDenseCapacityLimit()))
+    {
+      /*
+        NOTE: Object numbers out of proportion to the number of defined entries are kept apart, not
+        to allocate arrays sized by bogus object numbers.
+      */
+      if(sparseEntries == null)
+      {sparseEntries = new TreeMap<Integer,XRefEntry>();}
+
+      XRefEntry entry = (usage == XRefEntry.UsageEnum.InUseCompressed.ordinal() + 1
+        ? new XRefEntry(number, (int)offset, generation)
+        : new XRefEntry(number, generation, offset, Usages[usage - 1]));
+      if(sparseEntries.put(number, entry) == null)
+      {
+        count++;
+        if(number > lastNumber)
+        {lastNumber = number;}
+      }
+      return;
+    }
+
+    ensureCapacity(number + 1);
+    if(usages[number] == UndefinedUsage)
+    {
+      count++;
+      if(number > lastNumber)
+      {lastNumber = number;}
+    }
+    generations[number] = generation;
+    offsets[number] = offset;
+    usages[number] = usage;
+  }
+
+  /**
+    Gets the object number below which entries can be stored into the arrays.
+  */
+  private long getDenseCapacityLimit(
+    )
+  {return Math.max(MinDenseCapacity, 2L * count + 1);}
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
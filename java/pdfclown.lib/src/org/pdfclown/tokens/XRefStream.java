@@ -36,6 +36,7 @@ import java.util.TreeMap;
 
 import org.pdfclown.bytes.Buffer;
 import org.pdfclown.bytes.IBuffer;
+import org.pdfclown.bytes.IInputStream;
 import org.pdfclown.bytes.IOutputStream;
 import org.pdfclown.files.File;
 import org.pdfclown.objects.IVisitor;
@@ -44,6 +45,7 @@ import org.pdfclown.objects.PdfDictionary;
 import org.pdfclown.objects.PdfDirectObject;
 import org.pdfclown.objects.PdfInteger;
 import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.objects.PdfObject;
 import org.pdfclown.objects.PdfStream;
 import org.pdfclown.util.ConvertUtils;
@@ -67,8 +69,6 @@ public final class XRefStream
   private static final int InUseEntryType = 1;
   private static final int InUseCompressedEntryType = 2;
 
-  private static final double ByteBaseLog = Math.log(256);
-
   private static final int EntryField0Size = 1;
   private static final int EntryField2Size = getFieldSize(XRefEntry.GenerationUnreusable);
   // </fields>
@@ -81,9 +81,14 @@ public final class XRefStream
     @param maxValue Maximum storable value.
   */
   private static int getFieldSize(
-    int maxValue
+    long maxValue
     )
-  {return (int)Math.ceil(Math.log(maxValue)/ByteBaseLog);}
+  {
+    int size = 1;
+    while((maxValue >>>= 8) != 0)
+    {size++;}
+    return size;
+  }
 
   /**
     Converts the specified value into a customly-sized big-endian byte array.
@@ -92,10 +97,27 @@ public final class XRefStream
     @param length Byte array's length.
    */
   private static byte[] numberToByteArray(
-    int value,
+    long value,
     int length
     )
   {return ConvertUtils.numberToByteArray(value, length, ByteOrder.BIG_ENDIAN);}
+
+  /**
+    Reads a customly-sized big-endian field value.
+
+    @param stream Source stream.
+    @param length Field's length.
+  */
+  private static long readField(
+    IInputStream stream,
+    int length
+    ) throws EOFException
+  {
+    long value = 0;
+    for(int index = 0; index < length; index++)
+    {value = (value << 8) | stream.readUnsignedByte();}
+    return value;
+  }
   // </private>
   // </interface>
   // </static>
@@ -152,11 +174,114 @@ public final class XRefStream
 
     @return <code>-1</code> in case no linked stream exists.
   */
-  public int getLinkedStreamOffset(
+  public long getLinkedStreamOffset(
     )
   {
-    PdfInteger linkedStreamOffsetObject = (PdfInteger)getHeader().get(PdfName.Prev);
-    return (linkedStreamOffsetObject != null ? linkedStreamOffsetObject.getValue() : -1);
+    PdfNumber<?> linkedStreamOffsetObject = (PdfNumber<?>)getHeader().get(PdfName.Prev);
+    return (linkedStreamOffsetObject != null ? linkedStreamOffsetObject.getLongValue() : -1);
+  }
+
+  /**
+    Defines into the specified table the entries of this stream which aren't defined there yet.
+    <p><span style="color:red">For internal use only.</span></p>
+  */
+  public void readEntries(
+    XRefEntryTable table
+    )
+  {
+    /*
+      NOTE: Already-defined entries are kept (first wins), with the same precedence as the
+      cross-reference table parser (see Reader.readInfo()): cross-reference sections are read
+      from the last update backwards (following their Prev links), so an entry already defined
+      belongs to a later update, which supersedes this section [PDF:1.7:3.4.5]. Within the same
+      section, an object number is expected to appear just once; in case of duplicates, the first
+      occurrence is kept, as the table parser does.
+    */
+    if(entries != null)
+    {
+      for(XRefEntry entry : entries.values())
+      {
+        int number = entry.getNumber();
+        if(table.contains(number)) // Already-defined entry.
+          continue;
+
+        if(entry.getUsage() == XRefEntry.UsageEnum.InUseCompressed)
+        {table.putCompressed(number, (int)entry.getOffset(), entry.getStreamNumber());}
+        else
+        {table.put(number, entry.getGeneration(), entry.getOffset(), entry.getUsage());}
+      }
+      return;
+    }
+
+    final IBuffer body = getBody();
+    if(body.getLength() > 0)
+    {
+      try
+      {
+        final PdfDictionary header = getHeader();
+        final int size = ((PdfInteger)header.get(PdfName.Size)).getValue();
+        final int[] entryFieldSizes;
+        {
+          final PdfArray entryFieldSizesObject = (PdfArray)header.get(PdfName.W);
+          entryFieldSizes = new int[entryFieldSizesObject.size()];
+          for(int index = 0, length = entryFieldSizes.length; index < length; index++)
+          {entryFieldSizes[index] = ((PdfInteger)entryFieldSizesObject.get(index)).getValue();}
+        }
+
+        final PdfArray subsectionBounds;
+        if(header.containsKey(PdfName.Index))
+        {subsectionBounds = (PdfArray)header.get(PdfName.Index);}
+        else
+        {
+          subsectionBounds = new PdfArray();
+          subsectionBounds.add(PdfInteger.get(0));
+          subsectionBounds.add(PdfInteger.get(size));
+        }
+
+        body.setByteOrder(ByteOrder.BIG_ENDIAN);
+        body.seek(0);
+
+        final Iterator<PdfDirectObject> subsectionBoundIterator = subsectionBounds.iterator();
+        while(subsectionBoundIterator.hasNext())
+        {
+          final int start = ((PdfInteger)subsectionBoundIterator.next()).getValue();
+          final int count = ((PdfInteger)subsectionBoundIterator.next()).getValue();
+          for(
+            int entryIndex = start,
+              length = start + count;
+            entryIndex < length;
+            entryIndex++
+            )
+          {
+            final int entryFieldType = (entryFieldSizes[0] == 0 ? 1 : (int)readField(body, entryFieldSizes[0]));
+            final long entryField1 = readField(body, entryFieldSizes[1]);
+            final int entryField2 = (int)readField(body, entryFieldSizes[2]);
+            if(table.contains(entryIndex)) // Already-defined entry.
+              continue;
+
+            switch(entryFieldType)
+            {
+              case FreeEntryType:
+                // Next free-object number, generation.
+                table.put(entryIndex, entryField2, entryField1, XRefEntry.UsageEnum.Free);
+                break;
+              case InUseEntryType:
+                // Offset, generation.
+                table.put(entryIndex, entryField2, entryField1, XRefEntry.UsageEnum.InUse);
+                break;
+              case InUseCompressedEntryType:
+                // Object stream number, object index within the object stream.
+                table.putCompressed(entryIndex, entryField2, (int)entryField1);
+                break;
+              default:
+                throw new UnsupportedOperationException("Unknown xref entry type '" + entryFieldType + "'.");
+            }
+          }
+        }
+      }
+      catch(EOFException e)
+      {throw new ParseException("Malformed cross-reference stream object.", e);}
+    }
   }
 
   @Override
@@ -259,7 +384,7 @@ public final class XRefStream
     final int[] entryFieldSizes = new int[]
       {
         EntryField0Size,
-        getFieldSize((int)stream.getLength()), // NOTE: We assume this xref stream is the last indirect object.
+        getFieldSize(stream.getLength()), // NOTE: We assume this xref stream is the last indirect object.
         EntryField2Size
       };
     {
@@ -333,104 +458,10 @@ public final class XRefStream
   {
     if(entries == null)
     {
-      entries = new TreeMap<Integer,XRefEntry>();
+      XRefEntryTable table = new XRefEntryTable();
+      readEntries(table);
 
-      final IBuffer body = getBody();
-      if(body.getLength() > 0)
-      {
-        try
-        {
-          final PdfDictionary header = getHeader();
-          final int size = ((PdfInteger)header.get(PdfName.Size)).getValue();
-          final int[] entryFieldSizes;
-          {
-            final PdfArray entryFieldSizesObject = (PdfArray)header.get(PdfName.W);
-            entryFieldSizes = new int[entryFieldSizesObject.size()];
-            for(int index = 0, length = entryFieldSizes.length; index < length; index++)
-            {entryFieldSizes[index] = ((PdfInteger)entryFieldSizesObject.get(index)).getValue();}
-          }
-  
-          final PdfArray subsectionBounds;
-          if(header.containsKey(PdfName.Index))
-          {subsectionBounds = (PdfArray)header.get(PdfName.Index);}
-          else
-          {
-            subsectionBounds = new PdfArray();
-            subsectionBounds.add(PdfInteger.get(0));
-            subsectionBounds.add(PdfInteger.get(size));
-          }
-  
-          body.setByteOrder(ByteOrder.BIG_ENDIAN);
-          body.seek(0);
-  
-          final Iterator<PdfDirectObject> subsectionBoundIterator = subsectionBounds.iterator();
-          while(subsectionBoundIterator.hasNext())
-          {
-            final int start = ((PdfInteger)subsectionBoundIterator.next()).getValue();
-            final int count = ((PdfInteger)subsectionBoundIterator.next()).getValue();
-            for(
-              int entryIndex = start,
-                length = start + count;
-              entryIndex < length;
-              entryIndex++
-              )
-            {
-              final int entryFieldType = (entryFieldSizes[0] == 0 ? 1 : body.readInt(entryFieldSizes[0]));
-              switch(entryFieldType)
-              {
-                case FreeEntryType:
-                {
-                  final int nextFreeObjectNumber = body.readInt(entryFieldSizes[1]);
-                  final int generation = body.readInt(entryFieldSizes[2]);
-                  entries.put(
-                    entryIndex,
-                    new XRefEntry(
-                      entryIndex,
-                      generation,
-                      nextFreeObjectNumber,
-                      XRefEntry.UsageEnum.Free
-                      )
-                    );
-                  break;
-                }
-                case InUseEntryType:
-                {
-                  final int offset = body.readInt(entryFieldSizes[1]);
-                  final int generation = body.readInt(entryFieldSizes[2]);
-                  entries.put(
-                    entryIndex,
-                    new XRefEntry(
-                      entryIndex,
-                      generation,
-                      offset,
-                      XRefEntry.UsageEnum.InUse
-                      )
-                    );
-                  break;
-                }
-                case InUseCompressedEntryType:
-                {
-                  final int streamNumber = body.readInt(entryFieldSizes[1]);
-                  final int innerNumber = body.readInt(entryFieldSizes[2]);
-                  entries.put(
-                    entryIndex,
-                    new XRefEntry(
-                      entryIndex,
-                      innerNumber,
-                      streamNumber
-                      )
-                    );
-                  break;
-                }
-                default:
-                  throw new UnsupportedOperationException("Unknown xref entry type '" + entryFieldType + "'.");
-              }
-            }
-          }
-        }
-        catch(EOFException e)
-        {throw new ParseException("Malformed cross-reference stream object.", e);}
-      }
+      entries = new TreeMap<Integer,XRefEntry>(table.asMap());
     }
     return entries;
   }
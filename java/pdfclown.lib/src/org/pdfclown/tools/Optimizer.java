@@ -25,15 +25,39 @@
 
 package org.pdfclown.tools;
 
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.pdfclown.bytes.Buffer;
+import org.pdfclown.bytes.IBuffer;
+import org.pdfclown.bytes.IOutputStream;
+import org.pdfclown.bytes.OutputStream;
 import org.pdfclown.files.File;
 import org.pdfclown.files.IndirectObjects;
 import org.pdfclown.objects.IVisitor;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfIndirectObject;
+import org.pdfclown.objects.PdfName;
 import org.pdfclown.objects.PdfObject;
 import org.pdfclown.objects.PdfReference;
+import org.pdfclown.objects.PdfStream;
 import org.pdfclown.objects.Visitor;
+import org.pdfclown.tokens.ObjectStream;
+import org.pdfclown.tokens.XRefStream;
 
 /**
   Tool to enhance PDF files.
@@ -44,6 +68,407 @@ import org.pdfclown.objects.Visitor;
 */
 public final class Optimizer
 {
+  /**
+    Duplicate objects detector.
+  */
+  private static final class Deduplicator
+  {
+    /**
+      Canonical number of the objects whose hashing is in progress.
+    */
+    private static final int InProgressNumber = -1;
+    /**
+      Canonical number of the objects not hashed yet.
+    */
+    private static final int UnresolvedNumber = 0;
+
+    /**
+      Types of the objects whose identity matters, so that they can't be merged even when their
+      contents are identical.
+    */
+    private static final Set<PdfName> IdentityTypes = new HashSet<PdfName>(
+      Arrays.asList(
+        PdfName.Annot,
+        PdfName.Bead,
+        PdfName.Catalog,
+        PdfName.OCG,
+        PdfName.Outlines,
+        PdfName.Page,
+        PdfName.Pages,
+        PdfName.Sig,
+        PdfName.Thread
+        )
+      );
+
+    private final File file;
+    private final IndirectObjects indirectObjects;
+
+    /**
+      Canonical object number of each indirect object (the object number itself, if the object is
+      not a duplicate).
+    */
+    private final int[] canonicalNumbers;
+    /**
+      Distinct object numbers by content hash.
+    */
+    private final Map<ByteBuffer,Integer> distinctNumbers = new HashMap<ByteBuffer,Integer>();
+    private int duplicateCount;
+    private long duplicateLength;
+
+    Deduplicator(
+      File file
+      )
+    {
+      this.file = file;
+      indirectObjects = file.getIndirectObjects();
+      canonicalNumbers = new int[indirectObjects.size()];
+    }
+
+    /**
+      Merges the duplicate objects.
+
+      @return Number of bytes saved.
+    */
+    long run(
+      )
+    {
+      // 1. Duplicates detection.
+      for(int objectNumber = 1; objectNumber < canonicalNumbers.length; objectNumber++)
+      {resolve(objectNumber);}
+      if(duplicateCount == 0)
+        return 0;
+
+      // 2. References rewriting.
+      rewrite(file.getTrailer());
+      for(int objectNumber = 1; objectNumber < canonicalNumbers.length; objectNumber++)
+      {
+        if(canonicalNumbers[objectNumber] != objectNumber)
+          continue;
+
+        PdfIndirectObject object = indirectObjects.get(objectNumber);
+        if(object.isInUse())
+        {rewrite(object.getDataObject());}
+      }
+
+      // 3. Duplicates removal.
+      for(int objectNumber = 1; objectNumber < canonicalNumbers.length; objectNumber++)
+      {
+        if(canonicalNumbers[objectNumber] != objectNumber)
+        {indirectObjects.remove(objectNumber);}
+      }
+      return duplicateLength;
+    }
+
+    /**
+      Writes the canonical form of the specified object to the stream.
+      <p>References are replaced by the canonical number of their objects, so that objects are
+      hashed along with the contents they depend on.</p>
+    */
+    private void write(
+      PdfDataObject object,
+      IOutputStream stream
+      )
+    {
+      if(object == null)
+      {stream.write("null ");}
+      else if(object instanceof PdfReference)
+      {
+        PdfIndirectObject indirectObject = ((PdfReference)object).getIndirectObject();
+        stream.write(
+          (indirectObject != null
+            ? "R" + resolve(indirectObject.getXrefEntry().getNumber())
+            : ((PdfReference)object).getId()) + " "
+          );
+      }
+      else if(object instanceof PdfDictionary)
+      {write((PdfDictionary)object, null, stream);}
+      else if(object instanceof PdfArray)
+      {
+        PdfArray array = (PdfArray)object;
+        stream.write("[" + array.size() + " ");
+        for(PdfDirectObject item : array)
+        {write(item, stream);}
+        stream.write("] ");
+      }
+      else if(object instanceof PdfStream)
+      {
+        PdfStream pdfStream = (PdfStream)object;
+        /*
+          NOTE: Length entry is excluded from the header, as it may be an indirect object on its own
+          (the body length is hashed instead).
+        */
+        write(pdfStream.getHeader(), PdfName.Length, stream);
+        IBuffer body = pdfStream.getBody(false);
+        stream.write("stream " + body.getLength() + " ");
+        // NOTE: Lazily-loaded bodies are copied straight from the file, without retaining them.
+        body.writeTo(stream);
+      }
+      else
+      {
+        object.writeTo(stream, file); stream.write(" ");
+      }
+    }
+
+    /**
+      Writes the canonical form of the specified dictionary to the stream.
+
+      @param excludedKey Key of the entry to ignore.
+    */
+    private void write(
+      PdfDictionary dictionary,
+      PdfName excludedKey,
+      IOutputStream stream
+      )
+    {
+      /*
+        NOTE: Entries are hashed in key order, as their order is not significant.
+      */
+      List<PdfName> keys = new ArrayList<PdfName>(dictionary.keySet());
+      keys.remove(excludedKey);
+      Collections.sort(keys);
+      stream.write("<<" + keys.size() + " ");
+      for(PdfName key : keys)
+      {
+        key.writeTo(stream, file); stream.write(" ");
+        write(dictionary.get(key), stream);
+      }
+      stream.write(">> ");
+    }
+
+    /**
+      Gets the size of the specified object, as currently encoded.
+    */
+    private long getLength(
+      PdfDataObject object
+      )
+    {
+      Buffer buffer = new Buffer();
+      if(object instanceof PdfStream)
+      {
+        PdfStream stream = (PdfStream)object;
+        stream.getHeader().writeTo(buffer, file);
+        return buffer.getLength() + stream.getBody(false).getLength();
+      }
+      else
+      {
+        object.writeTo(buffer, file);
+        return buffer.getLength();
+      }
+    }
+
+    /**
+      Gets whether the specified object can be merged with its duplicates.
+    */
+    private boolean isMergeable(
+      PdfDataObject object
+      )
+    {
+      if(object instanceof ObjectStream
+        || object instanceof XRefStream)
+        return false;
+
+      PdfDictionary dictionary;
+      if(object instanceof PdfStream)
+      {dictionary = ((PdfStream)object).getHeader();}
+      else if(object instanceof PdfDictionary)
+      {dictionary = (PdfDictionary)object;}
+      else
+        return true;
+
+      /*
+        NOTE: Tree nodes (parent link), annotations (location) and other objects bound to specific
+        pages are kept distinct.
+      */
+      return !(dictionary.containsKey(PdfName.Parent)
+        || dictionary.containsKey(PdfName.P)
+        || dictionary.containsKey(PdfName.Rect)
+        || IdentityTypes.contains(dictionary.get(PdfName.Type)));
+    }
+
+    /**
+      Gets the canonical number of the specified object, hashing it if not done yet.
+    */
+    private int resolve(
+      int objectNumber
+      )
+    {
+      int canonicalNumber = canonicalNumbers[objectNumber];
+      if(canonicalNumber == InProgressNumber)
+        /*
+          NOTE: In case of reference cycle, the object is taken as it is; this is conservative, as
+          the objects depending on it can be merged only with those referencing the same object.
+        */
+        return objectNumber;
+      else if(canonicalNumber != UnresolvedNumber)
+        return canonicalNumber;
+
+      canonicalNumbers[objectNumber] = InProgressNumber;
+      canonicalNumber = objectNumber;
+      PdfIndirectObject object = indirectObjects.get(objectNumber);
+      if(object.isInUse())
+      {
+        PdfDataObject dataObject = object.getDataObject();
+        if(isMergeable(dataObject))
+        {
+          /*
+            NOTE: Each object gets its own digest, as the objects it references are resolved (and
+            hashed) while it's being written.
+          */
+          MessageDigest digest = createDigest();
+          write(dataObject, createDigestStream(digest));
+          ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+          Integer distinctNumber = distinctNumbers.get(hash);
+          if(distinctNumber == null)
+          {distinctNumbers.put(hash, objectNumber);}
+          else
+          {
+            canonicalNumber = distinctNumber;
+            duplicateCount++;
+            duplicateLength += getLength(dataObject);
+          }
+        }
+      }
+      canonicalNumbers[objectNumber] = canonicalNumber;
+      return canonicalNumber;
+    }
+
+    /**
+      Replaces the references to duplicate objects within the specified object with references to
+      their canonical objects.
+    */
+    private void rewrite(
+      PdfDataObject object
+      )
+    {
+      Deque<PdfDataObject> pendingObjects = new ArrayDeque<PdfDataObject>();
+      pendingObjects.push(object);
+      while(!pendingObjects.isEmpty())
+      {
+        PdfDataObject pendingObject = pendingObjects.pop();
+        if(pendingObject instanceof PdfDictionary)
+        {
+          PdfDictionary dictionary = (PdfDictionary)pendingObject;
+          for(PdfName key : new ArrayList<PdfName>(dictionary.keySet()))
+          {
+            PdfDirectObject value = dictionary.get(key);
+            if(value instanceof PdfReference)
+            {
+              PdfReference canonicalReference = getCanonicalReference((PdfReference)value);
+              if(canonicalReference != null)
+              {dictionary.put(key, canonicalReference);}
+            }
+            else if(value != null)
+            {pendingObjects.push(value);}
+          }
+        }
+        else if(pendingObject instanceof PdfArray)
+        {
+          PdfArray array = (PdfArray)pendingObject;
+          for(int index = 0, length = array.size(); index < length; index++)
+          {
+            PdfDirectObject item = array.get(index);
+            if(item instanceof PdfReference)
+            {
+              PdfReference canonicalReference = getCanonicalReference((PdfReference)item);
+              if(canonicalReference != null)
+              {array.set(index, canonicalReference);}
+            }
+            else if(item != null)
+            {pendingObjects.push(item);}
+          }
+        }
+        else if(pendingObject instanceof PdfStream
+          && !(pendingObject instanceof ObjectStream
+            || pendingObject instanceof XRefStream))
+        {pendingObjects.push(((PdfStream)pendingObject).getHeader());}
+      }
+    }
+
+    /**
+      Gets the reference to the canonical object of the specified reference's object.
+
+      @return <code>null</code>, if the referenced object is not a duplicate.
+    */
+    private PdfReference getCanonicalReference(
+      PdfReference reference
+      )
+    {
+      PdfIndirectObject object = reference.getIndirectObject();
+      if(object == null)
+        return null;
+
+      int objectNumber = object.getXrefEntry().getNumber();
+      if(objectNumber >= canonicalNumbers.length
+        || canonicalNumbers[objectNumber] == objectNumber)
+        return null;
+
+      return indirectObjects.get(canonicalNumbers[objectNumber]).getReference();
+    }
+  }
+
+  private static MessageDigest createDigest(
+    )
+  {
+    try
+    {return MessageDigest.getInstance("SHA-256");}
+    catch(NoSuchAlgorithmException e)
+    {throw new RuntimeException("SHA-256 algorithm unavailable.", e);}
+  }
+
+  /**
+    Creates a stream feeding the specified digest with the data written to it.
+  */
+  private static IOutputStream createDigestStream(
+    final MessageDigest digest
+    )
+  {
+    return new OutputStream(
+      new java.io.OutputStream()
+      {
+        @Override
+        public void write(
+          byte[] data,
+          int offset,
+          int length
+          )
+        {digest.update(data, offset, length);}
+
+        @Override
+        public void write(
+          int data
+          )
+        {digest.update((byte)data);}
+      }
+      );
+  }
+
+  /**
+    Merges indirect objects which have identical contents, such as the same fonts and images
+    repeatedly imported along with multiple documents (see {@link PageManager#add(
+    org.pdfclown.documents.Document)}), rewriting the references to the duplicates across the
+    document.
+    <p>Objects are compared through a content hash computed in a single pass over the indirect
+    objects: stream bodies are hashed as they are (that is, encoded), along with their normalized
+    headers (entry order and length are not significant); references are hashed as the objects they
+    point to, so that, for example, font dictionaries whose font programs are duplicates of each
+    other are merged too. Memory usage is proportional to the number of distinct objects. Objects
+    whose identity matters (pages, annotations, tree nodes and the like) are never merged.</p>
+    <p>As merged objects are shared, later changes to any of them affect all of their users.</p>
+
+    @param file File to optimize.
+    @return Number of bytes saved (size of the removed duplicates, as currently encoded).
+    @since 0.2.0
+  */
+  public static long removeDuplicateObjects(
+    File file
+    )
+  {
+    if(file.getTrailer().containsKey(PdfName.Encrypt))
+      throw new UnsupportedOperationException("Encrypted files can't be deduplicated.");
+
+    return new Deduplicator(file).run();
+  }
+
   /**
     Removes indirect objects which have no reference in the document structure.
 
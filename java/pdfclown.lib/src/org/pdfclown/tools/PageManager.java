@@ -25,6 +25,7 @@
 
 package org.pdfclown.tools;
 
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -37,10 +38,14 @@ import org.pdfclown.bytes.IOutputStream;
 import org.pdfclown.documents.Document;
 import org.pdfclown.documents.Page;
 import org.pdfclown.documents.Pages;
-import org.pdfclown.documents.contents.ContentScanner;
-import org.pdfclown.documents.contents.ContentScanner.GraphicsObjectWrapper;
-import org.pdfclown.documents.contents.objects.ContainerObject;
+import org.pdfclown.documents.contents.ContentScanner.GraphicsState;
+import org.pdfclown.documents.contents.ContentStreamScanner;
+import org.pdfclown.documents.contents.objects.BeginText;
 import org.pdfclown.documents.contents.objects.ContentObject;
+import org.pdfclown.documents.contents.objects.EndText;
+import org.pdfclown.documents.contents.objects.InlineImage;
+import org.pdfclown.documents.contents.objects.PaintXObject;
+import org.pdfclown.documents.contents.objects.ShowText;
 import org.pdfclown.files.File;
 import org.pdfclown.objects.PdfArray;
 import org.pdfclown.objects.PdfDataObject;
@@ -70,6 +75,75 @@ public final class PageManager
   */
 
   // <class>
+  // <classes>
+  /**
+    Content stream handler detecting the graphics objects painted within an area.
+    <p>The scan is stopped as soon as such a graphics object is detected.</p>
+  */
+  private static final class ContentDetector
+    implements ContentStreamScanner.IHandler,
+      ShowText.IScanner
+  {
+    private final Rectangle2D contentBox;
+    /**
+      Bounding box of the current text object.
+    */
+    private Rectangle2D textBox;
+
+    public ContentDetector(
+      Rectangle2D contentBox
+      )
+    {this.contentBox = contentBox;}
+
+    @Override
+    public boolean onObject(
+      ContentObject object,
+      GraphicsState state
+      )
+    {
+      Rectangle2D objectBox;
+      if(object instanceof BeginText
+        || object instanceof EndText)
+      {
+        textBox = null;
+        return true;
+      }
+      else if(object instanceof ShowText)
+      {
+        ((ShowText)object).scan(state, this);
+        objectBox = textBox;
+      }
+      else if(object instanceof PaintXObject
+        || object instanceof InlineImage)
+      {
+        AffineTransform ctm = state.getCtm();
+        objectBox = new Rectangle2D.Double(
+          ctm.getTranslateX(),
+          state.getScanner().getContextSize().getHeight() - ctm.getTranslateY(),
+          ctm.getScaleX(),
+          Math.abs(ctm.getScaleY())
+          );
+      }
+      else
+        return true;
+
+      return objectBox == null || !objectBox.intersects(contentBox);
+    }
+
+    @Override
+    public void scanChar(
+      char textChar,
+      Rectangle2D textCharBox
+      )
+    {
+      if(textBox == null)
+      {textBox = (Rectangle2D)textCharBox.clone();}
+      else
+      {textBox.add(textCharBox);}
+    }
+  }
+  // </classes>
+
   // <static>
   // <interface>
   // <public>
@@ -123,7 +197,7 @@ public final class PageManager
     Page page,
     Rectangle2D contentBox
     )
-  {return isBlank(new ContentScanner(page), contentBox);}
+  {return new ContentStreamScanner(page).scan(new ContentDetector(contentBox));}
   // </public>
 
   // <private>
@@ -185,44 +259,6 @@ public final class PageManager
     }
     return dataSize;
   }
-  
-  /**
-    Gets whether the specified content stream part is blank.
-    
-    @param level
-      Content stream part to evaluate.
-    @param contentBox
-      Area to evaluate within the page.
-  */
-  private static boolean isBlank(
-    ContentScanner level,
-    Rectangle2D contentBox
-    )
-  {
-    if(level == null)
-      return true;
-
-    while(level.moveNext())
-    {
-      ContentObject content = level.getCurrent();
-      if(content instanceof ContainerObject)
-      {
-        // Scan the inner level!
-        if(!isBlank(level.getChildLevel(), contentBox))
-          return false;
-      }
-      else
-      {
-        GraphicsObjectWrapper<?> contentWrapper = level.getCurrentWrapper();
-        if(contentWrapper == null)
-          continue;
-      
-        if(contentWrapper.getBox().intersects(contentBox))
-          return false;
-      }
-    }
-    return true;
-  }
   // </private>
   // </interface>
   // </static>
@@ -27,12 +27,19 @@ package org.pdfclown.tools;
 
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.pdfclown.documents.contents.ContentScanner;
 import org.pdfclown.documents.contents.Contents;
@@ -72,6 +79,28 @@ public final class TextExtractor
     Intersection
   }
 
+  /**
+    Listener of the text extracted from multiple content contexts.
+    <p>Notifications happen on the thread which requested the extraction, in order of completion.</p>
+
+    @see TextExtractor#extract(List, ExecutorService, IExtractionListener)
+  */
+  public interface IExtractionListener
+  {
+    /**
+      Notifies the text strings extracted from a content context.
+
+      @param index Position of the content context within the source list.
+      @param contentContext Source content context.
+      @param textStrings Extracted text strings.
+    */
+    void onExtract(
+      int index,
+      IContentContext contentContext,
+      Map<Rectangle2D,List<ITextString>> textStrings
+      );
+  }
+
   /**
     Text filter by interval.
     <p>Iterated intervals MUST be ordered.</p>
@@ -91,6 +120,298 @@ public final class TextExtractor
       );
   }
 
+  /**
+    Text extraction task.
+  */
+  private final class ExtractionTask
+    implements Callable<ExtractionTask>
+  {
+    // <class>
+    // <dynamic>
+    // <fields>
+    private final IContentContext contentContext;
+    private final int index;
+    private Map<Rectangle2D,List<ITextString>> textStrings;
+    // </fields>
+
+    // <constructors>
+    public ExtractionTask(
+      int index,
+      IContentContext contentContext
+      )
+    {
+      this.index = index;
+      this.contentContext = contentContext;
+    }
+    // </constructors>
+
+    // <interface>
+    // <public>
+    @Override
+    public ExtractionTask call(
+      )
+    {
+      textStrings = extract(contentContext);
+      return this;
+    }
+    // </public>
+    // </interface>
+    // </dynamic>
+    // </class>
+  }
+
+  /**
+    Spatial index of the chars of a list of text strings.
+    <p>Text chars are bucketed into a uniform grid spanning their overall bounds, so that area
+    matching visits just the chars laying within the cells overlapped by each area instead of the
+    whole list.</p>
+  */
+  private static final class TextCharIndex
+  {
+    // <class>
+    // <static>
+    /**
+      Average number of text chars per grid cell.
+    */
+    private static final int CellCapacity = 8;
+    // </static>
+
+    // <dynamic>
+    // <fields>
+    private final TextChar[] textChars;
+    private final Rectangle2D[] textStringBoxes;
+    /**
+      Position of the first char of each text string within {@link #textChars} (the last entry is
+      the total char count).
+    */
+    private final int[] textStringStarts;
+
+    private int columnCount;
+    private int rowCount;
+    private double cellWidth;
+    private double cellHeight;
+    private double minX;
+    private double minY;
+    /**
+      Position of the first entry of each cell within {@link #cellTextChars} (the last entry is the
+      total entry count).
+    */
+    private int[] cellStarts;
+    /**
+      Indexes of the text chars bucketed into each cell.
+    */
+    private int[] cellTextChars;
+
+    /**
+      Current query stamp of each text char (avoids collecting the same char twice when it spans
+      multiple cells).
+    */
+    private final int[] textCharMarks;
+    private int textCharMark;
+    private final int[] matchingTextChars;
+    // </fields>
+
+    // <constructors>
+    public TextCharIndex(
+      List<? extends ITextString> textStrings
+      )
+    {
+      int textStringCount = textStrings.size();
+      textStringBoxes = new Rectangle2D[textStringCount];
+      textStringStarts = new int[textStringCount + 1];
+      int textCharCount = 0;
+      {
+        int textStringIndex = 0;
+        for(ITextString textString : textStrings)
+        {
+          textStringStarts[textStringIndex++] = textCharCount;
+          textCharCount += textString.getTextChars().size();
+        }
+        textStringStarts[textStringCount] = textCharCount;
+      }
+      textChars = new TextChar[textCharCount];
+      textCharMarks = new int[textCharCount];
+      matchingTextChars = new int[textCharCount];
+
+      // Collect the text chars and their overall bounds!
+      /*
+        NOTE: Empty boxes are neither contained by nor intersect any area, so their chars are left
+        out of the grid.
+      */
+      Rectangle2D bounds = null;
+      int indexedTextCharCount = 0;
+      {
+        int textStringIndex = 0;
+        int textCharIndex = 0;
+        for(ITextString textString : textStrings)
+        {
+          for(TextChar textChar : textString.getTextChars())
+          {
+            Rectangle2D textCharBox = textChar.getBox();
+            if(!textCharBox.isEmpty())
+            {
+              if(bounds == null)
+              {bounds = (Rectangle2D)textCharBox.clone();}
+              else
+              {bounds.add(textCharBox);}
+              indexedTextCharCount++;
+            }
+            textChars[textCharIndex++] = textChar;
+          }
+          if(textCharIndex > textStringStarts[textStringIndex])
+          {textStringBoxes[textStringIndex] = textString.getBox();}
+          textStringIndex++;
+        }
+      }
+      if(bounds == null)
+        return;
+
+      // Size the grid!
+      {
+        int cellCount = Math.max(1, indexedTextCharCount / CellCapacity);
+        columnCount = Math.max(1, Math.min(cellCount, (int)Math.round(Math.sqrt(cellCount * bounds.getWidth() / bounds.getHeight()))));
+        rowCount = Math.max(1, cellCount / columnCount);
+        minX = bounds.getMinX();
+        minY = bounds.getMinY();
+        cellWidth = bounds.getWidth() / columnCount;
+        cellHeight = bounds.getHeight() / rowCount;
+      }
+
+      // Bucket the text chars into the grid cells!
+      cellStarts = new int[columnCount * rowCount + 1];
+      for(int pass = 0; pass < 2; pass++)
+      {
+        for(int textCharIndex = 0; textCharIndex < textCharCount; textCharIndex++)
+        {
+          Rectangle2D textCharBox = textChars[textCharIndex].getBox();
+          if(textCharBox.isEmpty())
+            continue;
+
+          int lastColumn = getColumn(textCharBox.getMaxX());
+          int lastRow = getRow(textCharBox.getMaxY());
+          for(int row = getRow(textCharBox.getMinY()); row <= lastRow; row++)
+          {
+            for(int column = getColumn(textCharBox.getMinX()); column <= lastColumn; column++)
+            {
+              int cell = row * columnCount + column;
+              if(pass == 0)
+              {cellStarts[cell + 1]++;}
+              else
+              {cellTextChars[cellStarts[cell]++] = textCharIndex;}
+            }
+          }
+        }
+        if(pass == 0)
+        {
+          for(int cell = 1; cell < cellStarts.length; cell++)
+          {cellStarts[cell] += cellStarts[cell - 1];}
+          cellTextChars = new int[cellStarts[cellStarts.length - 1]];
+        }
+        else
+        {
+          // Restore the cell starts (shifted by the fill)!
+          System.arraycopy(cellStarts, 0, cellStarts, 1, cellStarts.length - 1);
+          cellStarts[0] = 0;
+        }
+      }
+    }
+    // </constructors>
+
+    // <interface>
+    // <public>
+    /**
+      Collects the text strings matching the specified area.
+
+      @param area Graphic area which text strings have to be matched to.
+      @param areaMode Text-to-area matching mode.
+      @param filteredTextStrings Target list of the matching text strings.
+    */
+    public void filter(
+      Rectangle2D area,
+      AreaModeEnum areaMode,
+      List<ITextString> filteredTextStrings
+      )
+    {
+      if(cellStarts == null || area.isEmpty())
+        return;
+
+      // Collect the candidate text chars!
+      if(++textCharMark == 0)
+      {
+        Arrays.fill(textCharMarks, 0);
+        textCharMark = 1;
+      }
+      int matchingTextCharCount = 0;
+      int lastColumn = getColumn(area.getMaxX());
+      int lastRow = getRow(area.getMaxY());
+      for(int row = getRow(area.getMinY()); row <= lastRow; row++)
+      {
+        for(int column = getColumn(area.getMinX()); column <= lastColumn; column++)
+        {
+          int cell = row * columnCount + column;
+          for(int index = cellStarts[cell], endIndex = cellStarts[cell + 1]; index < endIndex; index++)
+          {
+            int textCharIndex = cellTextChars[index];
+            if(textCharMarks[textCharIndex] != textCharMark)
+            {
+              textCharMarks[textCharIndex] = textCharMark;
+              matchingTextChars[matchingTextCharCount++] = textCharIndex;
+            }
+          }
+        }
+      }
+      /*
+        NOTE: Candidates are restored to their original order, so that the outcome is the same as
+        the exhaustive scan's.
+      */
+      Arrays.sort(matchingTextChars, 0, matchingTextCharCount);
+
+      // Match the candidate text chars, grouping them by text string!
+      int textStringIndex = 0;
+      for(int index = 0; index < matchingTextCharCount;)
+      {
+        while(textStringStarts[textStringIndex + 1] <= matchingTextChars[index])
+        {textStringIndex++;}
+
+        int textStringEnd = textStringStarts[textStringIndex + 1];
+        if(area.intersects(textStringBoxes[textStringIndex]))
+        {
+          TextString filteredTextString = new TextString();
+          List<TextChar> filteredTextStringChars = filteredTextString.getTextChars();
+          for(; index < matchingTextCharCount && matchingTextChars[index] < textStringEnd; index++)
+          {
+            TextChar textChar = textChars[matchingTextChars[index]];
+            if(matches(area, textChar.getBox(), areaMode))
+            {filteredTextStringChars.add(textChar);}
+          }
+          if(!filteredTextStringChars.isEmpty())
+          {filteredTextStrings.add(filteredTextString);}
+        }
+        else
+        {
+          while(index < matchingTextCharCount && matchingTextChars[index] < textStringEnd)
+          {index++;}
+        }
+      }
+    }
+    // </public>
+
+    // <private>
+    private int getColumn(
+      double x
+      )
+    {return Math.max(0, Math.min(columnCount - 1, (int)((x - minX) / cellWidth)));}
+
+    private int getRow(
+      double y
+      )
+    {return Math.max(0, Math.min(rowCount - 1, (int)((y - minY) / cellHeight)));}
+    // </private>
+    // </interface>
+    // </dynamic>
+    // </class>
+  }
+
   /**
     Text string.
     <p>This is typically used to assemble contiguous raw text strings.</p>
@@ -244,11 +565,27 @@ public final class TextExtractor
     return textBuilder.toString();
   }
   // </public>
+
+  // <private>
+  /**
+    Gets whether the specified box matches the specified area.
+  */
+  private static boolean matches(
+    Rectangle2D area,
+    Rectangle2D box,
+    AreaModeEnum areaMode
+    )
+  {
+    return (areaMode == AreaModeEnum.Containment && area.contains(box))
+      || (areaMode == AreaModeEnum.Intersection && area.intersects(box));
+  }
+  // </private>
   // </interface>
   // </static>
 
   // <dynamic>
   // <fields>
+  private boolean areaIndexed;
   private AreaModeEnum areaMode = AreaModeEnum.Containment;
   private List<Rectangle2D> areas;
   private double areaTolerance = 0;
@@ -320,6 +657,92 @@ public final class TextExtractor
     return extractedTextStrings;
   }
 
+  /**
+    Extracts text strings from the specified content contexts concurrently.
+    <p>Each content context (typically a page, see {@link org.pdfclown.documents.Pages#subList(int,
+    int) page ranges}) is extracted as an independent task on the specified executor.</p>
+    <p>The source document MUST NOT be modified during the extraction.</p>
+
+    @param contentContexts Source content contexts.
+    @param executor Executor running the extraction tasks.
+    @return Text strings extracted from each content context, in the same order as the source.
+    @since 0.2.0
+  */
+  public List<Map<Rectangle2D,List<ITextString>>> extract(
+    List<? extends IContentContext> contentContexts,
+    ExecutorService executor
+    )
+  {
+    final List<Map<Rectangle2D,List<ITextString>>> extractedTextStrings = new ArrayList<Map<Rectangle2D,List<ITextString>>>(
+      Collections.<Map<Rectangle2D,List<ITextString>>>nCopies(contentContexts.size(), null)
+      );
+    extract(
+      contentContexts,
+      executor,
+      new IExtractionListener(
+        )
+      {
+        @Override
+        public void onExtract(
+          int index,
+          IContentContext contentContext,
+          Map<Rectangle2D,List<ITextString>> textStrings
+          )
+        {extractedTextStrings.set(index, textStrings);}
+      }
+      );
+    return extractedTextStrings;
+  }
+
+  /**
+    Extracts text strings from the specified content contexts concurrently, notifying them as soon
+    as available.
+    <p>Each content context (typically a page, see {@link org.pdfclown.documents.Pages#subList(int,
+    int) page ranges}) is extracted as an independent task on the specified executor; in case of
+    failure, the pending tasks are cancelled.</p>
+    <p>The source document MUST NOT be modified during the extraction.</p>
+
+    @param contentContexts Source content contexts.
+    @param executor Executor running the extraction tasks.
+    @param listener Listener notified (on the calling thread) of the text strings extracted from
+      each content context, in order of completion.
+    @since 0.2.0
+  */
+  public void extract(
+    List<? extends IContentContext> contentContexts,
+    ExecutorService executor,
+    IExtractionListener listener
+    )
+  {
+    CompletionService<ExtractionTask> completionService = new ExecutorCompletionService<ExtractionTask>(executor);
+    List<Future<ExtractionTask>> futures = new ArrayList<Future<ExtractionTask>>(contentContexts.size());
+    try
+    {
+      int index = 0;
+      for(IContentContext contentContext : contentContexts)
+      {futures.add(completionService.submit(new ExtractionTask(index++, contentContext)));}
+
+      for(int count = futures.size(); count > 0; count--)
+      {
+        ExtractionTask task = completionService.take().get();
+        listener.onExtract(task.index, task.contentContext, task.textStrings);
+      }
+    }
+    catch(InterruptedException e)
+    {
+      // Preserve the interruption status for the caller!
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    catch(ExecutionException e)
+    {throw new RuntimeException(e.getCause());}
+    finally
+    {
+      for(Future<ExtractionTask> future : futures)
+      {future.cancel(true);}
+    }
+  }
+
   /**
     Extracts text strings from the specified contents.
 
@@ -485,6 +908,8 @@ public final class TextExtractor
 
   /**
     Gets the text strings matching the specified areas.
+    <p>In case of {@link #isAreaIndexed() area indexing}, the spatial index is built once for all
+    the areas, so they should be passed together rather than through multiple calls.</p>
 
     @param textStrings Text strings to filter.
     @param areas Graphic areas which text strings have to be matched to.
@@ -495,6 +920,7 @@ public final class TextExtractor
     )
   {
     Map<Rectangle2D,List<ITextString>> filteredAreasTextStrings = new HashMap<Rectangle2D,List<ITextString>>();
+    TextCharIndex textCharIndex = (areaIndexed ? new TextCharIndex(textStrings) : null);
     for(Rectangle2D area : areas)
     {
       List<ITextString> filteredAreaTextStrings = new ArrayList<ITextString>();
@@ -507,6 +933,12 @@ public final class TextExtractor
           area.getHeight() + areaTolerance * 2
           )
         : area);
+      if(textCharIndex != null)
+      {
+        textCharIndex.filter(toleratedArea, areaMode, filteredAreaTextStrings);
+        continue;
+      }
+
       for(ITextString textString : textStrings)
       {
         Rectangle2D textStringBox = textString.getBox();
@@ -516,9 +948,7 @@ public final class TextExtractor
           List<TextChar> filteredTextStringChars = filteredTextString.getTextChars();
           for(TextChar textChar : textString.getTextChars())
           {
-            Rectangle2D textCharBox = textChar.getBox();
-            if((areaMode == AreaModeEnum.Containment && toleratedArea.contains(textCharBox))
-              || (areaMode == AreaModeEnum.Intersection && toleratedArea.intersects(textCharBox)))
+            if(matches(toleratedArea, textChar.getBox(), areaMode))
             {filteredTextStringChars.add(textChar);}
           }
           if(!filteredTextStringChars.isEmpty())
@@ -552,6 +982,16 @@ public final class TextExtractor
     )
   {return areaTolerance;}
 
+  /**
+    Gets whether area matching is accelerated through a spatial index of the text chars.
+    <p>The index is built once per filtered text string list (that is, once per page on {@link
+    #extract(IContentContext) extraction}) and pays off when many areas are matched against the
+    same text; the outcome is the same as the exhaustive scan's.</p>
+  */
+  public boolean isAreaIndexed(
+    )
+  {return areaIndexed;}
+
   /**
     Gets whether the text strings have to be dehyphenated.
   */
@@ -566,6 +1006,14 @@ public final class TextExtractor
     )
   {return sorted;}
 
+  /**
+    @see #isAreaIndexed()
+  */
+  public void setAreaIndexed(
+    boolean value
+    )
+  {areaIndexed = value;}
+
   /**
     @see #getAreaMode()
   */
@@ -0,0 +1,354 @@
+/*
+  Copyright 2015 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+  Map of non-negative integer keys backed by an array indexed by key.
+  <p>It's meant for dense key ranges (such as object numbers): lookups are plain array accesses and
+  entries are iterated in ascending key order. <code>null</code> values are not allowed.</p>
+  <p>The array range is bounded by the number of entries: keys beyond it are kept in a sparse map
+  instead, so that outlying keys don't cause huge allocations.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public final class IntArrayMap<TValue>
+  extends AbstractMap<Integer,TValue>
+{
+  // <class>
+  // <classes>
+  private final class EntrySet
+    extends AbstractSet<Map.Entry<Integer,TValue>>
+  {
+    @Override
+    public Iterator<Map.Entry<Integer,TValue>> iterator(
+      )
+    {
+      return new Iterator<Map.Entry<Integer,TValue>>()
+      {
+        /** Key of the current entry. */
+        private int index = -1;
+        /** Key of the next entry. */
+        private int nextIndex = seek(0);
+        /** Iterator over the sparse entries (once the array range is exhausted). */
+        private Iterator<Map.Entry<Integer,Object>> sparseIterator;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext(
+          )
+        {
+          return nextIndex < values.length
+            || (sparseIterator != null ? sparseIterator.hasNext() : sparseValues != null && !sparseValues.isEmpty());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<Integer,TValue> next(
+          )
+        {
+          if(!hasNext())
+            throw new NoSuchElementException();
+          if(modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+
+          if(nextIndex < values.length)
+          {
+            index = nextIndex;
+            nextIndex = seek(index + 1);
+            return new MapEntry<Integer,TValue>(index, (TValue)values[index]);
+          }
+          else
+          {
+            if(sparseIterator == null)
+            {sparseIterator = sparseValues.entrySet().iterator();}
+
+            Map.Entry<Integer,Object> entry = sparseIterator.next();
+            index = entry.getKey();
+            return new MapEntry<Integer,TValue>(index, (TValue)entry.getValue());
+          }
+        }
+
+        @Override
+        public void remove(
+          )
+        {
+          if(index < 0)
+            throw new IllegalStateException();
+          if(modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+
+          if(sparseIterator != null)
+          {
+            sparseIterator.remove();
+            size--;
+            modCount++;
+          }
+          else
+          {IntArrayMap.this.remove(index);}
+          index = -1;
+          expectedModCount = modCount;
+        }
+
+        private int seek(
+          int index
+          )
+        {
+          while(index < values.length && values[index] == null)
+          {index++;}
+          return index;
+        }
+      };
+    }
+
+    @Override
+    public int size(
+      )
+    {return size;}
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  private static final int DefaultCapacity = 16;
+  /**
+    Minimum array range, regardless of the number of entries.
+  */
+  private static final int MinDenseCapacity = 1024;
+  // </fields>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Array range hint.
+  */
+  private final int capacity;
+  private EntrySet entrySet;
+  private int modCount;
+  private int size;
+  /**
+    Entries beyond the array range (their keys are always greater than or equal to the array
+    length).
+  */
+  private TreeMap<Integer,Object> sparseValues;
+  private Object[] values;
+  // </fields>
+
+  // <constructors>
+  public IntArrayMap(
+    )
+  {this(DefaultCapacity);}
+
+  /**
+    @param capacity Initial key range the map can hold without growing; it should reflect the
+      expected number of entries, as keys beyond it are stored sparsely unless the map is dense
+      enough.
+  */
+  public IntArrayMap(
+    int capacity
+    )
+  {
+    this.capacity = Math.max(capacity, 1);
+    values = new Object[this.capacity];
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  @Override
+  public void clear(
+    )
+  {
+    Arrays.fill(values, null);
+    sparseValues = null;
+    size = 0;
+    modCount++;
+  }
+
+  public boolean containsKey(
+    int key
+    )
+  {return get(key) != null;}
+
+  @Override
+  public boolean containsKey(
+    Object key
+    )
+  {return key instanceof Integer && containsKey(((Integer)key).intValue());}
+
+  @Override
+  public Set<Map.Entry<Integer,TValue>> entrySet(
+    )
+  {
+    if(entrySet == null)
+    {entrySet = new EntrySet();}
+
+    return entrySet;
+  }
+
+  @SuppressWarnings("unchecked")
+  public TValue get(
+    int key
+    )
+  {
+    if(key < 0)
+      return null;
+    else if(key < values.length)
+      return (TValue)values[key];
+    else
+      return sparseValues != null ? (TValue)sparseValues.get(key) : null;
+  }
+
+  @Override
+  public TValue get(
+    Object key
+    )
+  {return key instanceof Integer ? get(((Integer)key).intValue()) : null;}
+
+  @SuppressWarnings("unchecked")
+  public TValue put(
+    int key,
+    TValue value
+    )
+  {
+    if(key < 0)
+      throw new IllegalArgumentException("Negative key: " + key);
+    if(value == null)
+      throw new NullPointerException("value");
+
+    if(key >= values.length)
+    {
+      long denseCapacityLimit = getDenseCapacityLimit();
+      if(key >= denseCapacityLimit)
+      {
+        if(sparseValues == null)
+        {sparseValues = new TreeMap<Integer,Object>();}
+
+        TValue oldValue = (TValue)sparseValues.put(key, value);
+        if(oldValue == null)
+        {
+          size++;
+          modCount++;
+        }
+        return oldValue;
+      }
+
+      grow((int)Math.max(key + 1, Math.min(values.length + (values.length >> 1), denseCapacityLimit)));
+    }
+
+    TValue oldValue = (TValue)values[key];
+    values[key] = value;
+    if(oldValue == null)
+    {
+      size++;
+      modCount++;
+    }
+    return oldValue;
+  }
+
+  @Override
+  public TValue put(
+    Integer key,
+    TValue value
+    )
+  {return put(key.intValue(), value);}
+
+  @SuppressWarnings("unchecked")
+  public TValue remove(
+    int key
+    )
+  {
+    if(key < 0)
+      return null;
+
+    TValue oldValue;
+    if(key < values.length)
+    {
+      oldValue = (TValue)values[key];
+      values[key] = null;
+    }
+    else
+    {oldValue = (sparseValues != null ? (TValue)sparseValues.remove(key) : null);}
+    if(oldValue != null)
+    {
+      size--;
+      modCount++;
+    }
+    return oldValue;
+  }
+
+  @Override
+  public TValue remove(
+    Object key
+    )
+  {return key instanceof Integer ? remove(((Integer)key).intValue()) : null;}
+
+  @Override
+  public int size(
+    )
+  {return size;}
+  // </public>
+
+  // <private>
+  /**
+    Gets the key below which entries can be stored into the array.
+  */
+  private long getDenseCapacityLimit(
+    )
+  {return Math.max(capacity, MinDenseCapacity) + 2L * size;}
+
+  private void grow(
+    int length
+    )
+  {
+    values = Arrays.copyOf(values, length);
+    if(sparseValues != null)
+    {
+      // Move the sparse entries falling within the new array range!
+      SortedMap<Integer,Object> movedValues = sparseValues.headMap(length);
+      for(Map.Entry<Integer,Object> entry : movedValues.entrySet())
+      {values[entry.getKey()] = entry.getValue();}
+      movedValues.clear();
+    }
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -28,9 +28,11 @@ package org.pdfclown.util.parsers;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 import org.pdfclown.bytes.Buffer;
 import org.pdfclown.bytes.IInputStream;
+import org.pdfclown.tokens.CharsetName;
 import org.pdfclown.tokens.Keyword;
 import org.pdfclown.tokens.Symbol;
 
@@ -65,6 +67,38 @@ public class PostScriptParser
   // </classes>
 
   // <static>
+  // <fields>
+  private static final int DefaultTokenCapacity = 64;
+  private static final int TokenStringCacheSize = 1 << 8;
+
+  /**
+    Maximum number of digits of integer tokens which cannot overflow a long.
+  */
+  private static final int MaxIntegerDigitCount = 18;
+  /**
+    Maximum number of digits of real tokens whose mantissa is exactly representable as a double.
+  */
+  private static final int MaxRealDigitCount = 15;
+  /**
+    Powers of ten exactly representable as doubles.
+  */
+  private static final double[] PowersOfTen = new double[23];
+
+  private static final Charset TokenCharset = Charset.forName(CharsetName.ISO88591);
+  // </fields>
+
+  // <constructors>
+  static
+  {
+    double value = 1;
+    for(int index = 0; index < PowersOfTen.length; index++)
+    {
+      PowersOfTen[index] = value;
+      value *= 10;
+    }
+  }
+  // </constructors>
+
   // <interface>
   // <protected>
   protected static int getHex(
@@ -114,6 +148,16 @@ public class PostScriptParser
     )
   {return c == 32 || isEOL(c) || c == 0 || c == 9 || c == 12;}
   // </protected>
+
+  // <private>
+  /**
+    Clamps the specified value to the 32-bit integer range.
+  */
+  private static int clamp(
+    long value
+    )
+  {return (int)Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));}
+  // </private>
   // </interface>
   // </static>
 
@@ -123,6 +167,25 @@ public class PostScriptParser
 
   private Object token;
   private TokenTypeEnum tokenType;
+  /**
+    Whether {@link #token} reflects the current token (otherwise it's materialized on demand from
+    the raw token data).
+  */
+  private boolean tokenResolved = true;
+
+  /**
+    Raw bytes of the current token (reused across tokens).
+  */
+  private byte[] tokenBytes = new byte[DefaultTokenCapacity];
+  private int tokenLength;
+  private int integerToken;
+  private long longToken;
+  private double realToken;
+
+  /**
+    Direct-mapped cache of name and keyword strings.
+  */
+  private final String[] tokenStrings = new String[TokenStringCacheSize];
   // </fields>
 
   // <constructors>
@@ -153,10 +216,40 @@ public class PostScriptParser
 
   /**
     Gets the currently-parsed token.
+    <p>Integer tokens are returned as {@link Integer}, clamped to its range (see {@link
+    #getLongToken()} for the full value).</p>
   */
   public Object getToken(
     )
-  {return token;}
+  {
+    if(!tokenResolved)
+    {
+      switch(tokenType)
+      {
+        case Keyword:
+        case Name:
+          token = getCachedTokenString();
+          break;
+        case Literal:
+        case Hex:
+        case Comment:
+          token = getTokenString();
+          break;
+        case Integer:
+          token = integerToken;
+          break;
+        case Real:
+          token = realToken;
+          break;
+        default:
+        {
+          /* NOOP */
+        }
+      }
+      tokenResolved = true;
+    }
+    return token;
+  }
 
   /**
     Gets a token after moving to the given offset.
@@ -169,6 +262,51 @@ public class PostScriptParser
     )
   {moveNext(offset); return getToken();}
 
+  /**
+    Gets the raw bytes of the currently-parsed token.
+    <p>The returned array is reused across tokens: only its first {@link #getTokenLength()} bytes
+    are meaningful, and only until the next move.</p>
+  */
+  public byte[] getTokenBytes(
+    )
+  {return tokenBytes;}
+
+  /**
+    Gets the currently-parsed token as an integer, avoiding its boxing.
+    <p>Applicable to {@link TokenTypeEnum#Integer} and {@link TokenTypeEnum#Real} tokens only (the
+    latter are truncated); values beyond the 32-bit range are clamped.</p>
+  */
+  public int getIntegerToken(
+    )
+  {return integerToken;}
+
+  /**
+    Gets the currently-parsed token as a long integer, avoiding its boxing.
+    <p>Applicable to {@link TokenTypeEnum#Integer} and {@link TokenTypeEnum#Real} tokens only (the
+    latter are truncated). Unlike {@link #getIntegerToken()}, integer tokens beyond the 32-bit range
+    (such as byte offsets within files larger than 2 GB) are preserved.</p>
+  */
+  public long getLongToken(
+    )
+  {return longToken;}
+
+  /**
+    Gets the currently-parsed token as a real number, avoiding its boxing.
+    <p>Applicable to {@link TokenTypeEnum#Integer} and {@link TokenTypeEnum#Real} tokens only.</p>
+  */
+  public double getRealToken(
+    )
+  {return realToken;}
+
+  /**
+    Gets the number of raw bytes of the currently-parsed token.
+
+    @see #getTokenBytes()
+  */
+  public int getTokenLength(
+    )
+  {return tokenLength;}
+
   /**
     Gets the currently-parsed token type.
   */
@@ -181,6 +319,31 @@ public class PostScriptParser
     )
   {return stream.hashCode();}
 
+  /**
+    Gets whether the raw bytes of the currently-parsed token match the given string, without
+    materializing the token.
+  */
+  public boolean tokenEquals(
+    String value
+    )
+  {
+    if(!tokenResolved && token == null)
+    {
+      int length = value.length();
+      if(length != tokenLength)
+        return false;
+
+      for(int index = 0; index < length; index++)
+      {
+        if(value.charAt(index) != (tokenBytes[index] & 0xFF))
+          return false;
+      }
+      return true;
+    }
+    else
+      return value.equals(getToken());
+  }
+
   /**
     Moves the pointer to the token at the given offset.
 
@@ -214,8 +377,9 @@ public class PostScriptParser
   public boolean moveNext(
     )
   {
-    StringBuilder buffer = null;
     token = null;
+    tokenResolved = true;
+    tokenLength = 0;
     int c = 0;
 
     // Skip leading white-space characters.
@@ -234,13 +398,13 @@ public class PostScriptParser
       case Symbol.Slash: // Name.
       {
         tokenType = TokenTypeEnum.Name;
+        tokenResolved = false;
 
         /*
           NOTE: As name objects are simple symbols uniquely defined by sequences of characters,
           the bytes making up the name are never treated as text, so here they are just
           passed through without unescaping.
         */
-        buffer = new StringBuilder();
         try
         {
           while(true)
@@ -249,7 +413,7 @@ public class PostScriptParser
             if(isDelimiter(c) || isWhitespace(c))
               break;
 
-            buffer.append((char)c);
+            appendTokenByte(c);
           }
           stream.skip(-1); // Restores the first byte after the current token.
         }
@@ -274,14 +438,37 @@ public class PostScriptParser
         {tokenType = TokenTypeEnum.Real;}
         else // Digit or signum.
         {tokenType = TokenTypeEnum.Integer;} // By default (it may be real).
+        tokenResolved = false;
 
-        // Building the number...
-        buffer = new StringBuilder();
+        /*
+          NOTE: The number value is accumulated while scanning its bytes, falling back to the
+          standard conversion whenever the fast path can't guarantee the same result (too many
+          digits, malformed number).
+        */
+        long mantissa = 0;
+        int digitCount = 0;
+        int scale = -1; // Number of fractional digits (-1: no decimal point).
+        boolean malformed = false;
         try
         {
           while(true)
           {
-            buffer.append((char)c);
+            appendTokenByte(c);
+            if(c == '.')
+            {
+              if(scale >= 0)
+              {malformed = true;}
+              else
+              {scale = 0;}
+            }
+            else if(c >= '0' && c <= '9')
+            {
+              mantissa = mantissa * 10 + (c - '0');
+              digitCount++;
+              if(scale >= 0)
+              {scale++;}
+            }
+
             c = stream.readUnsignedByte();
             if(c == '.')
             {tokenType = TokenTypeEnum.Real;}
@@ -292,6 +479,34 @@ public class PostScriptParser
         }
         catch(EOFException e)
         {/* NOOP */}
+
+        boolean negative = (tokenBytes[0] == '-');
+        if(tokenType == TokenTypeEnum.Integer)
+        {
+          if(digitCount == 0 || digitCount > MaxIntegerDigitCount)
+          {longToken = Long.parseLong(getTokenString());}
+          else
+          {longToken = (negative ? -mantissa : mantissa);}
+          integerToken = clamp(longToken);
+          realToken = longToken;
+        }
+        else
+        {
+          if(digitCount == 0 || digitCount > MaxRealDigitCount || malformed || scale >= PowersOfTen.length)
+          {realToken = Double.parseDouble(getTokenString());}
+          else
+          {
+            /*
+              NOTE: Both mantissa and scale factor are exactly representable as doubles, so their
+              (correctly-rounded) quotient matches the standard conversion.
+            */
+            realToken = mantissa / PowersOfTen[scale];
+            if(negative)
+            {realToken = -realToken;}
+          }
+          longToken = (long)realToken;
+          integerToken = (int)realToken;
+        }
       } break;
       case Symbol.OpenSquareBracket: // Array (begin).
         tokenType = TokenTypeEnum.ArrayBegin;
@@ -314,14 +529,14 @@ public class PostScriptParser
 
         // Hexadecimal string (single angle bracket).
         tokenType = TokenTypeEnum.Hex;
+        tokenResolved = false;
 
-        buffer = new StringBuilder();
         try
         {
           while(c != Symbol.CloseAngleBracket) // NOT string end.
           {
             if(!isWhitespace(c))
-            {buffer.append((char)c);}
+            {appendTokenByte(c);}
 
             c = stream.readUnsignedByte();
           }
@@ -343,8 +558,8 @@ public class PostScriptParser
       case Symbol.OpenRoundBracket: // Literal string.
       {
         tokenType = TokenTypeEnum.Literal;
+        tokenResolved = false;
 
-        buffer = new StringBuilder();
         int level = 0;
         try
         {
@@ -423,7 +638,7 @@ public class PostScriptParser
             if(level == -1)
               break;
 
-            buffer.append((char)c);
+            appendTokenByte(c);
           }
         }
         catch(EOFException e)
@@ -432,8 +647,8 @@ public class PostScriptParser
       case Symbol.Percent: // Comment.
       {
         tokenType = TokenTypeEnum.Comment;
+        tokenResolved = false;
 
-        buffer = new StringBuilder();
         try
         {
           while(true)
@@ -442,7 +657,7 @@ public class PostScriptParser
             if(isEOL(c))
               break;
 
-            buffer.append((char)c);
+            appendTokenByte(c);
           }
         }
         catch(EOFException e)
@@ -451,58 +666,38 @@ public class PostScriptParser
       default: // Keyword.
       {
         tokenType = TokenTypeEnum.Keyword;
+        tokenResolved = false;
 
-        buffer = new StringBuilder();
         try
         {
           do
           {
-            buffer.append((char)c);
+            appendTokenByte(c);
             c = stream.readUnsignedByte();
           } while(!isDelimiter(c) && !isWhitespace(c));
           stream.skip(-1); // Restores the first byte after the current token.
         }
         catch(EOFException e)
         {/* NOOP */}
-      } break;
-    }
 
-    if(buffer != null)
-    {
-      switch(tokenType)
-      {
-        case Keyword:
+        if(tokenEquals(Keyword.False)) // Boolean.
         {
-          token = buffer.toString();
-          if(token.equals(Keyword.False)
-            || token.equals(Keyword.True)) // Boolean.
-          {
-            token = Boolean.parseBoolean((String)token);
-            tokenType = TokenTypeEnum.Boolean;
-          }
-          else if(token.equals(Keyword.Null)) // Null.
-          {
-            token = null;
-            tokenType = TokenTypeEnum.Null;
-          }
-        } break;
-        case Name:
-        case Literal:
-        case Hex:
-        case Comment:
-          token = buffer.toString();
-          break;
-        case Integer:
-          token = Integer.parseInt(buffer.toString());
-          break;
-        case Real:
-          token = Double.parseDouble(buffer.toString());
-          break;
-        default:
+          token = Boolean.FALSE;
+          tokenResolved = true;
+          tokenType = TokenTypeEnum.Boolean;
+        }
+        else if(tokenEquals(Keyword.True)) // Boolean.
         {
-          /* NOOP */
+          token = Boolean.TRUE;
+          tokenResolved = true;
+          tokenType = TokenTypeEnum.Boolean;
         }
-      }
+        else if(tokenEquals(Keyword.Null)) // Null.
+        {
+          tokenResolved = true;
+          tokenType = TokenTypeEnum.Null;
+        }
+      } break;
     }
     return true;
   }
@@ -609,16 +804,69 @@ public class PostScriptParser
     {super.finalize();}
   }
 
+  /**
+    Sets the currently-parsed token as an integer.
+  */
+  protected void setIntegerToken(
+    long value
+    )
+  {
+    integerToken = clamp(value);
+    longToken = value;
+    realToken = value;
+    token = null;
+    tokenResolved = false;
+  }
+
   protected void setToken(
     Object value
     )
-  {token = value;}
+  {
+    token = value;
+    tokenResolved = true;
+  }
 
   protected void setTokenType(
     TokenTypeEnum value
     )
   {tokenType = value;}
   // </protected>
+
+  // <private>
+  private void appendTokenByte(
+    int c
+    )
+  {
+    if(tokenLength == tokenBytes.length)
+    {
+      byte[] newTokenBytes = new byte[tokenLength << 1];
+      System.arraycopy(tokenBytes, 0, newTokenBytes, 0, tokenLength);
+      tokenBytes = newTokenBytes;
+    }
+    tokenBytes[tokenLength++] = (byte)c;
+  }
+
+  /**
+    Gets the string corresponding to the raw bytes of the current token, reusing the cached instance
+    whenever available.
+  */
+  private String getCachedTokenString(
+    )
+  {
+    int hash = 0;
+    for(int index = 0; index < tokenLength; index++)
+    {hash = 31 * hash + tokenBytes[index];}
+    int cacheIndex = (hash ^ (hash >>> 8)) & (TokenStringCacheSize - 1);
+    String value = tokenStrings[cacheIndex];
+    if(value == null || !tokenEquals(value))
+    {tokenStrings[cacheIndex] = value = getTokenString();}
+    return value;
+  }
+
+  private String getTokenString(
+    )
+  {return new String(tokenBytes, 0, tokenLength, TokenCharset);}
+  // </private>
   // </dynamic>
   // </class>
 }
@@ -0,0 +1,62 @@
+package org.pdfclown.samples.cli;
+
+import org.pdfclown.documents.Document;
+import org.pdfclown.files.File;
+import org.pdfclown.files.SerializationModeEnum;
+import org.pdfclown.tools.Optimizer;
+import org.pdfclown.tools.PageManager;
+import org.pdfclown.util.io.IOUtils;
+
+/**
+  This sample demonstrates how to <b>remove duplicate objects</b> from a PDF file.
+  <p>A document is appended multiple times to a new file, as usually happens when merging
+  homogeneous documents (such as invoices sharing the same logo and fonts); the resulting
+  duplicate objects are then merged (see {@link Optimizer#removeDuplicateObjects(File)}).</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public class DeduplicationSample
+  extends Sample
+{
+  private static final int CopyCount = 10;
+
+  @Override
+  public void run(
+    )
+  {
+    String filePath = promptFileChoice("Please select a PDF file");
+
+    // 1. Document merging.
+    File file = new File();
+    {
+      PageManager manager = new PageManager(file.getDocument());
+      for(int copyIndex = 0; copyIndex < CopyCount; copyIndex++)
+      {
+        File sourceFile;
+        try
+        {sourceFile = new File(filePath);}
+        catch(Exception e)
+        {throw new RuntimeException(filePath + " file access error.", e);}
+        try
+        {
+          Document sourceDocument = sourceFile.getDocument();
+          manager.add(sourceDocument);
+        }
+        finally
+        {IOUtils.closeQuietly(sourceFile);}
+      }
+    }
+
+    // 2. Duplicate objects removal.
+    long savedLength = Optimizer.removeDuplicateObjects(file);
+    // Remove the objects left unreferenced by the merged duplicates!
+    Optimizer.removeOrphanedObjects(file);
+
+    System.out.println("\n" + CopyCount + " copies merged: " + savedLength + " bytes saved.");
+
+    // 3. Serialize the PDF file!
+    serialize(file, getClass().getSimpleName(), SerializationModeEnum.Standard);
+  }
+}
@@ -0,0 +1,295 @@
+package org.pdfclown.samples.cli;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pdfclown.documents.Pages;
+import org.pdfclown.files.File;
+import org.pdfclown.files.IndirectObjects;
+import org.pdfclown.files.SerializationModeEnum;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfIndirectObject;
+import org.pdfclown.objects.PdfInteger;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
+import org.pdfclown.objects.PdfReference;
+import org.pdfclown.objects.PdfStream;
+import org.pdfclown.util.io.IOUtils;
+
+/**
+  This sample demonstrates how to <b>save a PDF file linearized</b> ("Fast Web View"), so that
+  its first page can be displayed before the whole file is received.
+  <p>The linearized file is then validated: the linearization parameters and the hint tables
+  [PDF:1.7:F.3-4] are checked against the actual object offsets of the file.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public class LinearizationSample
+  extends Sample
+{
+  /**
+    Bit-level reader of hint table entries.
+  */
+  private static final class HintTableReader
+  {
+    private final byte[] data;
+    private int position; // Bit position.
+
+    public HintTableReader(
+      byte[] data,
+      int offset
+      )
+    {
+      this.data = data;
+      this.position = offset * 8;
+    }
+
+    public void align(
+      )
+    {position = (position + 7) / 8 * 8;}
+
+    public long read(
+      int length
+      )
+    {
+      long value = 0;
+      for(int index = 0; index < length; index++, position++)
+      {value = (value << 1) | ((data[position / 8] >> (7 - position % 8)) & 1);}
+      return value;
+    }
+  }
+
+  @Override
+  public void run(
+    )
+  {
+    // 1. Opening the PDF file...
+    String filePath = promptFileChoice("Please select a PDF file");
+    File file;
+    try
+    {file = new File(filePath);}
+    catch(Exception e)
+    {throw new RuntimeException(filePath + " file access error.", e);}
+
+    // 2. Serialize the PDF file linearized!
+    String outputPath;
+    try
+    {outputPath = serialize(file, getClass().getSimpleName(), SerializationModeEnum.Linearized, "Linearization", "saving a file linearized", "linearization, fast web view, hint tables");}
+    finally
+    {IOUtils.closeQuietly(file);}
+
+    // 3. Validate the linearized file!
+    List<String> errors = validate(outputPath);
+    if(errors.isEmpty())
+    {System.out.println("\nLinearization check passed.");}
+    else
+    {
+      System.out.println("\nLinearization check failed:");
+      for(String error : errors)
+      {System.out.println("  " + error);}
+    }
+  }
+
+  private void check(
+    List<String> errors,
+    boolean condition,
+    String message
+    )
+  {
+    if(!condition)
+    {errors.add(message);}
+  }
+
+  /**
+    Checks the linearization parameters and the hint tables of the specified file against its
+    actual object offsets.
+  */
+  private List<String> validate(
+    String filePath
+    )
+  {
+    List<String> errors = new ArrayList<String>();
+    File file;
+    byte[] data;
+    try
+    {
+      file = new File(filePath);
+      RandomAccessFile dataFile = new RandomAccessFile(filePath, "r");
+      try
+      {dataFile.readFully(data = new byte[(int)dataFile.length()]);}
+      finally
+      {dataFile.close();}
+    }
+    catch(Exception e)
+    {throw new RuntimeException(filePath + " file access error.", e);}
+    try
+    {
+      IndirectObjects indirectObjects = file.getIndirectObjects();
+      Pages pages = file.getDocument().getPages();
+
+      // 1. Linearization parameter dictionary (first object in the file).
+      PdfDictionary parameters = null;
+      long firstOffset = Long.MAX_VALUE;
+      for(int index = 1, length = indirectObjects.size(); index < length; index++)
+      {
+        PdfIndirectObject object = indirectObjects.get(index);
+        if(object.isInUse()
+          && object.getXrefEntry().getOffset() < firstOffset)
+        {
+          firstOffset = object.getXrefEntry().getOffset();
+          PdfDataObject dataObject = object.getDataObject();
+          parameters = (dataObject instanceof PdfDictionary ? (PdfDictionary)dataObject : null);
+        }
+      }
+      if(parameters == null
+        || !parameters.containsKey(PdfName.Linearized))
+      {
+        errors.add("Linearization parameter dictionary missing.");
+        return errors;
+      }
+      check(errors, firstOffset < 1024, "Linearization parameter dictionary beyond the first 1024 bytes.");
+      check(errors, getLong(parameters, PdfName.L) == data.length, "File length (L) mismatch.");
+      check(errors, getLong(parameters, PdfName.N) == pages.size(), "Page count (N) mismatch.");
+      check(errors, getLong(parameters, PdfName.O) == ((PdfReference)pages.get(0).getBaseObject()).getObjectNumber(), "First page object number (O) mismatch.");
+      long mainXRefEntriesOffset = getLong(parameters, PdfName.T);
+      check(errors, Character.isWhitespace(data[(int)mainXRefEntriesOffset]) && new String(data, (int)mainXRefEntriesOffset + 1, 18).equals("0000000000 65535 f"), "Main xref table offset (T) mismatch.");
+
+      // 2. Hint stream.
+      PdfArray hintParameters = (PdfArray)parameters.get(PdfName.H);
+      long hintOffset = ((PdfNumber<?>)hintParameters.get(0)).getLongValue();
+      long hintLength = ((PdfNumber<?>)hintParameters.get(1)).getLongValue();
+      PdfStream hintStream = null;
+      for(int index = 1, length = indirectObjects.size(); index < length; index++)
+      {
+        PdfIndirectObject object = indirectObjects.get(index);
+        if(object.isInUse()
+          && object.getXrefEntry().getOffset() == hintOffset)
+        {hintStream = (PdfStream)object.getDataObject();}
+      }
+      if(hintStream == null)
+      {
+        errors.add("Primary hint stream (H) not found.");
+        return errors;
+      }
+      byte[] hintData = hintStream.getBody().toByteArray();
+
+      // 3. Page offset hint table.
+      HintTableReader reader = new HintTableReader(hintData, 0);
+      int pageCount = pages.size();
+      long minObjectCount = reader.read(32);
+      long firstPageOffset = reader.read(32);
+      int objectCountBits = (int)reader.read(16);
+      long minPageLength = reader.read(32);
+      int pageLengthBits = (int)reader.read(16);
+      reader.read(32); int contentOffsetBits = (int)reader.read(16);
+      reader.read(32); int contentLengthBits = (int)reader.read(16);
+      int sharedObjectCountBits = (int)reader.read(16);
+      int sharedObjectIdBits = (int)reader.read(16);
+      int numeratorBits = (int)reader.read(16);
+      reader.read(16);
+      long[] objectCounts = new long[pageCount];
+      for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+      {objectCounts[pageIndex] = minObjectCount + reader.read(objectCountBits);}
+      reader.align();
+      long[] pageLengths = new long[pageCount];
+      for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+      {pageLengths[pageIndex] = minPageLength + reader.read(pageLengthBits);}
+      reader.align();
+      long[] sharedObjectCounts = new long[pageCount];
+      for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+      {sharedObjectCounts[pageIndex] = reader.read(sharedObjectCountBits);}
+      reader.align();
+      for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+      {reader.read((int)sharedObjectCounts[pageIndex] * sharedObjectIdBits);}
+      reader.align();
+      for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+      {reader.read((int)sharedObjectCounts[pageIndex] * numeratorBits);}
+      reader.align();
+      for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+      {reader.read(contentOffsetBits);}
+      reader.align();
+      for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+      {reader.read(contentLengthBits);}
+      /*
+        NOTE: Hint table offsets are computed as if the hint stream were absent.
+      */
+      long pageOffset = firstPageOffset;
+      for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+      {
+        int pageNumber = ((PdfReference)pages.get(pageIndex).getBaseObject()).getObjectNumber();
+        long actualPageOffset = toActualOffset(pageOffset, hintOffset, hintLength);
+        check(errors, indirectObjects.get(pageNumber).getXrefEntry().getOffset() == actualPageOffset, "Page " + (pageIndex + 1) + ": page object offset mismatch.");
+        // Objects of the page (consecutively numbered from the page object).
+        for(int objectIndex = 0; objectIndex < objectCounts[pageIndex]; objectIndex++)
+        {
+          long objectOffset = indirectObjects.get(pageNumber + objectIndex).getXrefEntry().getOffset();
+          check(errors, objectOffset >= actualPageOffset && objectOffset < actualPageOffset + pageLengths[pageIndex], "Page " + (pageIndex + 1) + ": object " + (pageNumber + objectIndex) + " out of the page range.");
+        }
+        pageOffset += pageLengths[pageIndex];
+        if(pageIndex == 0)
+        {check(errors, toActualOffset(pageOffset, hintOffset, hintLength) == getLong(parameters, PdfName.E), "First page end (E) mismatch.");}
+      }
+
+      // 4. Shared object hint table.
+      reader = new HintTableReader(hintData, ((PdfInteger)hintStream.getHeader().get(PdfName.S)).getIntValue());
+      long firstSharedNumber = reader.read(32);
+      long firstSharedOffset = reader.read(32);
+      int firstPageGroupCount = (int)reader.read(32);
+      int groupCount = (int)reader.read(32);
+      int groupObjectCountBits = (int)reader.read(16);
+      long minGroupLength = reader.read(32);
+      int groupLengthBits = (int)reader.read(16);
+      long[] groupLengths = new long[groupCount];
+      for(int groupIndex = 0; groupIndex < groupCount; groupIndex++)
+      {groupLengths[groupIndex] = minGroupLength + reader.read(groupLengthBits);}
+      reader.align();
+      for(int groupIndex = 0; groupIndex < groupCount; groupIndex++)
+      {
+        if(reader.read(1) == 1)
+        {reader.read(128);}
+      }
+      reader.align();
+      long[] groupObjectCounts = new long[groupCount];
+      for(int groupIndex = 0; groupIndex < groupCount; groupIndex++)
+      {groupObjectCounts[groupIndex] = 1 + reader.read(groupObjectCountBits);}
+      long groupNumber = getLong(parameters, PdfName.O), groupOffset = firstPageOffset;
+      for(int groupIndex = 0; groupIndex < groupCount; groupIndex++)
+      {
+        if(groupIndex == firstPageGroupCount)
+        {
+          groupNumber = firstSharedNumber;
+          groupOffset = firstSharedOffset;
+        }
+        check(errors, indirectObjects.get((int)groupNumber).getXrefEntry().getOffset() == toActualOffset(groupOffset, hintOffset, hintLength), "Shared object group " + groupIndex + ": offset mismatch.");
+        groupNumber += groupObjectCounts[groupIndex];
+        groupOffset += groupLengths[groupIndex];
+      }
+
+      System.out.println("\nChecked " + pageCount + " pages and " + groupCount + " shared object groups.");
+    }
+    finally
+    {IOUtils.closeQuietly(file);}
+    return errors;
+  }
+
+  private long getLong(
+    PdfDictionary dictionary,
+    PdfName key
+    )
+  {return ((PdfNumber<?>)dictionary.get(key)).getLongValue();}
+
+  /**
+    Converts the specified hint table offset into the actual file offset.
+  */
+  private long toActualOffset(
+    long offset,
+    long hintOffset,
+    long hintLength
+    )
+  {return offset >= hintOffset ? offset + hintLength : offset;}
+}
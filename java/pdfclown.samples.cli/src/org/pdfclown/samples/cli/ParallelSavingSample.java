@@ -0,0 +1,96 @@
+package org.pdfclown.samples.cli;
+
+import java.awt.geom.Point2D;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.pdfclown.documents.Document;
+import org.pdfclown.documents.Page;
+import org.pdfclown.documents.contents.composition.PrimitiveComposer;
+import org.pdfclown.documents.contents.fonts.StandardType1Font;
+import org.pdfclown.files.File;
+import org.pdfclown.files.SerializationModeEnum;
+
+/**
+  This sample demonstrates how to <b>compress the streams of a PDF file concurrently</b> while
+  saving it.
+  <p>A large document is generated and serialized twice: the first time its streams are compressed
+  sequentially, the second time they are compressed on a thread pool (see {@link
+  org.pdfclown.files.FileConfiguration#setStreamEncodingExecutor(ExecutorService)}); the respective
+  timings are then compared.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public class ParallelSavingSample
+  extends Sample
+{
+  private static final int PageCount = 500;
+  private static final int LineCount = 60;
+
+  @Override
+  public void run(
+    )
+  {
+    // 1. Sequential compression.
+    long sequentialTime;
+    {
+      File file = createFile();
+      long startTime = System.nanoTime();
+      serialize(file, getClass().getSimpleName() + "_sequential", SerializationModeEnum.Standard);
+      sequentialTime = System.nanoTime() - startTime;
+    }
+
+    // 2. Concurrent compression.
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    long parallelTime;
+    {
+      File file = createFile();
+      ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+      try
+      {
+        file.getConfiguration().setStreamEncodingExecutor(executor);
+
+        long startTime = System.nanoTime();
+        serialize(file, getClass().getSimpleName() + "_parallel", SerializationModeEnum.Standard);
+        parallelTime = System.nanoTime() - startTime;
+      }
+      finally
+      {executor.shutdown();}
+    }
+
+    System.out.println("\nSaving time (" + PageCount + " pages):");
+    System.out.println("  sequential: " + (sequentialTime / 1000000) + " ms");
+    System.out.println("  parallel (" + threadCount + " threads): " + (parallelTime / 1000000) + " ms");
+  }
+
+  /**
+    Creates a PDF file populated with text-heavy pages.
+  */
+  private File createFile(
+    )
+  {
+    File file = new File();
+    Document document = file.getDocument();
+    StandardType1Font font = new StandardType1Font(document, StandardType1Font.FamilyEnum.Times, false, false);
+    for(int pageIndex = 0; pageIndex < PageCount; pageIndex++)
+    {
+      Page page = new Page(document);
+      document.getPages().add(page);
+
+      PrimitiveComposer composer = new PrimitiveComposer(page);
+      composer.setFont(font, 10);
+      for(int lineIndex = 0; lineIndex < LineCount; lineIndex++)
+      {
+        composer.showText(
+          "Page " + (pageIndex + 1) + ", line " + (lineIndex + 1)
+            + ": the quick brown fox jumps over the lazy dog " + (pageIndex * LineCount + lineIndex),
+          new Point2D.Double(30, 30 + lineIndex * 12)
+          );
+      }
+      composer.flush();
+    }
+    return file;
+  }
+}
@@ -0,0 +1,88 @@
+package org.pdfclown.samples.cli;
+
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.pdfclown.documents.Page;
+import org.pdfclown.documents.Pages;
+import org.pdfclown.documents.contents.ITextString;
+import org.pdfclown.files.File;
+import org.pdfclown.tools.TextExtractor;
+import org.pdfclown.util.io.IOUtils;
+
+/**
+  This sample demonstrates how to <b>extract text from multiple pages concurrently</b>.
+  <p>The text of the document pages is extracted twice: the first time page by page, the second
+  time on a thread pool (see {@link TextExtractor#extract(List, ExecutorService)}); the respective
+  timings are then compared.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public class ParallelTextExtractionSample
+  extends Sample
+{
+  @Override
+  public void run(
+    )
+  {
+    String filePath = promptFileChoice("Please select a PDF file");
+    TextExtractor extractor = new TextExtractor();
+
+    // 1. Sequential extraction.
+    long sequentialTime;
+    int charCount = 0;
+    {
+      File file = openFile(filePath);
+      try
+      {
+        long startTime = System.nanoTime();
+        for(Page page : file.getDocument().getPages())
+        {charCount += TextExtractor.toString(extractor.extract(page)).length();}
+        sequentialTime = System.nanoTime() - startTime;
+      }
+      finally
+      {IOUtils.closeQuietly(file);}
+    }
+
+    // 2. Concurrent extraction.
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    long parallelTime;
+    int parallelCharCount = 0;
+    {
+      File file = openFile(filePath);
+      ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+      try
+      {
+        long startTime = System.nanoTime();
+        Pages pages = file.getDocument().getPages();
+        for(Map<Rectangle2D,List<ITextString>> pageTextStrings : extractor.extract(pages.subList(0, pages.size()), executor))
+        {parallelCharCount += TextExtractor.toString(pageTextStrings).length();}
+        parallelTime = System.nanoTime() - startTime;
+      }
+      finally
+      {
+        executor.shutdown();
+        IOUtils.closeQuietly(file);
+      }
+    }
+
+    System.out.println("\nText extraction time (" + charCount + " chars):");
+    System.out.println("  sequential: " + (sequentialTime / 1000000) + " ms");
+    System.out.println("  parallel (" + threadCount + " threads): " + (parallelTime / 1000000) + " ms" + (parallelCharCount != charCount ? " [MISMATCH: " + parallelCharCount + " chars]" : ""));
+  }
+
+  private File openFile(
+    String filePath
+    )
+  {
+    try
+    {return new File(filePath);}
+    catch(Exception e)
+    {throw new RuntimeException(filePath + " file access error.", e);}
+  }
+}
@@ -0,0 +1,99 @@
+package org.pdfclown.samples.cli;
+
+import java.awt.geom.Point2D;
+
+import org.pdfclown.bytes.OutputStream;
+import org.pdfclown.documents.Document;
+import org.pdfclown.documents.Page;
+import org.pdfclown.documents.contents.composition.PrimitiveComposer;
+import org.pdfclown.documents.contents.fonts.StandardType1Font;
+import org.pdfclown.files.File;
+import org.pdfclown.tokens.StreamingWriter;
+import org.pdfclown.util.io.IOUtils;
+
+/**
+  This sample demonstrates how to <b>generate a very large document within a bounded amount of
+  memory</b>.
+  <p>Each page is flushed to the output file as soon as its composition is complete (see {@link
+  StreamingWriter}), so that the memory footprint doesn't grow with the page count: the sample is
+  expected to succeed even with a small heap (e.g. <code>-Xmx64m</code>). The generated file is then
+  reopened to check its page count.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.2.0
+  @version 0.2.0
+*/
+public class StreamingWriterSample
+  extends Sample
+{
+  private static final int PageCount = 100000;
+  private static final int LineCount = 40;
+
+  @Override
+  public void run(
+    )
+  {
+    String outputPath = getOutputPath(getClass().getSimpleName() + ".pdf");
+
+    // 1. Generation.
+    long startTime = System.nanoTime();
+    {
+      File file = new File();
+      Document document = file.getDocument();
+
+      OutputStream stream = null;
+      try
+      {
+        java.io.FileOutputStream fileStream = new java.io.FileOutputStream(outputPath);
+        stream = new OutputStream(new java.io.BufferedOutputStream(fileStream), fileStream.getChannel());
+        StreamingWriter writer = new StreamingWriter(file, stream);
+
+        StandardType1Font font = new StandardType1Font(document, StandardType1Font.FamilyEnum.Courier, false, false);
+        for(int pageIndex = 0; pageIndex < PageCount; pageIndex++)
+        {
+          Page page = new Page(document);
+          writer.add(page);
+
+          PrimitiveComposer composer = new PrimitiveComposer(page);
+          composer.setFont(font, 10);
+          for(int lineIndex = 0; lineIndex < LineCount; lineIndex++)
+          {
+            composer.showText(
+              "Page " + (pageIndex + 1) + ", record " + (pageIndex * LineCount + lineIndex + 1),
+              new Point2D.Double(30, 30 + lineIndex * 18)
+              );
+          }
+          composer.flush();
+
+          // Write the finished page and release it!
+          writer.flush(page);
+        }
+        writer.close();
+      }
+      catch(Exception e)
+      {throw new RuntimeException(outputPath + " file writing failed.", e);}
+      finally
+      {IOUtils.closeQuietly(stream);}
+    }
+    long generationTime = System.nanoTime() - startTime;
+
+    // 2. Verification.
+    int pageCount;
+    {
+      File file;
+      try
+      {file = new File(outputPath);}
+      catch(Exception e)
+      {throw new RuntimeException(outputPath + " file access error.", e);}
+      try
+      {pageCount = file.getDocument().getPages().size();}
+      finally
+      {IOUtils.closeQuietly(file);}
+    }
+
+    Runtime runtime = Runtime.getRuntime();
+    System.out.println("\nGenerated " + pageCount + " pages (expected: " + PageCount + ") in " + (generationTime / 1000000) + " ms");
+    System.out.println("Maximum heap size: " + (runtime.maxMemory() / (1024 * 1024)) + " MB");
+    System.out.println("\nOutput: " + outputPath);
+  }
+}